@@ -0,0 +1,83 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding every path, and the longest path, across a grid where every Edge points right or
+ * down. The number of paths from one corner to the other grows quickly with the size of the
+ * grid (924 paths for a 7x7 grid, 12870 for a 9x9 grid), so these use their own, small graphs
+ * rather than `GraphState`.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class AllPathsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class DirectedGrid {
+        @Param({"7", "9"})
+        public int side;
+
+        Graph graph;
+        String firstCorner;
+        String lastCorner;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            GraphBuilder builder = Graph.builder();
+            for (int x = 0; x < this.side; x++) {
+                for (int y = 0; y < this.side; y++) {
+                    builder.addVertex(x + "," + y);
+                    if (x > 0)
+                        builder.addEdge((x - 1) + "," + y, x + "," + y, 1 + (x * 7 + y * 3) % 10);
+                    if (y > 0)
+                        builder.addEdge(x + "," + (y - 1), x + "," + y, 1 + (x * 5 + y) % 10);
+                }
+            }
+            this.graph = builder.build();
+            this.firstCorner = "0,0";
+            this.lastCorner = (this.side - 1) + "," + (this.side - 1);
+        }
+    }
+
+    @Benchmark
+    public List<Path> findAllPaths(DirectedGrid grid) {
+        return grid.graph.findAllPaths(grid.firstCorner, grid.lastCorner);
+    }
+
+    @Benchmark
+    public Path findLongestPath(DirectedGrid grid) {
+        return grid.graph.findLongestPath(grid.firstCorner, grid.lastCorner);
+    }
+
+    /**
+     * The longest path through the larger graphs of `GraphState`. Only the DAG shape is
+     * searched in O(V+E); on the other shapes, this measures how quickly the budget runs out.
+     */
+    @Benchmark
+    public Object findLongestPathLarge(GraphState state, GraphState.Cursor cursor) {
+        String[] pair = state.pairs[cursor.next(state.pairs.length)];
+        try {
+            return state.graph.findLongestPath(pair[0], pair[1], 100_000, null);
+        }
+        catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+}
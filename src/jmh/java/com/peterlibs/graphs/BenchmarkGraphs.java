@@ -0,0 +1,135 @@
+package com.peterlibs.graphs;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+/**
+ * The graphs the benchmarks run against, made by `GraphGenerators` from a fixed seed so that
+ * every run (and every fork) measures exactly the same Graph.
+ * The Edges are kept as plain arrays as well, so that the construction benchmarks can time
+ * adding them without also timing how they were made up.
+ */
+class BenchmarkGraphs {
+
+    //Points log4j at a configuration that only logs warnings, so the benchmarks measure the
+    // Graph and not the console. Given to every fork with `@Fork(jvmArgsAppend = ...)`.
+    static final String LOG_CONFIG = "-Dlog4j.configurationFile=log4j2-jmh.xml";
+    //Turns off the logging on the hot paths altogether (see `Graph.LOG_HOT_PATHS`)
+    static final String NO_LOG = "-Dcom.peterlibs.graphs.noLog=true";
+    static final long SEED = 20240611L;
+    static final int MAX_WEIGHT = 100;
+
+    /**
+     * The shapes of Graph to benchmark against
+     */
+    enum Shape {
+        //`GraphGenerators.erdosRenyi`, `degree` Edges per Vertex on average
+        RANDOM,
+        //`GraphGenerators.grid`, a square grid of roads. Ignores `degree`.
+        GRID,
+        //`GraphGenerators.layeredDag`, where each Vertex has `degree` Edges into the next layer
+        DAG
+    }
+
+    //The Graph made by the generator, and the same Graph as the labels of its vertices (in
+    // Vertex index order) and the ends and weights of its Edges
+    final Graph graph;
+    final String[] labels;
+    final String[] edgeStarts;
+    final String[] edgeEnds;
+    final int[] edgeWeights;
+
+    private BenchmarkGraphs (Graph graph) {
+        this.graph = graph;
+        this.labels = new String[graph.getNumberOfVertices()];
+        int numberOfEdges = graph.getNumberOfEdges();
+        this.edgeStarts = new String[numberOfEdges];
+        this.edgeEnds = new String[numberOfEdges];
+        this.edgeWeights = new int[numberOfEdges];
+        Vertex[] byIndex = new Vertex[this.labels.length];
+        for (Vertex aVertex: graph.getVerticesInternal()) {
+            byIndex[aVertex.getIndex()] = aVertex;
+        }
+        int e = 0;
+        for (int i = 0; i < byIndex.length; i++) {
+            this.labels[i] = byIndex[i].getLabel();
+            for (Edge anEdge: byIndex[i].getEdgesInternal()) {
+                this.edgeStarts[e] = anEdge.getVertexStart().getLabel();
+                this.edgeEnds[e] = anEdge.getVertexEnd().getLabel();
+                this.edgeWeights[e] = anEdge.getWeight();
+                e++;
+            }
+        }
+    }
+
+    /**
+     * Makes a Graph of the given shape
+     * @param shape : The shape of the Graph
+     * @param size : The number of vertices (rounded down to a square for a grid, and to a
+     *             whole number of layers for a DAG)
+     * @param degree : The average number of Edges leaving each Vertex
+     * @return A BenchmarkGraphs holding the Graph, and its vertices and Edges
+     */
+    static BenchmarkGraphs generate(Shape shape, int size, int degree) {
+        Graph generated = switch (shape) {
+            case RANDOM -> GraphGenerators.erdosRenyi(size, size * degree, MAX_WEIGHT, SEED);
+            case GRID -> {
+                int side = (int) Math.sqrt(size);
+                yield GraphGenerators.grid(side, side, MAX_WEIGHT, SEED);
+            }
+            case DAG -> {
+                int width = Math.max(degree * 4, 8);
+                yield GraphGenerators.layeredDag(size / width, width, degree, MAX_WEIGHT, SEED);
+            }
+        };
+        return new BenchmarkGraphs(generated);
+    }
+
+    /**
+     * Builds the vertices and Edges into a Graph, through a GraphBuilder
+     */
+    Graph build() {
+        GraphBuilder builder = Graph.builder();
+        for (String aLabel: this.labels) {
+            builder.addVertex(aLabel);
+        }
+        for (int e = 0; e < this.edgeStarts.length; e++) {
+            builder.addEdge(this.edgeStarts[e], this.edgeEnds[e], this.edgeWeights[e]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Picks pairs of vertices that have a path between them, to search for paths between
+     * @param aGraph : The Graph built from these vertices and Edges
+     * @param numberOfPairs : The number of pairs to pick
+     * @return An array of {start, end} label pairs
+     */
+    String[][] pickConnectedPairs(Graph aGraph, int numberOfPairs) {
+        Random random = new Random(SEED + 1);
+        ArrayList<String[]> pairs = new ArrayList<>();
+        for (int attempt = 0; attempt < numberOfPairs * 100 && pairs.size() < numberOfPairs; attempt++) {
+            int start = random.nextInt(this.labels.length);
+            int end = random.nextInt(this.labels.length);
+            if (start == end)
+                continue;
+            //Edges in a DAG only go forwards, to vertices with a higher index
+            if (start > end) {
+                int swap = start;
+                start = end;
+                end = swap;
+            }
+            try {
+                aGraph.findShortestPath(this.labels[start], this.labels[end]);
+                pairs.add(new String[] { this.labels[start], this.labels[end] });
+            }
+            catch (RuntimeException e) {
+                //No path between them, so try another pair
+            }
+        }
+        if (pairs.isEmpty())
+            throw new IllegalStateException("Could not find any connected pairs of vertices");
+        return pairs.toArray(new String[0][]);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a whole Graph, one call at a time with `addVertex` and `addEdge`, or all at once
+ * with a GraphBuilder
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class ConstructionBenchmark {
+
+    @Benchmark
+    public Graph addVertexAndEdge(GraphState state) {
+        BenchmarkGraphs generated = state.generated;
+        Graph aGraph = new Graph();
+        for (String aLabel: generated.labels) {
+            aGraph.addVertex(aLabel);
+        }
+        for (int e = 0; e < generated.edgeStarts.length; e++) {
+            aGraph.addEdge(generated.edgeStarts[e], generated.edgeEnds[e], generated.edgeWeights[e]);
+        }
+        return aGraph;
+    }
+
+    @Benchmark
+    public Graph builder(GraphState state) {
+        return state.generated.build();
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * A Graph shared by every thread of a benchmark, of the size, density and shape given by the
+ * benchmark parameters, along with pairs of vertices that have a path between them.
+ */
+@State(Scope.Benchmark)
+public class GraphState {
+
+    static final int NUMBER_OF_PAIRS = 64;
+
+    @Param({"1000", "100000"})
+    public int size;
+    @Param({"2", "8"})
+    public int degree;
+    @Param({"RANDOM", "GRID", "DAG"})
+    public String shape;
+
+    BenchmarkGraphs generated;
+    Graph graph;
+    String[][] pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        this.generated = BenchmarkGraphs.generate(BenchmarkGraphs.Shape.valueOf(this.shape), this.size, this.degree);
+        this.graph = this.generated.graph;
+        this.pairs = this.generated.pickConnectedPairs(this.graph, NUMBER_OF_PAIRS);
+    }
+
+    /**
+     * Each thread walks through the pairs (and labels) in turn, so that every call does not
+     * ask the same question
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+
+        int next(int bound) {
+            this.next = (this.next + 1) % bound;
+            return this.next;
+        }
+    }
+
+}
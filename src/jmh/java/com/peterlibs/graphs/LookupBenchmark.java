@@ -0,0 +1,49 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding a single Vertex or Edge by label, with the hot path logging left in (but switched off
+ * by the log configuration), and taken out with `BenchmarkGraphs.NO_LOG`.
+ * Run with `-prof gc`: the lookups without logging should show `gc.alloc.rate.norm` of 0 B/op.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class LookupBenchmark {
+
+    @Benchmark
+    public Object getVertex(GraphState state, GraphState.Cursor cursor) {
+        String[] labels = state.generated.labels;
+        return state.graph.getVertex(labels[cursor.next(labels.length)]);
+    }
+
+    @Benchmark
+    public Edge getEdge(GraphState state, GraphState.Cursor cursor) {
+        BenchmarkGraphs generated = state.generated;
+        int e = cursor.next(generated.edgeStarts.length);
+        return state.graph.getEdge(generated.edgeStarts[e], generated.edgeEnds[e]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {BenchmarkGraphs.LOG_CONFIG, BenchmarkGraphs.NO_LOG})
+    public Object getVertexNoLog(GraphState state, GraphState.Cursor cursor) {
+        return this.getVertex(state, cursor);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {BenchmarkGraphs.LOG_CONFIG, BenchmarkGraphs.NO_LOG})
+    public Edge getEdgeNoLog(GraphState state, GraphState.Cursor cursor) {
+        return this.getEdge(state, cursor);
+    }
+
+}
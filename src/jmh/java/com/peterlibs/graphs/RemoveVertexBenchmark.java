@@ -0,0 +1,50 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removing vertices (and every Edge touching them). Since each call changes the Graph, a fresh
+ * Graph is built before every iteration, and each iteration times a batch of removals.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, batchSize = RemoveVertexBenchmark.BATCH_SIZE)
+@Measurement(iterations = 10, batchSize = RemoveVertexBenchmark.BATCH_SIZE)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class RemoveVertexBenchmark {
+
+    static final int BATCH_SIZE = 500;
+
+    @State(Scope.Thread)
+    public static class FreshGraph {
+        Graph graph;
+        int next;
+
+        @Setup(Level.Iteration)
+        public void setUp(GraphState state) {
+            this.graph = state.generated.build();
+            this.next = 0;
+        }
+    }
+
+    @Benchmark
+    public Graph removeVertex(GraphState state, FreshGraph fresh) {
+        //Removes vertices spread out across the Graph, never the same one twice in an iteration
+        String[] labels = state.generated.labels;
+        int i = (int) ((fresh.next++ * 7919L) % labels.length);
+        fresh.graph.removeVertex(labels[i]);
+        return fresh.graph;
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.channels.Channels;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a Graph out and reading it back in, in memory, in each of the formats it supports
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class SerializationBenchmark {
+
+    @Benchmark
+    public Graph binaryFormat(GraphState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        state.graph.writeTo(bytes);
+        return Graph.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+
+    @Benchmark
+    public Graph javaSerialization(GraphState state) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(state.graph);
+        }
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (Graph) stream.readObject();
+        }
+    }
+
+    @Benchmark
+    public Graph edgeList(GraphState state) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EdgeListFormat format = EdgeListFormat.csv();
+        format.exportTo(state.graph, Channels.newChannel(bytes));
+        return format.importFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+    }
+
+}
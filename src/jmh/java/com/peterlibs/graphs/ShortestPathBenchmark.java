@@ -0,0 +1,34 @@
+package com.peterlibs.graphs;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Finding the shortest path between pairs of connected vertices, with each of the engines
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = BenchmarkGraphs.LOG_CONFIG)
+public class ShortestPathBenchmark {
+
+    @Benchmark
+    public Path findShortestPath(GraphState state, GraphState.Cursor cursor) {
+        String[] pair = state.pairs[cursor.next(state.pairs.length)];
+        return state.graph.findShortestPath(pair[0], pair[1], SearchDirection.FORWARD);
+    }
+
+    @Benchmark
+    public Path findShortestPathBidirectional(GraphState state, GraphState.Cursor cursor) {
+        String[] pair = state.pairs[cursor.next(state.pairs.length)];
+        return state.graph.findShortestPath(pair[0], pair[1], SearchDirection.BIDIRECTIONAL);
+    }
+
+}
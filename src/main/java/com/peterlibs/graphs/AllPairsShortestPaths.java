@@ -0,0 +1,296 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * The shortest path between every pair of vertices in a GraphSnapshot, worked out all at once.
+ * For every (start, end) pair we keep the cost and number of Edges of the shortest path (as a
+ * single key, in the same way as `DijkstraSearch.toKey`) and the first Edge on it (the "next hop").
+ * A path is rebuilt by following next hops, so getting it costs only its own length.
+ * Both tables have V*V entries, so this should only be used when a V*V table fits in memory
+ * (and in a single array, which limits V to 46,340).
+ *
+ * Two backends are used, depending on how dense the Graph is:
+ *  - Dense graphs use a blocked Floyd-Warshall. The table is split into square blocks that fit
+ *    in the CPU cache, and for each diagonal block, every block that depends on it is updated in
+ *    parallel. This is O(V^3), but walks the table in a cache friendly order.
+ *  - Sparse graphs run Dijkstra's algorithm from every Vertex, in parallel. This is
+ *    O(V * (V+E) log V). (Johnson's algorithm would re-weight the Edges first, so that
+ *    Dijkstra's algorithm can be used, but Edges can never have negative weights, so it isn't needed.)
+ */
+public class AllPairsShortestPaths {
+
+    static final Logger classLogger = LogManager.getLogger(AllPairsShortestPaths.class);
+    //The number of vertices along each side of a Floyd-Warshall block. 64 x 64 longs is 32KB.
+    static final int BLOCK_SIZE = 64;
+    //The key for a pair of vertices with no path between them
+    private static final long UNREACHABLE = Long.MAX_VALUE;
+    //Instance variables, for recording the snapshot the paths are in, and the key and first
+    // Edge of the shortest path from `i` to `j`, at position `i*V + j`.
+    private final GraphSnapshot snapshot;
+    private final int numberOfVertices;
+    private final long[] keys;
+    private final int[] nextEdges;
+
+    //The most entries a Java array can hold
+    static final long MAX_TABLE_SIZE = Integer.MAX_VALUE - 8;
+
+    private AllPairsShortestPaths (GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.numberOfVertices = snapshot.getNumberOfVertices();
+        long tableSize = (long) this.numberOfVertices * this.numberOfVertices;
+        if (tableSize > MAX_TABLE_SIZE) {
+            throw new IllegalArgumentException(
+                "A Graph of %d vertices needs %d entries per table, more than an array can hold (%d)".formatted(
+                    this.numberOfVertices, tableSize, MAX_TABLE_SIZE
+                )
+            );
+        }
+        this.keys = new long[(int) tableSize];
+        this.nextEdges = new int[(int) tableSize];
+    }
+
+    /**
+     * Works out the shortest path between every pair of vertices, choosing the backend from the
+     * density of the Graph. Floyd-Warshall is used once E * log(V) is at least V^2, since that is
+     * where running Dijkstra's algorithm V times stops being cheaper.
+     * @param snapshot : The Graph to search
+     * @param pool : The ForkJoinPool to do the work in
+     * @return An AllPairsShortestPaths object
+     */
+    static AllPairsShortestPaths compute(GraphSnapshot snapshot, ForkJoinPool pool) {
+        long numberOfVertices = snapshot.getNumberOfVertices();
+        long logOfVertices = 64 - Long.numberOfLeadingZeros(numberOfVertices);
+        if (snapshot.getNumberOfEdges() * logOfVertices >= numberOfVertices * numberOfVertices)
+            return computeFloydWarshall(snapshot, pool);
+        return computeDijkstra(snapshot, pool);
+    }
+
+    static AllPairsShortestPaths computeFloydWarshall(GraphSnapshot snapshot, ForkJoinPool pool) {
+        classLogger.debug("Running blocked Floyd-Warshall over {} vertices", snapshot.getNumberOfVertices());
+        AllPairsShortestPaths result = new AllPairsShortestPaths(snapshot);
+        result.initialiseFromEdges();
+        int numberOfBlocks = (result.numberOfVertices + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        for (int k = 0; k < numberOfBlocks; k++) {
+            final int kBlock = k;
+            //Phase 1: the diagonal block only depends on itself
+            result.updateBlock(kBlock, kBlock, kBlock);
+            //Phase 2: the blocks in the same row and column as the diagonal block depend on it
+            pool.submit(() -> IntStream.range(0, numberOfBlocks).parallel().forEach(other -> {
+                if (other != kBlock) {
+                    result.updateBlock(kBlock, other, kBlock);
+                    result.updateBlock(other, kBlock, kBlock);
+                }
+            })).join();
+            //Phase 3: every other block depends on the row and column blocks
+            pool.submit(() -> IntStream.range(0, numberOfBlocks * numberOfBlocks).parallel().forEach(block -> {
+                int iBlock = block / numberOfBlocks;
+                int jBlock = block % numberOfBlocks;
+                if (iBlock != kBlock && jBlock != kBlock)
+                    result.updateBlock(iBlock, jBlock, kBlock);
+            })).join();
+        }
+        return result;
+    }
+
+    static AllPairsShortestPaths computeDijkstra(GraphSnapshot snapshot, ForkJoinPool pool) {
+        classLogger.debug("Running Dijkstra's algorithm from each of {} vertices", snapshot.getNumberOfVertices());
+        AllPairsShortestPaths result = new AllPairsShortestPaths(snapshot);
+        Arrays.fill(result.keys, UNREACHABLE);
+        Arrays.fill(result.nextEdges, -1);
+        pool.submit(() -> IntStream.range(0, result.numberOfVertices).parallel().forEach(result::searchFrom)).join();
+        return result;
+    }
+
+    /**
+     * Gets the position of the entry for the pair (i, j) in the tables. The sum is worked out in
+     * a long, and the constructor has already checked that every position fits in an int.
+     */
+    private int position(int i, int j) {
+        return (int) ((long) i * this.numberOfVertices + j);
+    }
+
+    /**
+     * Fills the tables with the Edges of the Graph (paths of one Edge), ready for Floyd-Warshall
+     */
+    private void initialiseFromEdges() {
+        int[] offsets = this.snapshot.getOffsets();
+        int[] targets = this.snapshot.getTargets();
+        int[] weights = this.snapshot.getWeights();
+        Arrays.fill(this.keys, UNREACHABLE);
+        Arrays.fill(this.nextEdges, -1);
+        for (int i = 0; i < this.numberOfVertices; i++) {
+            int rowStart = this.position(i, 0);
+            this.keys[rowStart + i] = DijkstraSearch.toKey(0, 0);
+            for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                int position = rowStart + targets[e];
+                long edgeKey = DijkstraSearch.toKey(weights[e], 1);
+                if (targets[e] != i && edgeKey < this.keys[position]) {
+                    this.keys[position] = edgeKey;
+                    this.nextEdges[position] = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets every path in block (iBlock, jBlock) go through the vertices of block kBlock
+     */
+    private void updateBlock(int iBlock, int jBlock, int kBlock) {
+        int n = this.numberOfVertices;
+        int kEnd = Math.min(n, (kBlock + 1) * BLOCK_SIZE);
+        int iEnd = Math.min(n, (iBlock + 1) * BLOCK_SIZE);
+        int jStart = jBlock * BLOCK_SIZE;
+        int jEnd = Math.min(n, jStart + BLOCK_SIZE);
+        for (int k = kBlock * BLOCK_SIZE; k < kEnd; k++) {
+            int rowK = this.position(k, 0);
+            for (int i = iBlock * BLOCK_SIZE; i < iEnd; i++) {
+                int rowI = this.position(i, 0);
+                long keyToK = this.keys[rowI + k];
+                if (keyToK == UNREACHABLE)
+                    continue;
+                int nextEdgeToK = this.nextEdges[rowI + k];
+                for (int j = jStart; j < jEnd; j++) {
+                    long keyFromK = this.keys[rowK + j];
+                    if (keyFromK == UNREACHABLE)
+                        continue;
+                    long newKey = DijkstraSearch.addKeys(keyToK, keyFromK);
+                    if (newKey < this.keys[rowI + j]) {
+                        this.keys[rowI + j] = newKey;
+                        this.nextEdges[rowI + j] = nextEdgeToK;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs Dijkstra's algorithm from one Vertex to every other, and fills in its row of the tables.
+     * The first Edge of each path is passed down from a Vertex to the vertices it reaches.
+     */
+    private void searchFrom(int source) {
+        int[] offsets = this.snapshot.getOffsets();
+        int[] targets = this.snapshot.getTargets();
+        int[] weights = this.snapshot.getWeights();
+        int rowStart = this.position(source, 0);
+        SearchWorkspace workspace = SearchWorkspace.acquire(this.numberOfVertices);
+        IndexedMinHeap heap = workspace.heap;
+        workspace.reach(source, 0, 0, -1, -1);
+        heap.insert(source, DijkstraSearch.toKey(0, 0));
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            workspace.settle(current);
+            this.keys[rowStart + current] = DijkstraSearch.toKey(workspace.costs[current], workspace.hops[current]);
+            for (int e = offsets[current]; e < offsets[current + 1]; e++) {
+                int neighbour = targets[e];
+                if (workspace.isSettled(neighbour))
+                    continue;
+                long newCost = workspace.costs[current] + weights[e];
+                int newHops = workspace.hops[current] + 1;
+                if (heap.insertOrDecrease(neighbour, DijkstraSearch.toKey(newCost, newHops))) {
+                    workspace.reach(neighbour, newCost, newHops, current, e);
+                    this.nextEdges[rowStart + neighbour] = (current == source) ? e : this.nextEdges[rowStart + current];
+                }
+            }
+        }
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Reading the results
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public int getNumberOfVertices() { return this.numberOfVertices; }
+    public int getVertexId(String vertexName) { return this.snapshot.getVertexId(vertexName); }
+    public String getVertexLabel(int vertexId) { return this.snapshot.getVertexLabel(vertexId); }
+
+    /**
+     * Gets the cost of the shortest path between the given start and end vertices.
+     * @param vertexStartName : The starting point of the path
+     * @param vertexEndName : The Vertex the path reaches
+     * @return The cost of the shortest path, or -1 if there is no path
+     * @throws ArithmeticException : The shortest path costs more than `Integer.MAX_VALUE`
+     */
+    public long getDistance(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.snapshot.getEndpointIds(vertexStartName, vertexEndName);
+        long key = this.keys[this.position(endpoints[0], endpoints[1])];
+        if (key == UNREACHABLE)
+            return -1;
+        DijkstraSearch.checkKey(key);
+        return key >>> 32;
+    }
+
+    /**
+     * Gets the cost of the shortest path between every pair of vertices, by Vertex id
+     * (see `getVertexId`). Paths from a Vertex to itself cost 0.
+     * @return A new V x V array, where -1 means there is no path
+     * @throws ArithmeticException : A shortest path costs more than `Integer.MAX_VALUE`
+     */
+    public long[][] getDistanceMatrix() {
+        long[][] distances = new long[this.numberOfVertices][this.numberOfVertices];
+        for (int i = 0; i < this.numberOfVertices; i++) {
+            for (int j = 0; j < this.numberOfVertices; j++) {
+                long key = this.keys[this.position(i, j)];
+                if (key != UNREACHABLE)
+                    DijkstraSearch.checkKey(key);
+                distances[i][j] = (key == UNREACHABLE) ? -1 : key >>> 32;
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Gets the Vertex to go to next on the shortest path between every pair of vertices, by Vertex id
+     * (see `getVertexId`). Following the next hops from `i` until reaching `j` gives the path.
+     * Pairs whose shortest path costs more than `Integer.MAX_VALUE` still have a next hop, but
+     * following it may not give the cheapest path.
+     * @return A new V x V array of Vertex ids, where -1 means there is no path (or `i` and `j` are the same)
+     */
+    public int[][] getNextHopMatrix() {
+        int[] targets = this.snapshot.getTargets();
+        int[][] nextHops = new int[this.numberOfVertices][this.numberOfVertices];
+        for (int i = 0; i < this.numberOfVertices; i++) {
+            for (int j = 0; j < this.numberOfVertices; j++) {
+                int nextEdge = this.nextEdges[this.position(i, j)];
+                nextHops[i][j] = (nextEdge == -1) ? -1 : targets[nextEdge];
+            }
+        }
+        return nextHops;
+    }
+
+    /**
+     * Rebuilds the shortest path between the given start and end vertices, by following next hops.
+     * Like `GraphSnapshot`, the Path is made of new Vertex and Edge objects.
+     * @param vertexStartName : The starting point of the path
+     * @param vertexEndName : The Vertex the path reaches
+     * @return A Path object, the shortest path from Vertex A to Vertex B
+     */
+    public Path getPath(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.snapshot.getEndpointIds(vertexStartName, vertexEndName);
+        int vertexStartId = endpoints[0];
+        int vertexEndId = endpoints[1];
+        long key = this.keys[this.position(vertexStartId, vertexEndId)];
+        if (key == UNREACHABLE) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        DijkstraSearch.checkKey(key);
+        int[] targets = this.snapshot.getTargets();
+        int[] edgeIds = new int[(int) (key & 0xFFFFFFFFL)];
+        int current = vertexStartId;
+        for (int i = 0; i < edgeIds.length; i++) {
+            edgeIds[i] = this.nextEdges[this.position(current, vertexEndId)];
+            current = targets[edgeIds[i]];
+        }
+        return this.snapshot.makeIntoPath(edgeIds, edgeIds.length, vertexStartId);
+    }
+
+}
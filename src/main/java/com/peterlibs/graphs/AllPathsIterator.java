@@ -0,0 +1,148 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Walks every simple path (a path that uses each Vertex at most once) from a starting Vertex
+ * to a destination Vertex, handing out one Path at a time.
+ * Instead of recursing, the search keeps its own stack: the Edges on the current path, and
+ * for each step of the path, which of that Vertex's Edges should be tried next. This means
+ * only the current path is held in memory, no matter how many paths there are, and the
+ * caller can stop at any point without paying for the rest of the search.
+ * Paths are handed out in the same order `Graph.findAllPaths` has always returned them.
+ * The Graph must not be changed while the paths are being iterated.
+ */
+class AllPathsIterator implements Iterator<Path> {
+
+    static final Logger classLogger = LogManager.getLogger(AllPathsIterator.class);
+    //Instance variables, for recording the search stack. `pathVertices` and `nextEdge`
+    // have one entry per step of the current path, `pathEdges` has the Edges between them.
+    //The vertices on the current path are marked in a bitset, by their index in the Graph,
+    // which is set and cleared as the search moves forward and backtracks.
+    private final Vertex vertexDestination;
+    private final ArrayList<Vertex> pathVertices;
+    private final ArrayList<Edge> pathEdges;
+    private final BitSet onPath;
+    //[nullable] Where to count the work done by the search
+    private final QueryStats stats;
+    private int[] nextEdge;
+    private Path nextPath;
+
+    /**
+     * Constructor for a new iterator. No searching is done until the first Path is asked for.
+     * @param vertexStart : The vertex we are starting at. If null, there are no paths.
+     * @param pathPrefix : [optional] Edges leaving the starting Vertex that every path must
+     *                   begin with. Only the paths continuing on from the end of these Edges
+     *                   are searched. Defaults to no Edges.
+     * @param vertexDestination : The vertex we are searching for. If null, there are no paths.
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     */
+    AllPathsIterator (Vertex vertexStart, List<Edge> pathPrefix, Vertex vertexDestination, QueryStats stats) {
+        this.vertexDestination = vertexDestination;
+        this.pathVertices = new ArrayList<>();
+        this.pathEdges = new ArrayList<>();
+        this.onPath = new BitSet();
+        this.stats = stats;
+        this.nextEdge = new int[Math.max(16, pathPrefix.size() * 2)];
+        if (vertexStart != null && vertexDestination != null) {
+            this.push(vertexStart);
+            //The vertices of the prefix are marked as having no Edges left to try, so that the
+            // search ends once it has backtracked to the end of the prefix.
+            for (Edge anEdge: pathPrefix) {
+                this.nextEdge[this.pathVertices.size() - 1] = anEdge.getVertexStart().getEdgesInternal().size();
+                this.pathEdges.add(anEdge);
+                this.push(anEdge.getVertexEnd());
+            }
+        }
+    }
+    AllPathsIterator (Vertex vertexStart, List<Edge> pathPrefix, Vertex vertexDestination) {
+        this(vertexStart, pathPrefix, vertexDestination, null);
+    }
+    AllPathsIterator (Vertex vertexStart, Vertex vertexDestination, QueryStats stats) {
+        this(vertexStart, List.of(), vertexDestination, stats);
+    }
+    AllPathsIterator (Vertex vertexStart, Vertex vertexDestination) {
+        this(vertexStart, List.of(), vertexDestination, null);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.nextPath == null)
+            this.nextPath = this.advance();
+        return this.nextPath != null;
+    }
+
+    @Override
+    public Path next() {
+        if (!this.hasNext())
+            throw new NoSuchElementException("There are no more paths to the destination.");
+        Path foundPath = this.nextPath;
+        this.nextPath = null;
+        return foundPath;
+    }
+
+    /**
+     * Continues the depth first search from where it last stopped, until the destination
+     * is reached again or there is nowhere left to go.
+     * @return The next Path to the destination, or null if every path has been found
+     */
+    private Path advance() {
+        while (!this.pathVertices.isEmpty()) {
+            int depth = this.pathVertices.size() - 1;
+            ArrayList<Edge> edges = this.pathVertices.get(depth).getEdgesInternal();
+            if (this.nextEdge[depth] == edges.size()) {
+                this.pop();
+                continue;
+            }
+            Edge anEdge = edges.get(this.nextEdge[depth]++);
+            if (this.stats != null)
+                this.stats.countScans(1);
+            //If we have already visited the vertex, skip doing anything more
+            if (this.onPath.get(anEdge.getVertexEnd().getIndex()))
+                continue;
+
+            this.pathEdges.add(anEdge);
+            if (anEdge.getVertexEnd() == this.vertexDestination) {
+                Path foundPath = Graph.makeIntoPath(this.pathEdges);
+                this.pathEdges.remove(this.pathEdges.size() - 1);
+                return foundPath;
+            }
+            this.push(anEdge.getVertexEnd());
+        }
+        classLogger.debug("No more paths to the destination could be found.");
+        return null;
+    }
+
+    private void push(Vertex aVertex) {
+        int depth = this.pathVertices.size();
+        if (depth == this.nextEdge.length)
+            this.nextEdge = Arrays.copyOf(this.nextEdge, depth * 2);
+        this.nextEdge[depth] = 0;
+        this.pathVertices.add(aVertex);
+        this.onPath.set(aVertex.getIndex());
+        if (this.stats != null) {
+            //The stack is the whole frontier of a depth first search
+            this.stats.countQueueOperation();
+            this.stats.countExpansion();
+            this.stats.recordDepth(depth);
+            this.stats.recordFrontier(depth + 1);
+        }
+    }
+    private void pop() {
+        Vertex aVertex = this.pathVertices.remove(this.pathVertices.size() - 1);
+        this.onPath.clear(aVertex.getIndex());
+        if (this.stats != null)
+            this.stats.countQueueOperation();
+        //The Edge that led us to this Vertex is no longer part of the path
+        if (!this.pathEdges.isEmpty())
+            this.pathEdges.remove(this.pathEdges.size() - 1);
+    }
+
+}
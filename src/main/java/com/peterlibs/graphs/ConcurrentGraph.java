@@ -0,0 +1,365 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A Graph that can be shared between threads. Any number of threads can look up vertices and
+ * Edges and search for paths at the same time, without waiting for each other, while changes to
+ * the Graph are made one at a time, and are never seen half done.
+ * This is done with a single StampedLock around the Graph:
+ *  - path searches hold the read lock, which any number of threads can hold at once,
+ *  - lookups of vertices and Edges hold the read lock too. `getNumberOfVertices` only reads a
+ *    single count, so it first tries an optimistic read, which takes no lock at all, and only
+ *    takes the read lock if a change was made while it was running,
+ *  - changes hold the write lock, so they happen in a single order that every reader agrees on.
+ *
+ * Given a number of stripes, the Graph instead allows many Edges to be changed at the same time.
+ * Every Vertex belongs to one stripe (by the hash of its label), and each stripe has its own lock
+ * guarding the Edges of its vertices:
+ *  - adding, updating or removing an Edge holds the read lock (shared with other Edge changes),
+ *    and the write locks of the stripes of both of its vertices, so changes to Edges between
+ *    vertices in other stripes go ahead at the same time,
+ *  - path searches hold the read lock, and the read lock of every stripe. Lookups about a single
+ *    Vertex (`getEdge`, `getPredecessors`) only hold the read lock of that Vertex's stripe,
+ *  - adding or removing a Vertex holds the write lock, so nothing else is running while the
+ *    Edges touching a removed Vertex are detached,
+ *  - vertices are found through a concurrent map of their labels, without taking any lock.
+ * Locks are always taken in the same order (the main lock, then the stripes in ascending
+ * order), so two changes can never be waiting on each other.
+ * The vertices, Edges and Paths returned still belong to the Graph, and may be changed by
+ * other threads after they are returned.
+ */
+public class ConcurrentGraph {
+
+    static final Logger classLogger = LogManager.getLogger(ConcurrentGraph.class);
+    //A reasonable number of stripes for a machine with a few dozen cores
+    public static final int DEFAULT_STRIPES = 64;
+    //Instance variables, for the Graph being shared and the lock guarding it.
+    //The stripe locks and the label index are null unless the Graph is striped.
+    private final Graph graph;
+    private final StampedLock lock;
+    private final StampedLock[] stripes;
+    //The label index is replaced as a whole after a `write`, so it is never seen half built.
+    private volatile ConcurrentHashMap<String, Vertex> labelIndex;
+
+    /**
+     * Constructor for a new, empty ConcurrentGraph
+     */
+    public ConcurrentGraph () {
+        this(new Graph());
+    }
+    /**
+     * Constructor for a ConcurrentGraph sharing the given Graph. From now on, the Graph must
+     * only be used through this ConcurrentGraph.
+     * @param graph : The Graph to share between threads
+     */
+    public ConcurrentGraph (Graph graph) {
+        this(graph, 0);
+    }
+    /**
+     * Constructor for a ConcurrentGraph sharing the given Graph, where Edges between vertices in
+     * different stripes can be changed at the same time. From now on, the Graph must only be used
+     * through this ConcurrentGraph.
+     * @param graph : The Graph to share between threads
+     * @param numberOfStripes : The number of stripes to split the vertices into. Must be a power
+     *                          of two, or 0 for a single writer at a time.
+     */
+    public ConcurrentGraph (Graph graph, int numberOfStripes) {
+        if (graph == null)
+            throw new IllegalArgumentException("Graph cannot be null");
+        if (numberOfStripes < 0 || Integer.bitCount(numberOfStripes) > 1)
+            throw new IllegalArgumentException("Number of stripes must be 0 or a power of two");
+        this.graph = graph;
+        this.lock = new StampedLock();
+        if (numberOfStripes == 0) {
+            this.stripes = null;
+            this.labelIndex = null;
+            return;
+        }
+        this.stripes = new StampedLock[numberOfStripes];
+        for (int i = 0; i < numberOfStripes; i++) {
+            this.stripes[i] = new StampedLock();
+        }
+        this.labelIndex = buildLabelIndex(graph);
+    }
+    private static ConcurrentHashMap<String, Vertex> buildLabelIndex(Graph graph) {
+        ConcurrentHashMap<String, Vertex> index = new ConcurrentHashMap<>(Math.max(16, graph.getNumberOfVertices() * 2));
+        for (Vertex aVertex: graph.getVerticesInternal()) {
+            index.put(aVertex.getLabel(), aVertex);
+        }
+        return index;
+    }
+
+    public boolean isStriped() { return this.stripes != null; }
+    public int getNumberOfStripes() { return (this.stripes == null) ? 0 : this.stripes.length; }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Running reads and changes under the lock
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Runs a query against the Graph while holding the read lock, so other queries can run at
+     * the same time, but no change can be made until it is done. The query must not change the Graph.
+     * When striped, a query may look at the Edges of any Vertex, so it also holds the read lock of
+     * every stripe. Taking them all costs more than a single lock (64 of them, by default), and
+     * the query waits for every Edge change in progress to finish, so queries about a single
+     * Vertex (`getEdge`, `getPredecessors`) only lock the stripe of that Vertex instead.
+     * @param query : The query to run
+     * @return Whatever the query returns
+     */
+    public <T> T read(Function<Graph, T> query) {
+        long stamp = this.lock.readLock();
+        long[] stripeStamps = null;
+        try {
+            if (this.stripes != null) {
+                stripeStamps = new long[this.stripes.length];
+                for (int i = 0; i < this.stripes.length; i++) {
+                    stripeStamps[i] = this.stripes[i].readLock();
+                }
+            }
+            return query.apply(this.graph);
+        }
+        finally {
+            if (stripeStamps != null) {
+                for (int i = this.stripes.length - 1; i >= 0; i--) {
+                    if (stripeStamps[i] != 0)
+                        this.stripes[i].unlockRead(stripeStamps[i]);
+                }
+            }
+            this.lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Makes changes to the Graph while holding the write lock, so that no other thread sees the
+     * Graph until every change has been made. When striped, a new label index is built
+     * afterwards (since the changes may have added or removed vertices), and replaces the old one
+     * once it is complete, so `getVertex` keeps finding vertices while this runs.
+     * @param update : The changes to make
+     * @return Whatever the update returns
+     */
+    public <T> T write(Function<Graph, T> update) {
+        return this.writeExclusively(aGraph -> {
+            try {
+                return update.apply(aGraph);
+            }
+            finally {
+                if (this.labelIndex != null)
+                    this.labelIndex = buildLabelIndex(aGraph);
+            }
+        });
+    }
+    private <T> T writeExclusively(Function<Graph, T> update) {
+        long stamp = this.lock.writeLock();
+        try {
+            return update.apply(this.graph);
+        }
+        finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Changes the Edge between the two given vertices. When striped, this only holds the locks of
+     * the stripes of the two vertices, otherwise it holds the write lock.
+     */
+    private <T> T writeEdge(String vertexStartName, String vertexEndName, Supplier<T> update) {
+        if (this.stripes == null)
+            return this.writeExclusively(aGraph -> update.get());
+        int firstStripe = this.stripeOf(vertexStartName);
+        int secondStripe = this.stripeOf(vertexEndName);
+        if (firstStripe > secondStripe) {
+            int swap = firstStripe;
+            firstStripe = secondStripe;
+            secondStripe = swap;
+        }
+        long stamp = this.lock.readLock();
+        long firstStamp = this.stripes[firstStripe].writeLock();
+        long secondStamp = (secondStripe != firstStripe) ? this.stripes[secondStripe].writeLock() : 0;
+        try {
+            return update.get();
+        }
+        finally {
+            if (secondStripe != firstStripe)
+                this.stripes[secondStripe].unlockWrite(secondStamp);
+            this.stripes[firstStripe].unlockWrite(firstStamp);
+            this.lock.unlockRead(stamp);
+        }
+    }
+    /**
+     * Runs a query that only looks at the Edges into and out of one Vertex. When striped, this
+     * holds the read lock and the read lock of that Vertex's stripe, instead of every stripe.
+     */
+    private <T> T readVertex(String vertexName, Function<Graph, T> query) {
+        if (this.stripes == null)
+            return this.read(query);
+        //The Edges into and out of a Vertex are only changed while holding the stripe of that Vertex
+        StampedLock stripe = this.stripes[this.stripeOf(vertexName)];
+        long stamp = this.lock.readLock();
+        long stripeStamp = stripe.readLock();
+        try {
+            return query.apply(this.graph);
+        }
+        finally {
+            stripe.unlockRead(stripeStamp);
+            this.lock.unlockRead(stamp);
+        }
+    }
+    private int stripeOf(String vertexName) {
+        int hash = (vertexName == null) ? 0 : vertexName.hashCode();
+        return (hash ^ (hash >>> 16)) & (this.stripes.length - 1);
+    }
+
+    /**
+     * Reads a single count without taking the lock. If a change was made while it ran, the
+     * answer is thrown away and it runs again under the read lock.
+     * The lookup must only read one field. Anything more (such as walking a map, or a list of
+     * Edges) may loop forever or fail while a change is half done, before it can be told to retry.
+     */
+    private int readOptimistically(IntSupplier lookup) {
+        long stamp = this.lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int result = lookup.getAsInt();
+            if (this.lock.validate(stamp))
+                return result;
+            classLogger.trace("Graph changed during an optimistic read. Reading again under the lock");
+        }
+        stamp = this.lock.readLock();
+        try {
+            return lookup.getAsInt();
+        }
+        finally {
+            this.lock.unlockRead(stamp);
+        }
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Changing the Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public Vertex addVertex(String newVertexName) {
+        return this.writeExclusively(aGraph -> {
+            Vertex newVertex = aGraph.addVertex(newVertexName);
+            if (this.labelIndex != null)
+                this.labelIndex.put(newVertexName, newVertex);
+            return newVertex;
+        });
+    }
+    public void removeVertex(String vertexName) {
+        this.writeExclusively(aGraph -> {
+            aGraph.removeVertex(vertexName);
+            if (this.labelIndex != null)
+                this.labelIndex.remove(vertexName);
+            return null;
+        });
+    }
+    /**
+     * Adds an Edge, or updates the weight and label of the Edge if it already exists.
+     * When striped, this runs at the same time as changes to Edges in other stripes.
+     */
+    public Edge addEdge(String vertexStartName, String vertexEndName, int weight, String label) {
+        return this.writeEdge(
+            vertexStartName, vertexEndName,
+            () -> this.graph.addEdge(vertexStartName, vertexEndName, weight, label)
+        );
+    }
+    public Edge addEdge(String vertexStartName, String vertexEndName, int weight) {
+        return this.addEdge(vertexStartName, vertexEndName, weight, Graph.EDGE_DEFAULT_LABEL);
+    }
+    public Edge addEdge(String vertexStartName, String vertexEndName) {
+        return this.addEdge(vertexStartName, vertexEndName, Graph.EDGE_DEFAULT_WEIGHT, Graph.EDGE_DEFAULT_LABEL);
+    }
+    public void removeEdge(String vertexStartName, String vertexEndName) {
+        this.writeEdge(vertexStartName, vertexEndName, () -> { this.graph.removeEdge(vertexStartName, vertexEndName); return null; });
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Reading the Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public Vertex getVertex(String vertexName) {
+        ConcurrentHashMap<String, Vertex> index = this.labelIndex;
+        if (index != null)
+            return (vertexName == null) ? null : index.get(vertexName);
+        return this.read(aGraph -> aGraph.getVertex(vertexName));
+    }
+    public Edge getEdge(String vertexStartName, String vertexEndName) {
+        return this.readVertex(vertexStartName, aGraph -> aGraph.getEdge(vertexStartName, vertexEndName));
+    }
+    public int getNumberOfVertices() {
+        return this.readOptimistically(this.graph::getNumberOfVertices);
+    }
+    public long getModificationEpoch() {
+        return this.graph.getModificationEpoch();
+    }
+    public int getNumberOfEdges() {
+        return this.read(Graph::getNumberOfEdges);
+    }
+    public List<Vertex> getPredecessors(String vertexName) {
+        return this.readVertex(vertexName, aGraph -> aGraph.getPredecessors(vertexName));
+    }
+    public GraphSnapshot freeze() {
+        return this.read(Graph::freeze);
+    }
+    /**
+     * Starts keeping totals of the work done by every query (see `Graph.enableQueryMetrics`).
+     * The totals can be read and exported while queries are still running.
+     * @return The new QueryMetrics
+     */
+    public QueryMetrics enableQueryMetrics() {
+        return this.writeExclusively(Graph::enableQueryMetrics);
+    }
+    public QueryMetrics getQueryMetrics() {
+        return this.read(Graph::getQueryMetrics);
+    }
+
+    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+        return this.read(aGraph -> aGraph.findShortestPath(vertexStartName, vertexEndName));
+    }
+    public Path findShortestPath(String vertexStartName, String vertexEndName, Heuristic heuristic, QueryStats stats) {
+        return this.read(aGraph -> aGraph.findShortestPath(vertexStartName, vertexEndName, heuristic, stats));
+    }
+    public Path findShortestPath(String vertexStartName, String vertexEndName, SearchDirection direction) {
+        return this.read(aGraph -> aGraph.findShortestPath(vertexStartName, vertexEndName, direction));
+    }
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName) {
+        return this.read(aGraph -> aGraph.findAllPaths(vertexStartName, vertexEndName));
+    }
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName, QueryStats stats) {
+        return this.read(aGraph -> aGraph.findAllPaths(vertexStartName, vertexEndName, stats));
+    }
+    public Path findLongestPath(String vertexStartName, String vertexEndName, long expansionBudget, Duration timeBudget) {
+        return this.read(aGraph -> aGraph.findLongestPath(vertexStartName, vertexEndName, expansionBudget, timeBudget));
+    }
+    public List<Path> findKShortestPaths(String vertexStartName, String vertexEndName, int k) {
+        return this.read(aGraph -> aGraph.findKShortestPaths(vertexStartName, vertexEndName, k));
+    }
+    public List<Path> findKShortestPaths(String vertexStartName, String vertexEndName, int k, QueryStats stats) {
+        return this.read(aGraph -> aGraph.findKShortestPaths(vertexStartName, vertexEndName, k, stats));
+    }
+    public Path findLongestPath(
+        String vertexStartName, String vertexEndName, long expansionBudget, Duration timeBudget, QueryStats stats
+    ) {
+        return this.read(aGraph -> aGraph.findLongestPath(vertexStartName, vertexEndName, expansionBudget, timeBudget, stats));
+    }
+    public Path findLongestPath(String vertexStartName, String vertexEndName) {
+        return this.read(aGraph -> aGraph.findLongestPath(vertexStartName, vertexEndName));
+    }
+
+}
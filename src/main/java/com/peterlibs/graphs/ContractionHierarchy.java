@@ -0,0 +1,441 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A contraction hierarchy over a Graph, for answering a very large number of shortest path
+ * queries on a Graph that does not change.
+ *
+ * Building the hierarchy ("preprocessing") removes (contracts) the vertices one at a time, least
+ * important first. When a Vertex is contracted, any shortest path that went through it is kept
+ * by adding a shortcut Edge between its neighbours, unless a local search finds another path
+ * that is just as short (a "witness"). The order the vertices were contracted in is their rank.
+ * Every shortest path can then be found by only ever moving to vertices of a higher rank, from
+ * the start forward and from the end backward, so a query only looks at a tiny part of the Graph.
+ *
+ * Importance is worked out as the "edge difference" (the shortcuts contracting the Vertex would
+ * add, less the Edges it would remove) plus the number of neighbours already contracted, which
+ * spreads the contractions evenly across the Graph. Importance is updated lazily: a Vertex is
+ * only contracted if it is still the least important once its importance is worked out again.
+ *
+ * Paths are compared the same way as `Graph.findShortestPath` (cost, then number of Edges), and
+ * every shortcut remembers the two Edges (or shortcuts) it stands for, so the path found is
+ * unpacked back into the Graph's own Edges.
+ * The hierarchy cannot be used once the Graph has been changed.
+ */
+public class ContractionHierarchy {
+
+    static final Logger classLogger = LogManager.getLogger(ContractionHierarchy.class);
+    //The most vertices a witness search settles before giving up (and adding the shortcut anyway)
+    static final int WITNESS_SETTLE_LIMIT = 500;
+
+    /**
+     * An Edge of the hierarchy, which is either one of the Graph's own Edges, or a shortcut
+     * standing for two arcs in a row (through the Vertex that was contracted).
+     */
+    private static final class Arc {
+        final int source;
+        final int target;
+        final long key;
+        final Edge edge;
+        final Arc first;
+        final Arc second;
+
+        Arc (int source, int target, long key, Edge edge, Arc first, Arc second) {
+            this.source = source;
+            this.target = target;
+            this.key = key;
+            this.edge = edge;
+            this.first = first;
+            this.second = second;
+        }
+    }
+
+    //Instance variables, for recording the Graph the hierarchy was built from (and its epoch at
+    // the time), and the upward arcs in CSR form: forward arcs leave a Vertex towards a higher
+    // rank, backward arcs arrive at a Vertex from a higher rank.
+    private final Graph graph;
+    private final long graphEpoch;
+    private final int numberOfVertices;
+    private final int[] forwardOffsets;
+    private final Arc[] forwardArcs;
+    private final int[] backwardOffsets;
+    private final Arc[] backwardArcs;
+    private final long numberOfShortcuts;
+    private final Duration preprocessingTime;
+
+    private ContractionHierarchy (Graph graph, Preprocessor preprocessor, Duration preprocessingTime) {
+        this.graph = graph;
+        this.graphEpoch = graph.getModificationEpoch();
+        this.numberOfVertices = preprocessor.numberOfVertices;
+        this.numberOfShortcuts = preprocessor.numberOfShortcuts;
+        this.preprocessingTime = preprocessingTime;
+
+        int[] ranks = preprocessor.ranks;
+        ArrayList<Arc> forward = new ArrayList<>();
+        ArrayList<Arc> backward = new ArrayList<>();
+        this.forwardOffsets = new int[this.numberOfVertices + 1];
+        this.backwardOffsets = new int[this.numberOfVertices + 1];
+        for (int v = 0; v < this.numberOfVertices; v++) {
+            this.forwardOffsets[v] = forward.size();
+            for (Arc anArc: preprocessor.outgoing.get(v)) {
+                if (ranks[anArc.target] > ranks[v])
+                    forward.add(anArc);
+            }
+            this.backwardOffsets[v] = backward.size();
+            for (Arc anArc: preprocessor.incoming.get(v)) {
+                if (ranks[anArc.source] > ranks[v])
+                    backward.add(anArc);
+            }
+        }
+        this.forwardOffsets[this.numberOfVertices] = forward.size();
+        this.backwardOffsets[this.numberOfVertices] = backward.size();
+        this.forwardArcs = forward.toArray(new Arc[0]);
+        this.backwardArcs = backward.toArray(new Arc[0]);
+    }
+
+    /**
+     * Builds the contraction hierarchy of the Graph as it is right now.
+     * @param graph : The Graph the vertices belong to
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @return A ContractionHierarchy object
+     */
+    static ContractionHierarchy build(Graph graph, List<Vertex> indexedVertices) {
+        long startTime = System.nanoTime();
+        Preprocessor preprocessor = new Preprocessor(indexedVertices);
+        preprocessor.contractAll();
+        Duration preprocessingTime = Duration.ofNanos(System.nanoTime() - startTime);
+        classLogger.debug(
+            "Contracted {} vertices in {} ms, adding {} shortcuts",
+            indexedVertices.size(), preprocessingTime.toMillis(), preprocessor.numberOfShortcuts
+        );
+        return new ContractionHierarchy(graph, preprocessor, preprocessingTime);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Simple Getters for the built hierarchy
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public int getNumberOfVertices() { return this.numberOfVertices; }
+    public long getNumberOfShortcuts() { return this.numberOfShortcuts; }
+    //The number of arcs (Edges and shortcuts) an upward search can use, in both directions together
+    public int getNumberOfUpwardArcs() { return this.forwardArcs.length + this.backwardArcs.length; }
+    public Duration getPreprocessingTime() { return this.preprocessingTime; }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Getting Paths between Vertices
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Gets the shortest path between the given start and end vertices, the same as
+     * `Graph.findShortestPath` would. The path is made of the Graph's own Edges.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @param stats : [optional] Where to count the work done by the search
+     * @return A Path object, the shortest path from Vertex A to Vertex B
+     * @throws IllegalStateException : The Graph has changed since the hierarchy was built
+     */
+    public Path findShortestPath(String vertexStartName, String vertexEndName, QueryStats stats) {
+        if (this.graph.getModificationEpoch() != this.graphEpoch) {
+            throw new IllegalStateException("The Graph has changed since this ContractionHierarchy was built");
+        }
+        Vertex vertexStart = this.graph.getVertex(vertexStartName);
+        Vertex vertexEnd = this.graph.getVertex(vertexEndName);
+        if (vertexStart == vertexEnd) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        QueryStats queryStats = this.graph.startQuery(stats);
+        ArrayList<Edge> foundPath = null;
+        try {
+            if (vertexStart != null && vertexEnd != null)
+                foundPath = this.search(vertexStart.getIndex(), vertexEnd.getIndex(), queryStats);
+        }
+        finally {
+            this.graph.finishQuery(QueryMetrics.QueryType.SHORTEST_PATH, queryStats);
+        }
+        if (foundPath == null) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        return Graph.makeIntoPath(foundPath);
+    }
+    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+        return this.findShortestPath(vertexStartName, vertexEndName, null);
+    }
+
+    /**
+     * Runs the two upward searches, always growing the side with the smaller next key, until
+     * neither side can find anything cheaper than the best meeting point found so far.
+     */
+    private ArrayList<Edge> search(int startId, int destinationId, QueryStats stats) {
+        SearchWorkspace forward = SearchWorkspace.acquire(this.numberOfVertices);
+        SearchWorkspace backward = SearchWorkspace.acquireBackward(this.numberOfVertices);
+        forward.reach(startId, 0, 0, -1, -1);
+        forward.heap.insert(startId, 0);
+        backward.reach(destinationId, 0, 0, -1, -1);
+        backward.heap.insert(destinationId, 0);
+        if (stats != null) {
+            stats.countQueueOperation();
+            stats.countQueueOperation();
+        }
+
+        long bestKey = Long.MAX_VALUE;
+        int meetingId = -1;
+        while (!forward.heap.isEmpty() || !backward.heap.isEmpty()) {
+            boolean isForward = backward.heap.isEmpty() ||
+                (!forward.heap.isEmpty() && forward.heap.peekKey() <= backward.heap.peekKey());
+            SearchWorkspace side = isForward ? forward : backward;
+            SearchWorkspace otherSide = isForward ? backward : forward;
+            if (side.heap.peekKey() >= bestKey)
+                break;
+            if (stats != null)
+                stats.recordFrontier(forward.heap.size() + backward.heap.size());
+            int current = side.heap.poll();
+            side.settle(current);
+            //Keys in the workspace are stored in the `costs` array
+            if (otherSide.isReached(current)) {
+                long meetingKey = DijkstraSearch.addKeys(side.costs[current], otherSide.costs[current]);
+                if (meetingKey < bestKey) {
+                    bestKey = meetingKey;
+                    meetingId = current;
+                }
+            }
+
+            int[] offsets = isForward ? this.forwardOffsets : this.backwardOffsets;
+            Arc[] arcs = isForward ? this.forwardArcs : this.backwardArcs;
+            if (stats != null) {
+                stats.countQueueOperation();
+                stats.countExpansion();
+                stats.countScans(offsets[current + 1] - offsets[current]);
+                stats.recordDepth(DijkstraSearch.hopsOf(side.costs[current]));
+            }
+            for (int a = offsets[current]; a < offsets[current + 1]; a++) {
+                int neighbour = isForward ? arcs[a].target : arcs[a].source;
+                if (side.isSettled(neighbour))
+                    continue;
+                long newKey = DijkstraSearch.addKeys(side.costs[current], arcs[a].key);
+                if (side.heap.insertOrDecrease(neighbour, newKey)) {
+                    side.reach(neighbour, newKey, 0, current, a);
+                    if (stats != null)
+                        DijkstraSearch.countRelaxation(stats);
+                }
+            }
+        }
+        if (meetingId == -1)
+            return null;
+        DijkstraSearch.checkKey(bestKey);
+
+        ArrayList<Arc> forwardChain = new ArrayList<>();
+        for (int v = meetingId; forward.previousVertices[v] != -1; v = forward.previousVertices[v]) {
+            forwardChain.add(this.forwardArcs[forward.previousEdges[v]]);
+        }
+        Collections.reverse(forwardChain);
+        ArrayList<Edge> foundPath = new ArrayList<>();
+        for (Arc anArc: forwardChain) {
+            unpack(anArc, foundPath);
+        }
+        for (int v = meetingId; backward.previousVertices[v] != -1; v = backward.previousVertices[v]) {
+            unpack(this.backwardArcs[backward.previousEdges[v]], foundPath);
+        }
+        return foundPath;
+    }
+
+    /**
+     * Replaces a shortcut with the Edges it stands for, in order
+     */
+    private static void unpack(Arc anArc, ArrayList<Edge> foundPath) {
+        ArrayDeque<Arc> stack = new ArrayDeque<>();
+        stack.push(anArc);
+        while (!stack.isEmpty()) {
+            Arc current = stack.pop();
+            if (current.edge != null) {
+                foundPath.add(current.edge);
+            }
+            else {
+                stack.push(current.second);
+                stack.push(current.first);
+            }
+        }
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Preprocessing
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * The working state while contracting the vertices. Arcs are never taken out of the lists
+     * when a Vertex is contracted (the finished hierarchy needs them), so the lists are filtered
+     * by whether the Vertex at the other end has been contracted yet.
+     */
+    private static final class Preprocessor {
+        final int numberOfVertices;
+        final ArrayList<ArrayList<Arc>> outgoing;
+        final ArrayList<ArrayList<Arc>> incoming;
+        final boolean[] contracted;
+        final int[] contractedNeighbours;
+        final int[] ranks;
+        long numberOfShortcuts;
+
+        Preprocessor (List<Vertex> indexedVertices) {
+            this.numberOfVertices = indexedVertices.size();
+            this.outgoing = new ArrayList<>(this.numberOfVertices);
+            this.incoming = new ArrayList<>(this.numberOfVertices);
+            for (int v = 0; v < this.numberOfVertices; v++) {
+                this.outgoing.add(new ArrayList<>());
+                this.incoming.add(new ArrayList<>());
+            }
+            for (int v = 0; v < this.numberOfVertices; v++) {
+                for (Edge anEdge: indexedVertices.get(v).getEdgesInternal()) {
+                    int target = anEdge.getVertexEnd().getIndex();
+                    if (target == v)
+                        continue;
+                    Arc anArc = new Arc(v, target, DijkstraSearch.toKey(anEdge.getWeight(), 1), anEdge, null, null);
+                    this.outgoing.get(v).add(anArc);
+                    this.incoming.get(target).add(anArc);
+                }
+            }
+            this.contracted = new boolean[this.numberOfVertices];
+            this.contractedNeighbours = new int[this.numberOfVertices];
+            this.ranks = new int[this.numberOfVertices];
+            this.numberOfShortcuts = 0;
+        }
+
+        void contractAll() {
+            IndexedMinHeap queue = new IndexedMinHeap(this.numberOfVertices);
+            for (int v = 0; v < this.numberOfVertices; v++) {
+                queue.insert(v, this.importance(v));
+            }
+            int rank = 0;
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                long importance = this.importance(v);
+                if (!queue.isEmpty() && importance > queue.peekKey()) {
+                    queue.insert(v, importance);
+                    continue;
+                }
+                this.contract(v, false);
+                this.contracted[v] = true;
+                this.ranks[v] = rank++;
+                for (Arc anArc: this.outgoing.get(v)) {
+                    this.contractedNeighbours[anArc.target]++;
+                }
+                for (Arc anArc: this.incoming.get(v)) {
+                    this.contractedNeighbours[anArc.source]++;
+                }
+            }
+        }
+
+        private long importance(int v) {
+            int removedArcs = 0;
+            for (Arc anArc: this.outgoing.get(v)) {
+                if (!this.contracted[anArc.target])
+                    removedArcs++;
+            }
+            for (Arc anArc: this.incoming.get(v)) {
+                if (!this.contracted[anArc.source])
+                    removedArcs++;
+            }
+            return this.contract(v, true) - removedArcs + this.contractedNeighbours[v];
+        }
+
+        /**
+         * Works out which shortcuts contracting a Vertex needs, and adds them.
+         * @param v : The Vertex to contract
+         * @param dryRun : If true, the shortcuts are only counted, not added
+         * @return The number of shortcuts needed
+         */
+        private int contract(int v, boolean dryRun) {
+            long heaviestOutgoing = 0;
+            for (Arc outArc: this.outgoing.get(v)) {
+                if (!this.contracted[outArc.target])
+                    heaviestOutgoing = Math.max(heaviestOutgoing, outArc.key);
+            }
+            int shortcutsNeeded = 0;
+            //Adding shortcuts changes the lists, so walk copies of them
+            for (Arc inArc: new ArrayList<>(this.incoming.get(v))) {
+                int u = inArc.source;
+                if (this.contracted[u])
+                    continue;
+                SearchWorkspace witnesses = this.findWitnesses(u, v, DijkstraSearch.addKeys(inArc.key, heaviestOutgoing));
+                for (Arc outArc: new ArrayList<>(this.outgoing.get(v))) {
+                    int w = outArc.target;
+                    if (this.contracted[w] || w == u)
+                        continue;
+                    long viaKey = DijkstraSearch.addKeys(inArc.key, outArc.key);
+                    if (witnesses.isReached(w) && witnesses.costs[w] <= viaKey)
+                        continue;
+                    shortcutsNeeded++;
+                    if (!dryRun)
+                        this.addShortcut(u, w, viaKey, inArc, outArc);
+                }
+            }
+            return shortcutsNeeded;
+        }
+
+        /**
+         * Runs a small Dijkstra search from `u` over the vertices not yet contracted, without
+         * going through `v`, stopping once keys go past the limit or too many vertices are settled.
+         * @return The workspace, holding the key of every Vertex reached (in `costs`)
+         */
+        private SearchWorkspace findWitnesses(int u, int v, long keyLimit) {
+            SearchWorkspace workspace = SearchWorkspace.acquire(this.numberOfVertices);
+            IndexedMinHeap heap = workspace.heap;
+            workspace.reach(u, 0, 0, -1, -1);
+            heap.insert(u, 0);
+            int settledCount = 0;
+            while (!heap.isEmpty() && heap.peekKey() <= keyLimit && settledCount < WITNESS_SETTLE_LIMIT) {
+                int current = heap.poll();
+                workspace.settle(current);
+                settledCount++;
+                for (Arc anArc: this.outgoing.get(current)) {
+                    int neighbour = anArc.target;
+                    if (neighbour == v || this.contracted[neighbour] || workspace.isSettled(neighbour))
+                        continue;
+                    long newKey = DijkstraSearch.addKeys(workspace.costs[current], anArc.key);
+                    if (heap.insertOrDecrease(neighbour, newKey))
+                        workspace.reach(neighbour, newKey, 0, current, -1);
+                }
+            }
+            return workspace;
+        }
+
+        private void addShortcut(int u, int w, long key, Arc first, Arc second) {
+            ArrayList<Arc> fromU = this.outgoing.get(u);
+            for (int i = 0; i < fromU.size(); i++) {
+                Arc existing = fromU.get(i);
+                if (existing.target != w)
+                    continue;
+                if (existing.key <= key)
+                    return;
+                //The new shortcut is better, so the old arc is no longer needed between the two.
+                // Other shortcuts may still stand for it, so only the lists forget about it.
+                fromU.remove(i);
+                this.incoming.get(w).remove(existing);
+                break;
+            }
+            Arc shortcut = new Arc(u, w, key, null, first, second);
+            fromU.add(shortcut);
+            this.incoming.get(w).add(shortcut);
+            this.numberOfShortcuts++;
+        }
+    }
+
+}
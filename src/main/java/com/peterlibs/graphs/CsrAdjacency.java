@@ -0,0 +1,19 @@
+package com.peterlibs.graphs;
+
+/**
+ * The Edges of a read-only Graph in "compressed sparse row" (CSR) form, wherever they are kept.
+ * Every Vertex has a dense id (0 to V-1), and the Edges leaving Vertex `v` have the ids
+ * `firstEdge(v)` up to (but not including) `firstEdge(v+1)`.
+ * `GraphSnapshot` keeps these in arrays on the heap, and `MappedGraph` reads them out of a
+ * mapped file. Both are searched by the same engine, `CsrSearch`.
+ */
+interface CsrAdjacency {
+
+    int getNumberOfVertices();
+    //The id of the first Edge leaving the Vertex. Given V, the number of Edges.
+    int firstEdge(int vertexId);
+    //The id of the Vertex the Edge ends at
+    int edgeTarget(int edgeId);
+    int edgeWeight(int edgeId);
+
+}
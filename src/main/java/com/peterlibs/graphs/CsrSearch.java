@@ -0,0 +1,112 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.BitSet;
+
+/**
+ * The path searches of the read-only graphs, `GraphSnapshot` and `MappedGraph`, which walk the
+ * Edges through `CsrAdjacency` instead of through Vertex and Edge objects.
+ * Paths are found as arrays of Edge ids, and each graph turns them into a Path of its own.
+ * The searches find the same paths, in the same order, as `DijkstraSearch` and
+ * `AllPathsIterator` find in the Graph the snapshot or file was made from.
+ */
+final class CsrSearch {
+
+    static final Logger classLogger = LogManager.getLogger(CsrSearch.class);
+
+    private CsrSearch () {}
+
+    /**
+     * Called by `findAllPaths` every time it reaches the destination
+     */
+    interface PathVisitor {
+        void visit(int[] edgeIds, int length);
+    }
+
+    /**
+     * Finds the cheapest path between two vertices with Dijkstra's algorithm. If more than one
+     * path has the lowest cost, the path using the fewest Edges is found.
+     * @param graph : The Edges to search
+     * @param vertexStartId : The id of the vertex we are starting at
+     * @param vertexEndId : The id of the vertex we are searching for
+     * @return The ids of the Edges on the path, in order, or null if the destination cannot be reached
+     * @throws ArithmeticException : The shortest path costs more than `Integer.MAX_VALUE`, the most a Path can cost
+     */
+    static int[] findShortestPath(CsrAdjacency graph, int vertexStartId, int vertexEndId) {
+        SearchWorkspace workspace = SearchWorkspace.acquire(graph.getNumberOfVertices());
+        IndexedMinHeap heap = workspace.heap;
+        workspace.reach(vertexStartId, 0, 0, -1, -1);
+        heap.insert(vertexStartId, DijkstraSearch.toKey(0, 0));
+        while (!heap.isEmpty()) {
+            int current = heap.poll();
+            workspace.settle(current);
+            if (current == vertexEndId) {
+                DijkstraSearch.checkCost(workspace.costs[current]);
+                int[] edgeIds = new int[workspace.hops[current]];
+                for (int v = current, i = edgeIds.length - 1; i >= 0; i--) {
+                    edgeIds[i] = workspace.previousEdges[v];
+                    v = workspace.previousVertices[v];
+                }
+                return edgeIds;
+            }
+            int lastEdge = graph.firstEdge(current + 1);
+            for (int e = graph.firstEdge(current); e < lastEdge; e++) {
+                int neighbour = graph.edgeTarget(e);
+                if (workspace.isSettled(neighbour))
+                    continue;
+                long newCost = workspace.costs[current] + graph.edgeWeight(e);
+                int newHops = workspace.hops[current] + 1;
+                if (heap.insertOrDecrease(neighbour, DijkstraSearch.toKey(newCost, newHops))) {
+                    workspace.reach(neighbour, newCost, newHops, current, e);
+                }
+            }
+        }
+        classLogger.debug("No possible shortest path was found to destination.");
+        return null;
+    }
+
+    /**
+     * Walks every simple path leaving the starting Vertex, using an explicit stack instead of
+     * recursion, and hands each path that reaches the destination to the visitor.
+     * The array given to the visitor is reused, so it must be copied if it is kept.
+     * @param graph : The Edges to search
+     * @param vertexStartId : The id of the vertex we are starting at
+     * @param vertexEndId : The id of the vertex we are searching for
+     * @param visitor : Given the Edge ids of every path found
+     */
+    static void findAllPaths(CsrAdjacency graph, int vertexStartId, int vertexEndId, PathVisitor visitor) {
+        int numberOfVertices = graph.getNumberOfVertices();
+        BitSet onPath = new BitSet(numberOfVertices);
+        int[] pathVertices = new int[numberOfVertices];
+        int[] pathEdges = new int[numberOfVertices];
+        int[] nextEdge = new int[numberOfVertices];
+
+        int depth = 0;
+        pathVertices[0] = vertexStartId;
+        nextEdge[0] = graph.firstEdge(vertexStartId);
+        onPath.set(vertexStartId);
+        while (depth >= 0) {
+            int current = pathVertices[depth];
+            if (nextEdge[depth] == graph.firstEdge(current + 1)) {
+                onPath.clear(current);
+                depth--;
+                continue;
+            }
+            int e = nextEdge[depth]++;
+            int neighbour = graph.edgeTarget(e);
+            if (onPath.get(neighbour))
+                continue;
+            pathEdges[depth] = e;
+            if (neighbour == vertexEndId) {
+                visitor.visit(pathEdges, depth + 1);
+                continue;
+            }
+            depth++;
+            pathVertices[depth] = neighbour;
+            nextEdge[depth] = graph.firstEdge(neighbour);
+            onPath.set(neighbour);
+        }
+    }
+
+}
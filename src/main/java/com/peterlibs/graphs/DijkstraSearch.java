@@ -0,0 +1,344 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A single shortest path query, answered using Dijkstra's algorithm (or A*, when given a Heuristic).
+ * Since `Edge.setWeight` does not allow negative weights, the first time a Vertex is taken
+ * off of the heap we know we have found the cheapest way to reach it. This lets us answer
+ * a query in O((V+E) log V), instead of trying every possible path.
+ * The state of the search is kept in this thread's `SearchWorkspace`, indexed by the dense
+ * index of each Vertex, so a query between two vertices that are close together does not
+ * pay for the size of the whole Graph.
+ */
+class DijkstraSearch {
+
+    static final Logger classLogger = LogManager.getLogger(DijkstraSearch.class);
+
+    //The most a path can cost, since `Path.getCost` is an int. Keys hold the cost above the
+    // number of hops, so this is also the most cost that fits in a key.
+    static final long MAX_PATH_COST = Integer.MAX_VALUE;
+    //The key of every path that costs more than MAX_PATH_COST. It comes after every other key
+    // (including a path of MAX_PATH_COST with the most hops), and before Long.MAX_VALUE.
+    static final long TOO_COSTLY = Long.MAX_VALUE - 1;
+
+    private DijkstraSearch () {}
+
+    /**
+     * Finds the cheapest path from the starting Vertex to the destination Vertex, using the A*
+     * algorithm. When two paths have the same cost, the one with fewer Edges (hops) wins.
+     * Vertices are taken off of the heap in order of their cost so far plus their
+     * estimated cost to the destination, so vertices that lead away from the destination are
+     * put off (and often never expanded at all).
+     * If the heuristic is not consistent, a Vertex may be reached more cheaply after it has
+     * been expanded. It is then put back on the heap, so the path found is still the cheapest.
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @param vertexStart : The vertex we are starting at
+     * @param vertexDestination : The vertex we are searching for
+     * @param heuristic : The estimate of each Vertex's cost to the destination
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     * @return ArrayList of Edge objects, the shortest path in order.
+     *          Returns null if the destination cannot be reached.
+     */
+    static ArrayList<Edge> findShortestPath(
+        List<Vertex> indexedVertices, Vertex vertexStart, Vertex vertexDestination,
+        Heuristic heuristic, QueryStats stats
+    ) {
+        if (vertexStart == null || vertexDestination == null) {
+            classLogger.debug("One of the given vertices was null. No path can exist.");
+            return null;
+        }
+        SearchWorkspace workspace = SearchWorkspace.acquire(indexedVertices.size());
+        if (!search(indexedVertices, workspace, vertexStart, vertexDestination, heuristic, null, stats))
+            return null;
+        checkCost(workspace.costs[vertexDestination.getIndex()]);
+        return buildPath(indexedVertices, workspace, vertexDestination.getIndex());
+    }
+    /**
+     * Same as `findShortestPath` (with no Heuristic), but only follows the Edges the filter
+     * allows, such as to keep away from vertices or Edges that have already been used.
+     * Unlike `findShortestPath`, the path found may cost more than `MAX_PATH_COST`, so that the
+     * caller can decide whether that matters.
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @param vertexStart : The vertex we are starting at
+     * @param vertexDestination : The vertex we are searching for
+     * @param allowedEdges : True for every Edge the path may use
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     * @return ArrayList of Edge objects, the shortest path in order.
+     *          Returns null if the destination cannot be reached.
+     */
+    static ArrayList<Edge> findShortestPath(
+        List<Vertex> indexedVertices, Vertex vertexStart, Vertex vertexDestination,
+        Predicate<Edge> allowedEdges, QueryStats stats
+    ) {
+        if (vertexStart == null || vertexDestination == null) {
+            classLogger.debug("One of the given vertices was null. No path can exist.");
+            return null;
+        }
+        SearchWorkspace workspace = SearchWorkspace.acquire(indexedVertices.size());
+        if (!search(indexedVertices, workspace, vertexStart, vertexDestination, Heuristic.NONE, allowedEdges, stats))
+            return null;
+        return buildPath(indexedVertices, workspace, vertexDestination.getIndex());
+    }
+
+    /**
+     * Runs the search of `findShortestPath` until the destination is taken off of the heap,
+     * leaving how each Vertex was reached in the workspace
+     * @param allowedEdges : [nullable] True for every Edge the path may use. Null allows every Edge.
+     * @return True if the destination was reached
+     */
+    private static boolean search(
+        List<Vertex> indexedVertices, SearchWorkspace workspace, Vertex vertexStart, Vertex vertexDestination,
+        Heuristic heuristic, Predicate<Edge> allowedEdges, QueryStats stats
+    ) {
+        IndexedMinHeap heap = workspace.heap;
+        int startId = vertexStart.getIndex();
+        int destinationId = vertexDestination.getIndex();
+        String destinationLabel = vertexDestination.getLabel();
+
+        workspace.reach(startId, 0, 0, -1, -1);
+        heap.insert(startId, toKey(estimate(heuristic, vertexStart, destinationLabel), 0));
+        if (stats != null)
+            stats.countQueueOperation();
+        while (!heap.isEmpty()) {
+            if (stats != null)
+                stats.recordFrontier(heap.size());
+            int current = heap.poll();
+            workspace.settle(current);
+            if (stats != null)
+                countExpansion(stats, workspace, current, indexedVertices.get(current).getEdgesInternal().size());
+            if (current == destinationId) {
+                if (Graph.LOG_HOT_PATHS && classLogger.isDebugEnabled())
+                    classLogger.debug(
+                        "Reached destination '{}'. cost={} hops={}",
+                        destinationLabel, workspace.costs[current], workspace.hops[current]
+                    );
+                return true;
+            }
+
+            ArrayList<Edge> edges = indexedVertices.get(current).getEdgesInternal();
+            for (int slot = 0; slot < edges.size(); slot++) {
+                Edge anEdge = edges.get(slot);
+                if (allowedEdges != null && !allowedEdges.test(anEdge))
+                    continue;
+                int neighbour = anEdge.getVertexEnd().getIndex();
+                long newCost = workspace.costs[current] + anEdge.getWeight();
+                int newHops = workspace.hops[current] + 1;
+                if (workspace.isSettled(neighbour)) {
+                    //With a consistent heuristic (or none), a settled Vertex can never be improved on
+                    if (toKey(newCost, newHops) >= toKey(workspace.costs[neighbour], workspace.hops[neighbour]))
+                        continue;
+                    workspace.unsettle(neighbour);
+                }
+                long newKey = toKey(newCost + estimate(heuristic, anEdge.getVertexEnd(), destinationLabel), newHops);
+                if (heap.insertOrDecrease(neighbour, newKey)) {
+                    workspace.reach(neighbour, newCost, newHops, current, slot);
+                    if (stats != null)
+                        countRelaxation(stats);
+                }
+            }
+        }
+        classLogger.debug("No possible shortest path was found to destination.");
+        return false;
+    }
+
+    /**
+     * Finds the cheapest path from the starting Vertex to the destination Vertex by searching
+     * forward from the start (over the Edges leaving each Vertex) and backward from the
+     * destination (over the Edges coming into each Vertex), always growing whichever side has
+     * the smaller next key. Every time a Vertex reached by one side has already been reached by
+     * the other, the path through it is a candidate. The search stops once the next keys of the
+     * two sides add up to at least the best candidate, since no path left to find can be cheaper.
+     * Keys are compared the same way as the forward search (cost, then hops), so the path found
+     * has the same cost and number of Edges.
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @param vertexStart : The vertex we are starting at
+     * @param vertexDestination : The vertex we are searching for
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     * @return ArrayList of Edge objects, the shortest path in order.
+     *          Returns null if the destination cannot be reached.
+     */
+    static ArrayList<Edge> findShortestPathBidirectional(
+        List<Vertex> indexedVertices, Vertex vertexStart, Vertex vertexDestination, QueryStats stats
+    ) {
+        if (vertexStart == null || vertexDestination == null) {
+            classLogger.debug("One of the given vertices was null. No path can exist.");
+            return null;
+        }
+        SearchWorkspace forward = SearchWorkspace.acquire(indexedVertices.size());
+        SearchWorkspace backward = SearchWorkspace.acquireBackward(indexedVertices.size());
+        int startId = vertexStart.getIndex();
+        int destinationId = vertexDestination.getIndex();
+
+        forward.reach(startId, 0, 0, -1, -1);
+        forward.heap.insert(startId, toKey(0, 0));
+        backward.reach(destinationId, 0, 0, -1, -1);
+        backward.heap.insert(destinationId, toKey(0, 0));
+        if (stats != null) {
+            stats.countQueueOperation();
+            stats.countQueueOperation();
+        }
+        long bestKey = Long.MAX_VALUE;
+        int meetingId = -1;
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            if (meetingId != -1 && addKeys(forward.heap.peekKey(), backward.heap.peekKey()) >= bestKey)
+                break;
+            if (stats != null)
+                stats.recordFrontier(forward.heap.size() + backward.heap.size());
+            boolean isForward = forward.heap.peekKey() <= backward.heap.peekKey();
+            SearchWorkspace side = isForward ? forward : backward;
+            SearchWorkspace otherSide = isForward ? backward : forward;
+            int current = side.heap.poll();
+            side.settle(current);
+
+            Vertex currentVertex = indexedVertices.get(current);
+            ArrayList<Edge> edges = isForward ? currentVertex.getEdgesInternal() : currentVertex.getIncomingEdgesInternal();
+            if (stats != null)
+                countExpansion(stats, side, current, edges.size());
+            for (int slot = 0; slot < edges.size(); slot++) {
+                Edge anEdge = edges.get(slot);
+                int neighbour = (isForward ? anEdge.getVertexEnd() : anEdge.getVertexStart()).getIndex();
+                if (side.isSettled(neighbour))
+                    continue;
+                long newCost = side.costs[current] + anEdge.getWeight();
+                int newHops = side.hops[current] + 1;
+                if (side.heap.insertOrDecrease(neighbour, toKey(newCost, newHops))) {
+                    side.reach(neighbour, newCost, newHops, current, slot);
+                    if (stats != null)
+                        countRelaxation(stats);
+                }
+                if (otherSide.isReached(neighbour)) {
+                    long candidateKey = toKey(
+                        side.costs[neighbour] + otherSide.costs[neighbour],
+                        side.hops[neighbour] + otherSide.hops[neighbour]
+                    );
+                    if (candidateKey < bestKey) {
+                        bestKey = candidateKey;
+                        meetingId = neighbour;
+                    }
+                }
+            }
+        }
+        if (meetingId == -1) {
+            classLogger.debug("No possible shortest path was found to destination.");
+            return null;
+        }
+        checkKey(bestKey);
+        if (Graph.LOG_HOT_PATHS && classLogger.isDebugEnabled())
+            classLogger.debug(
+                "Searches met at '{}'. cost={} hops={}",
+                indexedVertices.get(meetingId).getLabel(),
+                forward.costs[meetingId] + backward.costs[meetingId], forward.hops[meetingId] + backward.hops[meetingId]
+            );
+        ArrayList<Edge> foundPath = buildPath(indexedVertices, forward, meetingId);
+        int current = meetingId;
+        while (backward.previousVertices[current] != -1) {
+            int previous = backward.previousVertices[current];
+            foundPath.add(indexedVertices.get(previous).getIncomingEdgesInternal().get(backward.previousEdges[current]));
+            current = previous;
+        }
+        return foundPath;
+    }
+
+    /**
+     * Counts a Vertex being taken off of the heap, and every one of its Edges being looked at
+     */
+    static void countExpansion(QueryStats stats, SearchWorkspace workspace, int current, int numberOfEdges) {
+        stats.countQueueOperation();
+        stats.countExpansion();
+        stats.countScans(numberOfEdges);
+        stats.recordDepth(workspace.hops[current]);
+    }
+    /**
+     * Counts a Vertex being put on the heap, or moved up it, because a cheaper way of reaching it was found
+     */
+    static void countRelaxation(QueryStats stats) {
+        stats.countQueueOperation();
+        stats.countRelaxation();
+    }
+
+    private static long estimate(Heuristic heuristic, Vertex aVertex, String destinationLabel) {
+        if (heuristic == Heuristic.NONE)
+            return 0;
+        int estimate = heuristic.estimate(aVertex.getLabel(), destinationLabel);
+        if (estimate < 0) {
+            throw new IllegalArgumentException(
+                "Heuristic gave a negative estimate (%d) for '%s'".formatted( estimate, aVertex.getLabel() )
+            );
+        }
+        return estimate;
+    }
+
+    /**
+     * Packs the cost and number of hops of a path into a single heap key, so that
+     * cheaper paths come first, and fewer hops breaks a tie in cost.
+     * A cost over `MAX_PATH_COST` would not fit above the hops, so every such path gets the
+     * key `TOO_COSTLY` instead. Those paths are still searched (after every other path), so a
+     * Vertex they reach is still reached, but the order they are searched in is not kept.
+     */
+    static long toKey(long cost, int hops) {
+        if (cost > MAX_PATH_COST)
+            return TOO_COSTLY;
+        return (cost << 32) | (hops & 0xFFFFFFFFL);
+    }
+    /**
+     * Unpacks the number of hops from a key made by `toKey` or `addKeys`.
+     * The hops of a `TOO_COSTLY` key are not kept, and come out negative.
+     */
+    static int hopsOf(long key) {
+        return (int) key;
+    }
+    /**
+     * Adds two keys together, as the key of the two paths joined end to end.
+     * If the joined path costs more than `MAX_PATH_COST`, its key is `TOO_COSTLY`.
+     */
+    static long addKeys(long aKey, long bKey) {
+        long sum = aKey + bKey;
+        //Both keys are at most TOO_COSTLY, so a sum that overflowed is negative
+        if (sum < 0 || sum >= TOO_COSTLY)
+            return TOO_COSTLY;
+        return sum;
+    }
+    /**
+     * Checks that the path found is cheap enough for a Path to hold its cost
+     * @param cost : The cost of the path found
+     * @throws ArithmeticException : The cost is more than `MAX_PATH_COST`
+     */
+    static void checkCost(long cost) {
+        if (cost > MAX_PATH_COST) {
+            throw new ArithmeticException(
+                "The path found costs %d, more than the most a Path can cost (%d)".formatted( cost, MAX_PATH_COST )
+            );
+        }
+    }
+    static void checkKey(long key) {
+        if (key == TOO_COSTLY) {
+            throw new ArithmeticException(
+                "The path found costs more than the most a Path can cost (%d)".formatted( MAX_PATH_COST )
+            );
+        }
+    }
+
+    /**
+     * Follows the recorded previous vertices back from the destination to the start.
+     * Each step was recorded as the previous Vertex's index, and the position of the Edge
+     * in that Vertex's list of Edges.
+     */
+    private static ArrayList<Edge> buildPath(List<Vertex> indexedVertices, SearchWorkspace workspace, int destinationId) {
+        ArrayList<Edge> foundPath = new ArrayList<>(workspace.hops[destinationId]);
+        int current = destinationId;
+        while (workspace.previousVertices[current] != -1) {
+            int previous = workspace.previousVertices[current];
+            foundPath.add(indexedVertices.get(previous).getEdgesInternal().get(workspace.previousEdges[current]));
+            current = previous;
+        }
+        Collections.reverse(foundPath);
+        return foundPath;
+    }
+
+}
@@ -17,6 +17,11 @@ class Edge implements Serializable {
     private Vertex vertexEnd;
     private int weight;
     private String label;
+    //Where this Edge is sitting in its Starting Vertex's list of Edges (and its Ending
+    // Vertex's list of incoming Edges), so that it can be removed from those lists
+    // without searching for it.
+    private int outgoingIndex;
+    private int incomingIndex;
 
     /**
      * Constructor for a new Edge in the Graph
@@ -26,13 +31,21 @@ class Edge implements Serializable {
      * @param label : [optional] The pretty name for the Edge. Defaults to 'label'.
      */
     Edge (Vertex vertexStart, Vertex vertexEnd, int weight, String label) {
-        classLogger.debug(
-            "Creating new Edge between '{}' and '{}'. weight = {}, label = '{}'",
-            vertexStart.getLabel(),
-            vertexEnd.getLabel(),
-            weight,
-            label
-        );
+        this(vertexStart, vertexEnd, weight, label, true);
+    }
+    /**
+     * Same as the constructor above, but lets a bulk load (see `GraphBuilder`) skip logging every Edge.
+     * @param logCreation : True if the new Edge should be logged
+     */
+    Edge (Vertex vertexStart, Vertex vertexEnd, int weight, String label, boolean logCreation) {
+        if (logCreation && Graph.LOG_HOT_PATHS && classLogger.isDebugEnabled())
+            classLogger.debug(
+                "Creating new Edge between '{}' and '{}'. weight = {}, label = '{}'",
+                vertexStart.getLabel(),
+                vertexEnd.getLabel(),
+                weight,
+                label
+            );
         this.setLabel(label);
         this.setWeight(weight);
         this.setVertexStart(vertexStart);
@@ -83,6 +96,11 @@ class Edge implements Serializable {
      */
     void setVertexEnd(Vertex newVertex) { this.vertexEnd = newVertex; }
 
+    int getOutgoingIndex() { return this.outgoingIndex; }
+    void setOutgoingIndex(int newIndex) { this.outgoingIndex = newIndex; }
+    int getIncomingIndex() { return this.incomingIndex; }
+    void setIncomingIndex(int newIndex) { this.incomingIndex = newIndex; }
+
     @Override
     public String toString() {
         return
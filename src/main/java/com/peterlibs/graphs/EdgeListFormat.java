@@ -0,0 +1,344 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Reads and writes a Graph as a text edge list, one Edge per line:
+ *     start,end,weight,label
+ * with the fields split by a comma (CSV), a tab (TSV) or any other single character.
+ * The weight and label can be left off, and default to the same values as `Graph.addEdge`.
+ * A line with only a start is a Vertex on its own, which is how vertices without any Edges are
+ * written. Empty lines are skipped, and both "\n" and "\r\n" line endings are accepted.
+ * There is no quoting, so a label cannot contain the delimiter or a line break, and an Edge with
+ * a null label is written without one (so it is read back with the default label).
+ *
+ * Reading streams the file through a large direct buffer, a line at a time, and never holds more
+ * than a buffer of the file. Each distinct label is only turned into a String the first time it
+ * is seen (after that, its bytes are matched against a table of the labels already seen), and
+ * weights are parsed straight from the bytes. Vertices are created the first time they are named,
+ * and everything is loaded through a `GraphBuilder`, so a duplicate Edge replaces the earlier one.
+ * The size and speed of the last import are kept, see `getMegabytesPerSecond`.
+ * An EdgeListFormat must not be used by more than one thread at a time.
+ */
+public class EdgeListFormat {
+
+    static final Logger classLogger = LogManager.getLogger(EdgeListFormat.class);
+    static final int BUFFER_BYTES = 1 << 20;
+    //Instance variables, for the delimiter between fields, and the statistics of the last import
+    private final byte delimiter;
+    private long bytesRead;
+    private long linesRead;
+    private Duration importTime;
+
+    /**
+     * Constructor for an edge list format, with the given delimiter between fields
+     * @param delimiter : The character between fields. Must be a single byte in UTF-8, and not a line break.
+     */
+    public EdgeListFormat (char delimiter) {
+        if (delimiter >= 0x80 || delimiter == '\n' || delimiter == '\r')
+            throw new IllegalArgumentException("Delimiter must be a single byte character, and not a line break");
+        this.delimiter = (byte) delimiter;
+        this.bytesRead = 0;
+        this.linesRead = 0;
+        this.importTime = Duration.ZERO;
+    }
+    public static EdgeListFormat csv() { return new EdgeListFormat(','); }
+    public static EdgeListFormat tsv() { return new EdgeListFormat('\t'); }
+
+    public long getBytesRead() { return this.bytesRead; }
+    public long getLinesRead() { return this.linesRead; }
+    public Duration getImportTime() { return this.importTime; }
+    /**
+     * @return The speed of the last import, in megabytes (of 1,000,000 bytes) per second
+     */
+    public double getMegabytesPerSecond() {
+        long nanos = this.importTime.toNanos();
+        return (nanos == 0) ? 0 : (this.bytesRead / 1e6) / (nanos / 1e9);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Importing
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Reads a Graph from the edge list in the given file.
+     * @param file : The edge list file
+     * @return A new Graph, holding every Vertex and Edge in the file
+     * @throws IOException : The file could not be read, or a line could not be parsed
+     */
+    public Graph importFrom(java.nio.file.Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return this.importFrom(channel);
+        }
+    }
+    /**
+     * Reads a Graph from the edge list in the given channel, until the end of the channel.
+     * @param channel : Where to read the edge list from. It is not closed.
+     * @return A new Graph, holding every Vertex and Edge read
+     * @throws IOException : The channel could not be read, or a line could not be parsed
+     */
+    public Graph importFrom(ReadableByteChannel channel) throws IOException {
+        long startTime = System.nanoTime();
+        this.bytesRead = 0;
+        this.linesRead = 0;
+        GraphBuilder builder = Graph.builder();
+        LabelTable vertexNames = new LabelTable();
+        LabelTable edgeLabels = new LabelTable();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+        int[] fieldStarts = new int[4];
+        int[] fieldEnds = new int[4];
+
+        boolean endOfInput = false;
+        while (!endOfInput) {
+            int read = channel.read(buffer);
+            if (read == -1)
+                endOfInput = true;
+            else
+                this.bytesRead += read;
+            buffer.flip();
+            int lineStart = buffer.position();
+            int limit = buffer.limit();
+            for (int i = lineStart; i < limit; i++) {
+                if (buffer.get(i) == '\n') {
+                    this.parseLine(buffer, lineStart, i, fieldStarts, fieldEnds, builder, vertexNames, edgeLabels);
+                    lineStart = i + 1;
+                }
+            }
+            if (endOfInput && lineStart < limit) {
+                //The last line did not end with a line break
+                this.parseLine(buffer, lineStart, limit, fieldStarts, fieldEnds, builder, vertexNames, edgeLabels);
+                lineStart = limit;
+            }
+            if (lineStart == 0 && limit == buffer.capacity())
+                throw new IOException(
+                    "Line %d is longer than %d bytes".formatted( this.linesRead + 1, BUFFER_BYTES )
+                );
+            buffer.position(lineStart);
+            buffer.compact();
+        }
+        Graph newGraph = builder.build();
+        this.importTime = Duration.ofNanos(System.nanoTime() - startTime);
+        classLogger.info(
+            "Imported {} lines ({} bytes) in {} ms, {} MB/s",
+            this.linesRead, this.bytesRead, this.importTime.toMillis(), "%.1f".formatted( this.getMegabytesPerSecond() )
+        );
+        return newGraph;
+    }
+
+    /**
+     * Splits the line from `start` up to `end` into fields, and adds the Vertex or Edge it describes
+     */
+    private void parseLine(ByteBuffer buffer, int start, int end, int[] fieldStarts, int[] fieldEnds,
+                           GraphBuilder builder, LabelTable vertexNames, LabelTable edgeLabels) throws IOException {
+        this.linesRead++;
+        if (end > start && buffer.get(end - 1) == '\r')
+            end--;
+        if (end == start)
+            return;
+        int numberOfFields = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == this.delimiter) {
+                if (numberOfFields == 4)
+                    throw new IOException("Line %d has more than 4 fields".formatted( this.linesRead ));
+                fieldStarts[numberOfFields] = fieldStart;
+                fieldEnds[numberOfFields] = i;
+                numberOfFields++;
+                fieldStart = i + 1;
+            }
+        }
+        String vertexStartName = vertexNames.lookUp(buffer, fieldStarts[0], fieldEnds[0]);
+        if (vertexNames.isNew())
+            builder.addVertex(vertexStartName);
+        if (numberOfFields == 1)
+            return;
+        String vertexEndName = vertexNames.lookUp(buffer, fieldStarts[1], fieldEnds[1]);
+        if (vertexNames.isNew())
+            builder.addVertex(vertexEndName);
+        int weight = (numberOfFields > 2) ? this.parseWeight(buffer, fieldStarts[2], fieldEnds[2]) : Graph.EDGE_DEFAULT_WEIGHT;
+        String label = (numberOfFields > 3) ? edgeLabels.lookUp(buffer, fieldStarts[3], fieldEnds[3]) : Graph.EDGE_DEFAULT_LABEL;
+        builder.addEdge(vertexStartName, vertexEndName, weight, label);
+    }
+
+    private int parseWeight(ByteBuffer buffer, int start, int end) throws IOException {
+        if (start == end)
+            throw new IOException("Line %d has an empty weight".formatted( this.linesRead ));
+        long weight = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9)
+                throw new IOException(
+                    "Line %d has a weight that is not a non-negative whole number".formatted( this.linesRead )
+                );
+            weight = weight * 10 + digit;
+            if (weight > Integer.MAX_VALUE)
+                throw new IOException("Line %d has a weight that is too large".formatted( this.linesRead ));
+        }
+        return (int) weight;
+    }
+
+    /**
+     * An open addressing hash table of the labels seen so far, keyed by their UTF-8 bytes, so that
+     * a label that was already seen is found without making a new String
+     */
+    private static final class LabelTable {
+        private byte[][] keys;
+        private String[] values;
+        private int size;
+        private boolean lastWasNew;
+
+        LabelTable () {
+            this.keys = new byte[1024][];
+            this.values = new String[1024];
+            this.size = 0;
+        }
+
+        boolean isNew() { return this.lastWasNew; }
+
+        String lookUp(ByteBuffer buffer, int start, int end) {
+            int hash = 1;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer.get(i);
+            }
+            int mask = this.keys.length - 1;
+            int slot = (hash ^ (hash >>> 16)) & mask;
+            while (this.keys[slot] != null) {
+                if (matches(this.keys[slot], buffer, start, end)) {
+                    this.lastWasNew = false;
+                    return this.values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] key = new byte[end - start];
+            buffer.get(start, key);
+            this.keys[slot] = key;
+            this.values[slot] = new String(key, StandardCharsets.UTF_8);
+            this.lastWasNew = true;
+            String value = this.values[slot];
+            if (++this.size * 2 > this.keys.length)
+                this.grow();
+            return value;
+        }
+
+        private static boolean matches(byte[] key, ByteBuffer buffer, int start, int end) {
+            if (key.length != end - start)
+                return false;
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buffer.get(start + i))
+                    return false;
+            }
+            return true;
+        }
+
+        private void grow() {
+            byte[][] oldKeys = this.keys;
+            String[] oldValues = this.values;
+            this.keys = new byte[oldKeys.length * 2][];
+            this.values = new String[oldKeys.length * 2];
+            int mask = this.keys.length - 1;
+            for (int s = 0; s < oldKeys.length; s++) {
+                if (oldKeys[s] == null)
+                    continue;
+                int hash = 1;
+                for (byte b: oldKeys[s]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = (hash ^ (hash >>> 16)) & mask;
+                while (this.keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                this.keys[slot] = oldKeys[s];
+                this.values[slot] = oldValues[s];
+            }
+        }
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Exporting
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Writes the Graph to the given file as an edge list, replacing anything already in the file.
+     * @param aGraph : The Graph to write
+     * @param file : Where to write the edge list
+     * @throws IOException : The file could not be written
+     * @throws IllegalArgumentException : A label contains the delimiter or a line break
+     */
+    public void exportTo(Graph aGraph, java.nio.file.Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            file, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            this.exportTo(aGraph, channel);
+        }
+    }
+    /**
+     * Writes the Graph to the given channel as an edge list, one line per Edge (and one line for
+     * each Vertex without any Edges), in the order the vertices were added. Reading the list back
+     * creates each Vertex the first time it is named, which may be in a different order.
+     * @param aGraph : The Graph to write
+     * @param channel : Where to write the edge list. It is not closed.
+     * @throws IOException : The channel could not be written
+     * @throws IllegalArgumentException : A label contains the delimiter or a line break
+     */
+    public void exportTo(Graph aGraph, WritableByteChannel channel) throws IOException {
+        GraphFormat.ChannelWriter writer = new GraphFormat.ChannelWriter(channel);
+        byte[] digits = new byte[10]; //Weights are never negative, and an int has at most 10 digits
+        long linesWritten = 0;
+        for (Vertex aVertex: aGraph.getVerticesInternal()) {
+            byte[] vertexStartName = this.encode(aVertex.getLabel());
+            if (aVertex.getEdgesInternal().isEmpty() && aVertex.getIncomingEdgesInternal().isEmpty()) {
+                writer.putBytes(vertexStartName);
+                writer.putByte((byte) '\n');
+                linesWritten++;
+            }
+            for (Edge anEdge: aVertex.getEdgesInternal()) {
+                writer.putBytes(vertexStartName);
+                writer.putByte(this.delimiter);
+                writer.putBytes(this.encode(anEdge.getVertexEnd().getLabel()));
+                writer.putByte(this.delimiter);
+                int first = digits.length;
+                int weight = anEdge.getWeight();
+                do {
+                    digits[--first] = (byte) ('0' + weight % 10);
+                    weight /= 10;
+                } while (weight > 0);
+                writer.putBytes(digits, first, digits.length - first);
+                if (anEdge.getLabel() != null) {
+                    writer.putByte(this.delimiter);
+                    writer.putBytes(this.encode(anEdge.getLabel()));
+                }
+                writer.putByte((byte) '\n');
+                linesWritten++;
+            }
+        }
+        writer.flush();
+        classLogger.debug("Exported {} lines", linesWritten);
+    }
+
+    private byte[] encode(String label) {
+        byte[] bytes = label.getBytes(StandardCharsets.UTF_8);
+        for (byte b: bytes) {
+            if (b == this.delimiter || b == '\n' || b == '\r')
+                throw new IllegalArgumentException(
+                    "The label '%s' cannot be written to an edge list, it contains the delimiter or a line break".formatted( label )
+                );
+        }
+        return bytes;
+    }
+
+}
@@ -2,10 +2,29 @@ package com.peterlibs.graphs;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectStreamException;
+import java.io.OutputStream;
 import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Class for a Graph, which will store a map of Nodes connected by Edges
@@ -17,16 +36,54 @@ public class Graph implements Serializable {
     static final int EDGE_DEFAULT_WEIGHT = 0;
     static final String EDGE_DEFAULT_LABEL = "An Edge";
     static final String VERTEX_DEFAULT_LABEL = "label";
-    //Instance variables, for recording the vertices in this graph.
+    //Run with `-Dcom.peterlibs.graphs.noLog=true` to turn off all logging on the hot paths
+    // (looking up vertices and Edges, adding Edges, and searching). Since this is a static
+    // final, the JIT removes the logging calls and the building of their arguments entirely,
+    // so lookups do not allocate anything.
+    static final boolean LOG_HOT_PATHS = !Boolean.getBoolean("com.peterlibs.graphs.noLog");
+    //Instance variables, for recording the vertices in this graph, keyed by their (unique)
+    // label so that finding a Vertex does not require looking through every Vertex.
+    // A LinkedHashMap keeps the vertices in the order they were added.
     // We do not need to maintain a list of edges, since that will exist within
     // each Vertex object.
-    private final ArrayList<Vertex> vertices;
+    //Each Vertex is also given a dense index (0 to V-1), which is its position in
+    // `indexedVertices`. Path searches use the index to keep track of visited vertices
+    // in a bitset or array, instead of a hash set.
+    private final LinkedHashMap<String, Vertex> vertices;
+    private final ArrayList<Vertex> indexedVertices;
+    //Bumped every time a Vertex or Edge is added, changed or removed, so that results worked
+    // out before the change can be told apart from results worked out after it.
+    // It is atomic because a striped `ConcurrentGraph` changes Edges from many threads at once.
+    private final AtomicLong modificationEpoch;
+    //[nullable] The cache of path query results, if one has been enabled
+    private transient PathCache queryCache;
+    //[nullable] The totals of the work done by every path query, if they have been enabled
+    private transient QueryMetrics queryMetrics;
 
     /**
      * Constructor for a new, empty Graph
      */
     public Graph () {
-        this.vertices = new ArrayList<>();
+        this(0);
+    }
+    /**
+     * Constructor for a new, empty Graph, with room for the given number of vertices
+     * @param expectedVertices : The number of vertices the Graph is expected to hold
+     */
+    Graph (int expectedVertices) {
+        this.vertices = new LinkedHashMap<>(Math.max(16, (int) (expectedVertices / 0.75f) + 1));
+        this.indexedVertices = new ArrayList<>(expectedVertices);
+        this.modificationEpoch = new AtomicLong();
+        this.queryCache = null;
+        this.queryMetrics = null;
+    }
+    /**
+     * Gets a builder for loading a large Graph all at once, much faster than calling
+     * `addVertex` and `addEdge` for every Vertex and Edge.
+     * @return A new, empty GraphBuilder
+     */
+    public static GraphBuilder builder() {
+        return new GraphBuilder();
     }
 
 
@@ -44,23 +101,28 @@ public class Graph implements Serializable {
      *          Returns null if the Edge is not found
      */
     public Edge getEdge(String vertexStartName, String vertexEndName) {
-        classLogger.debug(
-            "Will attempt to find an Edge between '{}' and '{}'",
-            vertexStartName,
-            vertexEndName
-        );
+        if (LOG_HOT_PATHS)
+            classLogger.debug(
+                "Will attempt to find an Edge between '{}' and '{}'",
+                vertexStartName,
+                vertexEndName
+            );
         Vertex vertexStart = this.getVertex(vertexStartName);
-        classLogger.debug("Starting Vertex: {}", vertexStart);
         Vertex vertexEnd = this.getVertex(vertexEndName);
-        classLogger.debug("Ending Vertex: {}", vertexEnd);
+        if (LOG_HOT_PATHS && classLogger.isDebugEnabled()) {
+            classLogger.debug("Starting Vertex: {}", vertexStart);
+            classLogger.debug("Ending Vertex: {}", vertexEnd);
+        }
         return this.getEdge(vertexStart, vertexEnd);
     }
     private Edge getEdge(Vertex vertexStart, Vertex vertexEnd) {
         if (vertexStart == null || vertexEnd == null) {
-            classLogger.debug("One of the given vertices was null. Cannot create an Edge to null. Returning null.");
+            if (LOG_HOT_PATHS)
+                classLogger.debug("One of the given vertices was null. Cannot create an Edge to null. Returning null.");
             return null;
         }
-        classLogger.debug("Asking Starting Vertex to search for Edge to Ending Vertex");
+        if (LOG_HOT_PATHS)
+            classLogger.debug("Asking Starting Vertex to search for Edge to Ending Vertex");
         return vertexStart.getEdgeToVertex(vertexEnd);
     }
     /**
@@ -69,7 +131,7 @@ public class Graph implements Serializable {
      */
     public int getNumberOfEdges() {
         int totalEdges = 0;
-        for (Vertex aVertex: this.vertices) {
+        for (Vertex aVertex: this.vertices.values()) {
             totalEdges += aVertex.getEdges().size();
         }
         return totalEdges;
@@ -83,13 +145,14 @@ public class Graph implements Serializable {
      * @return The Edge object that was created
      */
     public Edge addEdge(String vertexStartName, String vertexEndName, int weight, String label) {
-        classLogger.debug(
-            "Will add/update Edge between '{}' and '{}' | weight = '{}', label = '{}'",
-            vertexStartName,
-            vertexEndName,
-            weight,
-            label
-        );
+        if (LOG_HOT_PATHS && classLogger.isDebugEnabled())
+            classLogger.debug(
+                "Will add/update Edge between '{}' and '{}' | weight = '{}', label = '{}'",
+                vertexStartName,
+                vertexEndName,
+                weight,
+                label
+            );
         Vertex vertexStart = this.getVertex(vertexStartName);
         if (vertexStart == null)
             throw new IllegalArgumentException(
@@ -102,15 +165,21 @@ public class Graph implements Serializable {
             );
         Edge theEdge = this.getEdge(vertexStart, vertexEnd);
         if (theEdge != null) {
-            classLogger.debug("Found the Edge. Updating weight and label");
+            if (LOG_HOT_PATHS)
+                classLogger.debug("Found the Edge. Updating weight and label");
             theEdge.setWeight(weight);
             theEdge.setLabel(label);
+            this.modificationEpoch.incrementAndGet();
         }
         else {
-            classLogger.debug("Edge did not exist. Creating...");
+            if (LOG_HOT_PATHS)
+                classLogger.debug("Edge did not exist. Creating...");
             theEdge = new Edge(vertexStart, vertexEnd, weight, label);
-            classLogger.debug("Edge created. Adding to Vertex's store of Edges that originate from it");
+            if (LOG_HOT_PATHS)
+                classLogger.debug("Edge created. Adding to Vertex's store of Edges that originate from it");
             vertexStart.addEdge(theEdge);
+            vertexEnd.addIncomingEdge(theEdge);
+            this.modificationEpoch.incrementAndGet();
         }
         return theEdge;
     }
@@ -147,10 +216,11 @@ public class Graph implements Serializable {
         // have any references to the Edge and that the Edge has no references to any vertices.
         // Then we can safely remove the Edge from our Graph and the garbage collector should
         // clean up our memory.
-        theEdge.getVertexStart().getEdgesInternal().remove(theEdge);
-        theEdge.getVertexEnd().getEdgesInternal().remove(theEdge);
+        theEdge.getVertexStart().removeEdge(theEdge);
+        theEdge.getVertexEnd().removeIncomingEdge(theEdge);
         theEdge.setVertexStart(null);
         theEdge.setVertexEnd(null);
+        this.modificationEpoch.incrementAndGet();
     }
 
     /**
@@ -159,29 +229,15 @@ public class Graph implements Serializable {
      * @return A Vertex object if it exists, otherwise, null
      */
     public Vertex getVertex(String vertexName) {
-        classLogger.debug(
-            "Looking for Vertex labeled '{}' in graph of {} vertices",
-            vertexName,
-            this.vertices.size()
-        );
-        for (Vertex aVertex: this.vertices) {
+        if (LOG_HOT_PATHS && classLogger.isDebugEnabled())
             classLogger.debug(
-                "Processing | Label: '{}', Edges: {}",
-                aVertex.getLabel(),
-                aVertex.getEdges()
+                "Looking for Vertex labeled '{}' in graph of {} vertices",
+                vertexName,
+                this.vertices.size()
             );
-            if (aVertex.getLabel().equals(vertexName)) {
-                classLogger.debug(
-                    "{} is a match | Label: '{}', Edges: {}",
-                    aVertex,
-                    aVertex.getLabel(),
-                    aVertex.getEdges()
-                );
-                return aVertex;
-            }
-        }
-        return null;
+        return this.vertices.get(vertexName);
     }
+    Collection<Vertex> getVerticesInternal() { return this.vertices.values(); }
     /**
      * Gets the number of edges in the Graph, in total
      * @return Integer, the number of edges that have been added to this Graph
@@ -197,16 +253,32 @@ public class Graph implements Serializable {
      */
     public Vertex addVertex(String newVertexName) {
         classLogger.debug("Will add new vertex '{}' if it does not already exist", newVertexName);
-        Vertex newVertex = this.getVertex(newVertexName);
-        if (newVertex != null) {
+        if (this.vertices.containsKey(newVertexName)) {
             classLogger.debug("Found a Vertex with the same label, which is not allowed");
             throw new IllegalArgumentException("A Vertex with this name already exists.");
         }
-        newVertex = new Vertex(newVertexName);
-        this.vertices.add(newVertex);
+        Vertex newVertex = new Vertex(newVertexName);
+        newVertex.setIndex(this.indexedVertices.size());
+        this.indexedVertices.add(newVertex);
+        this.vertices.put(newVertexName, newVertex);
+        this.modificationEpoch.incrementAndGet();
         classLogger.debug("New Vertex '{}' added", newVertexName);
         return newVertex;
     }
+    /**
+     * Adds vertices that were built elsewhere (see `GraphBuilder`), without checking them one by one.
+     * Every label must be unique, and not already in this Graph.
+     * @param newVertices : The vertices to add, with their Edges already attached
+     */
+    void addVerticesUnchecked(List<Vertex> newVertices) {
+        this.indexedVertices.ensureCapacity(this.indexedVertices.size() + newVertices.size());
+        for (Vertex newVertex: newVertices) {
+            newVertex.setIndex(this.indexedVertices.size());
+            this.indexedVertices.add(newVertex);
+            this.vertices.put(newVertex.getLabel(), newVertex);
+        }
+        this.modificationEpoch.incrementAndGet();
+    }
     /**
      * Remove a Vertex from the Graph by providing the Vertex object.
      * @param vertexName : The Name of the Vertex to remove from the Graph.
@@ -218,23 +290,109 @@ public class Graph implements Serializable {
         if (foundVertex == null) {
             throw new IllegalArgumentException("This vertex does not exist in the Graph.");
         }
-        for (Vertex aVertex: this.vertices) {
-            classLogger.debug(
-                "Checking if Vertex '{}' has any Edges that are linked to the Vertex we want to remove, '{}'",
-                aVertex.getLabel(),
-                vertexName
-            );
-            ArrayList<Edge> edgesToRemove = new ArrayList<>();
-            for (Edge anEdge: aVertex.getEdges()) {
-                if (anEdge.getVertexStart() == foundVertex || anEdge.getVertexEnd() == foundVertex) {
-                    edgesToRemove.add(anEdge);
-                }
-            }
-            classLogger.info("Will be removing {} Edges from the Vertex", edgesToRemove.size());
-            aVertex.getEdgesInternal().removeAll(edgesToRemove);
+        //Since every Vertex knows both the Edges leaving it and the Edges arriving at it, we
+        // only need to look at the Edges that touch the Vertex being removed. We always remove
+        // the last Edge in each list, so nothing needs to be moved around.
+        ArrayList<Edge> outgoingEdges = foundVertex.getEdgesInternal();
+        ArrayList<Edge> incomingEdges = foundVertex.getIncomingEdgesInternal();
+        classLogger.info(
+            "Will be removing {} outgoing and {} incoming Edges from the Vertex",
+            outgoingEdges.size(),
+            incomingEdges.size()
+        );
+        while (!outgoingEdges.isEmpty()) {
+            this.removeEdge(outgoingEdges.get(outgoingEdges.size() - 1));
+        }
+        while (!incomingEdges.isEmpty()) {
+            this.removeEdge(incomingEdges.get(incomingEdges.size() - 1));
         }
         classLogger.info("All adjacent edges removed. Removing Vertex");
-        this.vertices.remove(foundVertex);
+        this.vertices.remove(vertexName);
+        //To keep the indices dense, the Vertex with the highest index takes over the index
+        // of the Vertex being removed.
+        Vertex lastVertex = this.indexedVertices.remove(this.indexedVertices.size() - 1);
+        if (lastVertex != foundVertex) {
+            this.indexedVertices.set(foundVertex.getIndex(), lastVertex);
+            lastVertex.setIndex(foundVertex.getIndex());
+        }
+        foundVertex.setIndex(-1);
+        this.modificationEpoch.incrementAndGet();
+    }
+    /**
+     * Gets the vertices that have an Edge leading to the given Vertex.
+     * @param vertexName : The name of the Vertex
+     * @return A List of Vertex objects, one for each incoming Edge
+     * @throws IllegalArgumentException : The given Vertex does not exist in the Graph
+     */
+    public List<Vertex> getPredecessors(String vertexName) {
+        Vertex foundVertex = this.getVertex(vertexName);
+        if (foundVertex == null)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexName )
+            );
+        ArrayList<Vertex> predecessors = new ArrayList<>(foundVertex.getIncomingEdgesInternal().size());
+        for (Edge anEdge: foundVertex.getIncomingEdgesInternal()) {
+            predecessors.add(anEdge.getVertexStart());
+        }
+        return Collections.unmodifiableList(predecessors);
+    }
+    /**
+     * Gets the modification epoch of the Graph, a number that goes up every time a Vertex or
+     * Edge is added, changed or removed. If it has not changed, neither has the Graph.
+     * @return The current modification epoch
+     */
+    public long getModificationEpoch() {
+        return this.modificationEpoch.get();
+    }
+    /**
+     * Starts caching the results of `findShortestPath` and `findAllPaths`, replacing any cache
+     * already in use. Any change to the Graph throws away every cached result.
+     * Paths from the cache are shared between callers, and refer to the Graph's own vertices.
+     * @param capacity : The most results to hold at once. The least recently used result is evicted first.
+     * @return The new PathCache, which also keeps count of hits, misses and evictions
+     */
+    public PathCache enableQueryCache(int capacity) {
+        this.queryCache = new PathCache(capacity);
+        return this.queryCache;
+    }
+    public void disableQueryCache() {
+        this.queryCache = null;
+    }
+    /**
+     * @return The PathCache in use, or null if caching is not enabled
+     */
+    public PathCache getQueryCache() {
+        return this.queryCache;
+    }
+    /**
+     * Starts keeping totals of the work done by every path query run against this Graph, and
+     * against a ContractionHierarchy built from it (the counts of `QueryStats`, and a histogram
+     * of how long each took), replacing any totals already being kept. Results handed out by the
+     * query cache do no work, and are not counted. Neither are queries run against a
+     * GraphSnapshot or MappedGraph, which are separate from the Graph once they are made.
+     * @return The new QueryMetrics, which can be exported with `QueryMetrics.toMap`
+     */
+    public QueryMetrics enableQueryMetrics() {
+        this.queryMetrics = new QueryMetrics();
+        return this.queryMetrics;
+    }
+    public void disableQueryMetrics() {
+        this.queryMetrics = null;
+    }
+    /**
+     * @return The QueryMetrics in use, or null if they are not enabled
+     */
+    public QueryMetrics getQueryMetrics() {
+        return this.queryMetrics;
+    }
+    /**
+     * Takes an immutable snapshot of the Graph as it is right now, for answering path
+     * queries quickly. Vertices are numbered in the order they were added to the Graph.
+     * @return A GraphSnapshot object. Later changes to this Graph are not reflected in it.
+     */
+    public GraphSnapshot freeze() {
+        classLogger.debug("Freezing Graph of {} vertices into a snapshot", this.vertices.size());
+        return new GraphSnapshot(this.vertices.values());
     }
     //What I'd like to do here is have the return of removing a Vertex also return a
     // Hashmap that could be used to re-insert the Vertex (if it was removed incorrectly).
@@ -243,13 +401,57 @@ public class Graph implements Serializable {
 //    public HashMap<String, HashMap<String,Object>> removeVertex(Vertex vertex) {}
 
 
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Reading and writing the Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Writes the Graph in a compact binary format (see `GraphFormat`), where every label is
+     * written once and the Edges are written as packed arrays of ints.
+     * @param channel : Where to write the Graph. It is not closed.
+     * @throws IOException : The Graph could not be written
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        GraphFormat.write(this.vertices.values(), channel);
+    }
+    public void writeTo(OutputStream stream) throws IOException {
+        this.writeTo(Channels.newChannel(stream));
+    }
+    /**
+     * Reads a Graph written by `writeTo`. The Graph has the same vertices and Edges, in the same order.
+     * @param channel : Where to read the Graph from. It is not closed.
+     * @return A new Graph
+     * @throws IOException : The Graph could not be read, or was not written by `writeTo`
+     */
+    public static Graph readFrom(ReadableByteChannel channel) throws IOException {
+        return GraphFormat.read(channel);
+    }
+    public static Graph readFrom(InputStream stream) throws IOException {
+        return readFrom(Channels.newChannel(stream));
+    }
+    /**
+     * Java serialization writes the Graph in the same binary format as `writeTo`, instead of
+     * every Vertex and Edge object one by one.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        try {
+            return new GraphFormat.SerializedGraph(this.vertices.values());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
     /*
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
      * Getting Paths between Vertices, or generic info about the Edges/Vertices related to a Vertex
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
      */
 
-    private Path makeIntoPath(ArrayList<Edge> aRawPath) {
+    static Path makeIntoPath(List<Edge> aRawPath) {
         Path newPath = new Path();
         for (int i = 0; i < aRawPath.size(); i++) {
             newPath.addStep(
@@ -261,64 +463,42 @@ public class Graph implements Serializable {
     }
 
     /**
-     * Will follow all possible paths to search for any feasible path to the destination.
-     * If the vertex we are at does not have a direct path, then it will ask the vertices
-     *  it is connected to to similarly search for a path. If any of them find a path, the
-     *  starting vertex will add itself to the path and return.
-     * @param vertexStart : The vertex we are at
-     * @param vertexDestination : The vertex we are searching for
-     * @param visitedVertices : ArrayList of Vertex objects, the ones already visited
-     * @return ArrayList of ArrayLists of Edge objects. Each sub-ArrayList describe
-     *          a possible path to the destination vertex.
-     */
-    private ArrayList<ArrayList<Edge>> allPathSearchForDestination(Vertex vertexStart, Vertex vertexDestination, ArrayList<Vertex> visitedVertices) {
-        ArrayList<ArrayList<Edge>> foundPaths = new ArrayList<>();
-
-        //The `clone` method should be fine in this situation because our values
-        // are all going to be references to objects. Although, my more rudimentary
-        // experience with Java may had made this a spectacular blunder to learn from.
-        ArrayList<Vertex> newVisitedVertices;
-        if (visitedVertices == null)
-            newVisitedVertices = new ArrayList<>();
-        else
-            newVisitedVertices = new ArrayList<>(visitedVertices);
-        newVisitedVertices.add(vertexStart);
-
-        for (Edge anEdge: vertexStart.getEdges()) {
-            //If we have already visited the vertex, skip doing anything more
-            if (newVisitedVertices.contains(anEdge.getVertexEnd()))
-                continue;
-
-            ArrayList<Edge> itsAPath = new ArrayList<>();
-            if (anEdge.getVertexEnd() == vertexDestination) {
-                itsAPath.add(anEdge);
-                foundPaths.add(itsAPath);
-            }
-            else {
-                //Add all other found paths from the Edge's End Vertex
-                ArrayList<ArrayList<Edge>> foundPathsForThisEdge = allPathSearchForDestination(
-                    anEdge.getVertexEnd(), vertexDestination, newVisitedVertices
-                );
-                for (ArrayList<Edge> aPath: foundPathsForThisEdge) {
-                    aPath.add(0, anEdge);
-                }
-                foundPaths.addAll(foundPathsForThisEdge);
-            }
-        }
-
-        return foundPaths;
+     * Gets the QueryStats a query should count its work in: the one it was given, or a new one
+     * if query metrics are enabled. Either way, it is reset, which starts its clock.
+     * @param stats : [nullable] The QueryStats the caller gave the query
+     * @return The QueryStats to count in, or null if nobody will read the counts
+     */
+    QueryStats startQuery(QueryStats stats) {
+        if (stats == null && this.queryMetrics != null)
+            stats = new QueryStats();
+        if (stats != null)
+            stats.reset();
+        return stats;
+    }
+    /**
+     * Stops the clock of a query started with `startQuery`, and adds its counts to the query metrics
+     */
+    void finishQuery(QueryMetrics.QueryType queryType, QueryStats stats) {
+        if (stats == null)
+            return;
+        stats.finish();
+        QueryMetrics metrics = this.queryMetrics;
+        if (metrics != null)
+            metrics.record(queryType, stats);
     }
+
     /**
      * Find all possible paths from the Vertex A to Vertex B, regardless of cost.
      * Each path will only use each Vertex once at a maximum.
      * @param vertexStartName : The starting point of our path search
      * @param vertexEndName : The Vertex we wish to reach
+     * @param stats : [optional] Where to count the work done by the search
      * @return An ArrayList of ArrayList of String or Edge objects.
      *         Each embedded ArrayList represents a path, where the first given Vertex is our
      *         starting point, and the final given Vertex is our destination.
      * @throws RuntimeException, when no paths could be found
      */
-    public List<Path> findAllPaths(String vertexStartName, String vertexEndName) {
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName, QueryStats stats) {
         ArrayList<Path> allPaths = new ArrayList<>();
 
         Vertex vertexStart = this.getVertex(vertexStartName);
@@ -328,116 +508,238 @@ public class Graph implements Serializable {
             throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
         }
 
-        ArrayList<Vertex> visitedVertices = new ArrayList<>();
-        classLogger.debug("Calling recursive helper function to get all paths.");
-        ArrayList<ArrayList<Edge>> foundPaths = allPathSearchForDestination(vertexStart, vertexEnd, visitedVertices);
-
-        classLogger.debug("Converting ArrayList of paths (using Edge objects) into ArrayLists of Vertices");
-        for (ArrayList<Edge> aRawPath: foundPaths) {
-            allPaths.add(
-                this.makeIntoPath(aRawPath)
-            );
+        classLogger.debug("Walking every path with a depth first search.");
+        QueryStats queryStats = this.startQuery(stats);
+        try {
+            Iterator<Path> foundPaths = new AllPathsIterator(vertexStart, vertexEnd, queryStats);
+            while (foundPaths.hasNext()) {
+                allPaths.add(foundPaths.next());
+            }
+        }
+        finally {
+            this.finishQuery(QueryMetrics.QueryType.ALL_PATHS, queryStats);
         }
         return Collections.unmodifiableList(allPaths);
     }
+    @SuppressWarnings("unchecked")
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName) {
+        PathCache cache = this.queryCache;
+        if (cache == null)
+            return this.findAllPaths(vertexStartName, vertexEndName, null);
 
+        long epoch = this.modificationEpoch.get();
+        Object cachedPaths = cache.get(PathCache.QueryType.ALL_PATHS, vertexStartName, vertexEndName, epoch);
+        if (cachedPaths != null)
+            return (List<Path>) cachedPaths;
+        List<Path> result = this.findAllPaths(vertexStartName, vertexEndName, null);
+        if (epoch == this.modificationEpoch.get())
+            cache.put(PathCache.QueryType.ALL_PATHS, vertexStartName, vertexEndName, epoch, result);
+        return result;
+    }
     /**
-     *
-     * @param vertexStart
-     * @param vertexDestination
-     * @param visitedVertices
-     * @return
+     * Same as `findAllPaths`, but the search is split across the threads of a ForkJoinPool.
+     * This is worth doing when there are a very large number of paths to find. The paths are
+     * returned in the same order as `findAllPaths` returns them.
+     * The Graph must not be changed while the search is running.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @param pool : [optional] The ForkJoinPool to run the search in. Defaults to the common pool.
+     * @param stats : [optional] Where to count the work done by the search, on every thread together
+     * @return A List of Path objects
      */
-    private ArrayList<Edge> shortestPathSearchForDestination(Vertex vertexStart, Vertex vertexDestination, ArrayList<Vertex> visitedVertices) {
-        classLogger.debug(
-            "At vertex '{}', looking for path to vertex '{}'",
-            vertexStart.getLabel(), vertexDestination.getLabel()
-        );
-        ArrayList<Edge> foundPath = new ArrayList<>();
-        int lowestTotalCost = -1;
-
-        ArrayList<Vertex> newVisitedVertices;
-        if (visitedVertices == null)
-            newVisitedVertices = new ArrayList<>();
-        else
-            newVisitedVertices = new ArrayList<>(visitedVertices);
-        newVisitedVertices.add(vertexStart);
-        classLogger.trace("Already visited vertices | '{}'", newVisitedVertices);
+    public List<Path> findAllPathsParallel(String vertexStartName, String vertexEndName, ForkJoinPool pool, QueryStats stats) {
+        Vertex vertexStart = this.getVertex(vertexStartName);
+        Vertex vertexEnd = this.getVertex(vertexEndName);
+        if (vertexStart == vertexEnd) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        if (vertexStart == null || vertexEnd == null) {
+            classLogger.debug("One of the given vertices does not exist. No paths can exist.");
+            return Collections.emptyList();
+        }
 
-        for (Edge anEdge: vertexStart.getEdges()) {
-            classLogger.trace(
-                "Processing Edge '{}' ({} -> {})",
-                anEdge.getLabel(), anEdge.getVertexStart().getLabel(), anEdge.getVertexEnd().getLabel()
+        classLogger.debug("Splitting the search for every path across {} threads.", pool.getParallelism());
+        QueryStats queryStats = this.startQuery(stats);
+        try {
+            return Collections.unmodifiableList(
+                pool.invoke(new ParallelAllPathsTask(vertexStart, vertexEnd, queryStats))
             );
-            //If we have already visited the vertex, skip doing anything more
-            if (newVisitedVertices.contains(anEdge.getVertexEnd())) {
-                classLogger.trace("Edge ends at a Vertex we have already visited. Skipping Edge...");
-                continue;
-            }
+        }
+        finally {
+            this.finishQuery(QueryMetrics.QueryType.ALL_PATHS, queryStats);
+        }
+    }
+    public List<Path> findAllPathsParallel(String vertexStartName, String vertexEndName, ForkJoinPool pool) {
+        return this.findAllPathsParallel(vertexStartName, vertexEndName, pool, null);
+    }
+    public List<Path> findAllPathsParallel(String vertexStartName, String vertexEndName) {
+        return this.findAllPathsParallel(vertexStartName, vertexEndName, ForkJoinPool.commonPool(), null);
+    }
+    /**
+     * Works out the shortest path between every pair of vertices at once, using a snapshot of
+     * the Graph as it is right now (see `GraphSnapshot.findAllShortestPaths`).
+     * @param pool : [optional] The ForkJoinPool to do the work in. Defaults to the common pool.
+     * @return An AllPairsShortestPaths object, with the cost and next hop of every shortest path
+     */
+    public AllPairsShortestPaths findAllShortestPaths(ForkJoinPool pool) {
+        return this.freeze().findAllShortestPaths(pool);
+    }
+    public AllPairsShortestPaths findAllShortestPaths() {
+        return this.findAllShortestPaths(ForkJoinPool.commonPool());
+    }
+    /**
+     * Builds a contraction hierarchy of the Graph as it is right now, which answers shortest path
+     * queries far more quickly than `findShortestPath`, at the cost of preprocessing up front.
+     * This is only worth it for a Graph that rarely changes: once the Graph is changed, the
+     * hierarchy refuses to answer any more queries.
+     * @return A ContractionHierarchy object, which also reports its preprocessing time and shortcut count
+     */
+    public ContractionHierarchy buildContractionHierarchy() {
+        classLogger.debug("Building contraction hierarchy of {} vertices", this.vertices.size());
+        return ContractionHierarchy.build(this, this.indexedVertices);
+    }
+    /**
+     * Finds all possible paths from the Vertex A to Vertex B one at a time, as they are asked for.
+     * The paths are the same (and in the same order) as the ones `findAllPaths` returns, but only
+     * the path currently being built is held in memory. This makes it possible to stop early,
+     * or to go through more paths than would fit in memory at once.
+     * The Graph must not be changed while the paths are being iterated.
+     * If query metrics are enabled, the search is added to them once every path has been gone
+     * through (and its wall time includes the time the caller spent between paths). A search
+     * that is stopped early is not added.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return An Iterator of Path objects
+     */
+    public Iterator<Path> iterateAllPaths(String vertexStartName, String vertexEndName) {
+        Vertex vertexStart = this.getVertex(vertexStartName);
+        Vertex vertexEnd = this.getVertex(vertexEndName);
+        if (vertexStart == vertexEnd) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        QueryStats queryStats = this.startQuery(null);
+        Iterator<Path> foundPaths = new AllPathsIterator(vertexStart, vertexEnd, queryStats);
+        if (queryStats == null)
+            return foundPaths;
+        return new Iterator<>() {
+            private boolean finished = false;
 
-            ArrayList<Edge> itsAPath;
-            int thisPathCost = 0;
-            if (anEdge.getVertexEnd() == vertexDestination) {
-                classLogger.trace("Edge ends at our destination. Building a new possible path.");
-                itsAPath = new ArrayList<>();
-                itsAPath.add(anEdge);
-                thisPathCost = anEdge.getWeight();
-            }
-            else {
-                //Add all other found paths from the Edge's End Vertex
-                itsAPath = shortestPathSearchForDestination(
-                    anEdge.getVertexEnd(), vertexDestination, newVisitedVertices
-                );
-                if (itsAPath == null) {
-                    classLogger.trace("No paths to the destination could be found. Continuing to the next Edge.");
-                    continue;
+            @Override
+            public boolean hasNext() {
+                boolean hasNext = foundPaths.hasNext();
+                if (!hasNext && !this.finished) {
+                    this.finished = true;
+                    Graph.this.finishQuery(QueryMetrics.QueryType.ALL_PATHS, queryStats);
                 }
-                for (Edge pathEdge: itsAPath) { thisPathCost += pathEdge.getWeight(); }
-                //And now add the Edge we are currently on
-                itsAPath.add(0, anEdge);
-                thisPathCost += anEdge.getWeight();
+                return hasNext;
             }
 
-            classLogger.trace("Testing that we found a path to compare with what the current shortest is.");
-            if (itsAPath.size() == 0) {
-                classLogger.trace("No path to destination from here. Continuing to next edge");
-                continue;
+            @Override
+            public Path next() {
+                if (!this.hasNext())
+                    throw new NoSuchElementException("There are no more paths to the destination.");
+                return foundPaths.next();
             }
+        };
+    }
+    /**
+     * Same as `iterateAllPaths`, but as a sequential Stream, so that it can be used with
+     * `limit`, `filter`, `findFirst`, and so on.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return A Stream of Path objects
+     */
+    public Stream<Path> streamAllPaths(String vertexStartName, String vertexEndName) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                this.iterateAllPaths(vertexStartName, vertexEndName),
+                Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        );
+    }
+
+    /**
+     * Gets the shortest path between the given start and end vertices.
+     * If more than one path has the lowest cost, the path using the fewest Edges is returned.
+     * When given a Heuristic (an estimate of the cost left to reach the destination), the A*
+     * algorithm is used, which expands fewer vertices the better the estimate is.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @param heuristic : [optional] The estimate of each Vertex's cost to the end. Defaults to `Heuristic.NONE`.
+     * @param stats : [optional] Where to count the work done by the search
+     * @return A Path object, the shortest path from Vertex A to Vertex B
+     * @throws ArithmeticException : The shortest path costs more than `Integer.MAX_VALUE`, the most a Path can cost
+     */
+    public Path findShortestPath(String vertexStartName, String vertexEndName, Heuristic heuristic, QueryStats stats) {
+        Vertex vertexStart = this.getVertex(vertexStartName);
+        Vertex vertexEnd = this.getVertex(vertexEndName);
+        if (vertexStart == vertexEnd) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        if (heuristic == null) {
+            throw new IllegalArgumentException("Heuristic cannot be null. Use Heuristic.NONE instead.");
+        }
 
-            classLogger.trace("Comparing the newly constructed path to what is recorded as the shortest.");
-            classLogger.trace(
-                "Current lowest, size={} cost={} | contender, size={} cost={}",
-                foundPath.size(), lowestTotalCost, itsAPath.size(), thisPathCost
+        classLogger.debug("Running {} search to get shortest path.", (heuristic == Heuristic.NONE) ? "Dijkstra" : "A*");
+        ArrayList<Edge> foundPath;
+        QueryStats queryStats = this.startQuery(stats);
+        try {
+            foundPath = DijkstraSearch.findShortestPath(
+                this.indexedVertices, vertexStart, vertexEnd, heuristic, queryStats
             );
-            if (
-                lowestTotalCost == -1 ||
-                    thisPathCost < lowestTotalCost ||
-                    (thisPathCost == lowestTotalCost && itsAPath.size() < foundPath.size())
-                //The use case that I am not able to cover here (based on my current class design)
-                // if when a path of the same weight and number of hops is found. The method will
-                // return whichever one it found first, which may not ALWAYS be the same path.
-            ) {
-                classLogger.trace("We currently do not have a valid shortest path, or the newly found path is shorter");
-                foundPath = new ArrayList<>(itsAPath);
-                lowestTotalCost = thisPathCost;
-            }
         }
-        if (lowestTotalCost == -1) {
-            classLogger.debug("No possible shortest path was found to destination.");
-            return null;
+        finally {
+            this.finishQuery(QueryMetrics.QueryType.SHORTEST_PATH, queryStats);
+        }
+        if (foundPath == null) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
         }
         else {
-            classLogger.debug("Shortest Path found. size={} cost={}", foundPath.size(), lowestTotalCost);
-            return foundPath;
+            classLogger.debug("Found the shortest path | {}", foundPath);
+            return makeIntoPath(foundPath);
         }
     }
+    public Path findShortestPath(String vertexStartName, String vertexEndName, Heuristic heuristic) {
+        return this.findShortestPath(vertexStartName, vertexEndName, heuristic, null);
+    }
+    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+        PathCache cache = this.queryCache;
+        if (cache == null)
+            return this.findShortestPath(vertexStartName, vertexEndName, Heuristic.NONE, null);
+
+        long epoch = this.modificationEpoch.get();
+        Object cachedPath = cache.get(PathCache.QueryType.SHORTEST_PATH, vertexStartName, vertexEndName, epoch);
+        if (cachedPath != null)
+            return (Path) cachedPath;
+        Path foundPath = this.findShortestPath(vertexStartName, vertexEndName, Heuristic.NONE, null);
+        if (epoch == this.modificationEpoch.get())
+            cache.put(PathCache.QueryType.SHORTEST_PATH, vertexStartName, vertexEndName, epoch, foundPath);
+        return foundPath;
+    }
     /**
-     * Gets the shortest path between the given start and end vertices.
+     * Gets the shortest path between the given start and end vertices, searching in the given direction.
+     * A bidirectional search usually expands far fewer vertices on a large Graph, and finds a
+     * path with the same cost and number of Edges as a forward search.
      * @param vertexStartName : The starting point of our path search
      * @param vertexEndName : The Vertex we wish to reach
+     * @param direction : Whether to search forward from the start, or from both ends at once
+     * @param stats : [optional] Where to count the work done by the search
      * @return A Path object, the shortest path from Vertex A to Vertex B
      */
-    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+    public Path findShortestPath(String vertexStartName, String vertexEndName, SearchDirection direction, QueryStats stats) {
+        if (direction == null) {
+            throw new IllegalArgumentException("Search direction cannot be null");
+        }
+        if (direction == SearchDirection.FORWARD) {
+            return this.findShortestPath(vertexStartName, vertexEndName, Heuristic.NONE, stats);
+        }
         Vertex vertexStart = this.getVertex(vertexStartName);
         Vertex vertexEnd = this.getVertex(vertexEndName);
         if (vertexStart == vertexEnd) {
@@ -445,63 +747,138 @@ public class Graph implements Serializable {
             throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
         }
 
-        classLogger.debug("Calling recursive helper function to get shortest path.");
-        ArrayList<Edge> foundPath = shortestPathSearchForDestination(vertexStart, vertexEnd, null);
+        classLogger.debug("Running bidirectional Dijkstra search to get shortest path.");
+        ArrayList<Edge> foundPath;
+        QueryStats queryStats = this.startQuery(stats);
+        try {
+            foundPath = DijkstraSearch.findShortestPathBidirectional(
+                this.indexedVertices, vertexStart, vertexEnd, queryStats
+            );
+        }
+        finally {
+            this.finishQuery(QueryMetrics.QueryType.SHORTEST_PATH, queryStats);
+        }
         if (foundPath == null) {
             classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
             throw new RuntimeException(
                 "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
             );
         }
-        else {
-            classLogger.debug("Found the shortest path | {}", foundPath);
-            return this.makeIntoPath(foundPath);
-        }
+        classLogger.debug("Found the shortest path | {}", foundPath);
+        return makeIntoPath(foundPath);
+    }
+    public Path findShortestPath(String vertexStartName, String vertexEndName, SearchDirection direction) {
+        return this.findShortestPath(vertexStartName, vertexEndName, direction, null);
     }
 
     /**
-     *
-     * @param vertexStart
-     * @param vertexDestination
-     * @param visitedVertices
-     * @return
+     * Gets the k cheapest paths between the given start and end vertices, using Yen's algorithm.
+     * Each path only uses each Vertex once at a maximum, the same as `findAllPaths`, but only
+     * k paths are ever searched for, so this stays quick on a Graph with far too many paths to
+     * list them all. It runs about one `findShortestPath` search per Vertex of each path found.
+     * If more than one path has the same cost, the path using fewer Edges comes first.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @param k : The most paths to return. Must be positive.
+     * @param stats : [optional] Where to count the work done by every search, in total
+     * @return A List of up to k Path objects, cheapest first. Empty if there is no path.
+     * @throws ArithmeticException : One of the k paths costs more than `Integer.MAX_VALUE`, the most a Path can cost
      */
-    private ArrayList<Edge> longestPathSearchForDestination(Vertex vertexStart, Vertex vertexDestination, ArrayList<Vertex> visitedVertices) {
-        ArrayList<Edge> foundPath = new ArrayList<>();
-
-        ArrayList<Vertex> newVisitedVertices;
-        if (visitedVertices == null)
-            newVisitedVertices = new ArrayList<>();
-        else
-            newVisitedVertices = new ArrayList<>(visitedVertices);
-        newVisitedVertices.add(vertexStart);
+    public List<Path> findKShortestPaths(String vertexStartName, String vertexEndName, int k, QueryStats stats) {
+        Vertex vertexStart = this.getVertex(vertexStartName);
+        Vertex vertexEnd = this.getVertex(vertexEndName);
+        if (vertexStart == vertexEnd) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        if (k <= 0) {
+            throw new IllegalArgumentException("Number of paths must be positive");
+        }
+        if (vertexStart == null || vertexEnd == null) {
+            classLogger.debug("One of the given vertices does not exist. No paths can exist.");
+            return Collections.emptyList();
+        }
 
-        //TODO: implement
-        return null;
+        classLogger.debug("Running Yen's search for the {} shortest paths.", k);
+        List<ArrayList<Edge>> foundPaths;
+        QueryStats queryStats = this.startQuery(stats);
+        try {
+            foundPaths = new KShortestPathsSearch(this.indexedVertices, queryStats).search(vertexStart, vertexEnd, k);
+        }
+        finally {
+            this.finishQuery(QueryMetrics.QueryType.K_SHORTEST_PATHS, queryStats);
+        }
+        ArrayList<Path> shortestPaths = new ArrayList<>(foundPaths.size());
+        for (ArrayList<Edge> aPath: foundPaths) {
+            shortestPaths.add(makeIntoPath(aPath));
+        }
+        return Collections.unmodifiableList(shortestPaths);
     }
+    public List<Path> findKShortestPaths(String vertexStartName, String vertexEndName, int k) {
+        return this.findKShortestPaths(vertexStartName, vertexEndName, k, null);
+    }
+
     /**
-     * Finds the longest path between the given start and end vertices.
+     * Finds the longest path between the given start and end vertices. Each Vertex is used once at most.
+     * If the vertices that can be on such a path have no cycles (as in a graph of dependencies),
+     * this runs in O(V+E). Otherwise, a pruned search of the simple paths is used, which stops
+     * after expanding `expansionBudget` vertices or running for `timeBudget`, whichever comes first.
+     * If the search is stopped early, the longest path found so far is returned.
+     * If more than one path has the highest cost, the path using the fewest Edges is returned.
      * @param vertexStartName : The starting point of our path search
      * @param vertexEndName : The Vertex we wish to reach
+     * @param expansionBudget : [optional] The number of vertices a search of a cyclic graph may expand
+     * @param timeBudget : [optional] How long a search of a cyclic graph may run for. Null means no limit.
+     * @param stats : [optional] Where to count the work done by the search
      * @return A Path object, the longest path from Vertex A to Vertex B
      */
-    public Path findLongestPath(String vertexStartName, String vertexEndName) {
+    public Path findLongestPath(
+        String vertexStartName, String vertexEndName, long expansionBudget, Duration timeBudget, QueryStats stats
+    ) {
         Vertex vertexStart = this.getVertex(vertexStartName);
         Vertex vertexEnd = this.getVertex(vertexEndName);
         if (vertexStart == vertexEnd) {
             classLogger.debug("Was given the same vertex for the start and end.");
             throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
         }
+        if (expansionBudget <= 0) {
+            throw new IllegalArgumentException("Expansion budget must be positive");
+        }
 
-        classLogger.debug("Calling recursive helper function to get longest path.");
-        ArrayList<Edge> foundPath = longestPathSearchForDestination(vertexStart, vertexEnd, null);
+        ArrayList<Edge> foundPath = null;
+        if (vertexStart != null && vertexEnd != null) {
+            classLogger.debug("Running longest path search.");
+            int[] edgeIds;
+            LongestPathSearch search;
+            QueryStats queryStats = this.startQuery(stats);
+            try {
+                search = LongestPathSearch.forVertices(this.indexedVertices);
+                edgeIds = search.search(vertexStart.getIndex(), vertexEnd.getIndex(), expansionBudget, timeBudget, queryStats);
+            }
+            finally {
+                this.finishQuery(QueryMetrics.QueryType.LONGEST_PATH, queryStats);
+            }
+            if (edgeIds != null)
+                foundPath = search.toEdges(edgeIds);
+            else if (search.isBudgetExhausted())
+                throw new RuntimeException(
+                    "Ran out of budget before finding a path from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+                );
+        }
         if (foundPath == null) {
             classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
             throw new RuntimeException(
                 "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
             );
         }
-        return this.makeIntoPath(foundPath);
+        classLogger.debug("Found the longest path | {}", foundPath);
+        return makeIntoPath(foundPath);
+    }
+    public Path findLongestPath(String vertexStartName, String vertexEndName, long expansionBudget, Duration timeBudget) {
+        return this.findLongestPath(vertexStartName, vertexEndName, expansionBudget, timeBudget, null);
+    }
+    public Path findLongestPath(String vertexStartName, String vertexEndName) {
+        return this.findLongestPath(vertexStartName, vertexEndName, LongestPathSearch.DEFAULT_EXPANSION_BUDGET, null, null);
     }
 
 }
@@ -0,0 +1,212 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Collects vertices and Edges, and builds them into a Graph all at once (see `Graph.builder`).
+ * Adding a Vertex or Edge here only records it. None of the checks that `Graph.addVertex` and
+ * `Graph.addEdge` make for every call (and none of their logging) happen until `build`, which
+ * makes a single pass over everything:
+ *  - vertex labels are put into a hash map, which finds any duplicate labels,
+ *  - the Edges are grouped by the Vertex they start at (a counting sort),
+ *  - duplicate Edges are found with a stamp per Vertex, and the last one added wins (the same as
+ *    calling `Graph.addEdge` again would update it).
+ * So building a Graph takes time in proportion to V+E, rather than searching for each Edge.
+ * The rules are the same as adding to a Graph one at a time: labels must be unique, Edges must
+ * be between vertices that were added, and weights cannot be negative.
+ */
+public class GraphBuilder {
+
+    static final Logger classLogger = LogManager.getLogger(GraphBuilder.class);
+    //Instance variables, for recording every Vertex label and Edge, in the order they were added
+    private final ArrayList<String> vertexLabels;
+    private final ArrayList<String> edgeStarts;
+    private final ArrayList<String> edgeEnds;
+    private final ArrayList<String> edgeLabels;
+    private int[] edgeWeights;
+
+    /**
+     * Constructor for a new, empty GraphBuilder
+     */
+    GraphBuilder () {
+        this.vertexLabels = new ArrayList<>();
+        this.edgeStarts = new ArrayList<>();
+        this.edgeEnds = new ArrayList<>();
+        this.edgeLabels = new ArrayList<>();
+        this.edgeWeights = new int[16];
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Adding vertices and Edges
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public int getNumberOfVertices() { return this.vertexLabels.size(); }
+    public int getNumberOfEdges() { return this.edgeStarts.size(); }
+
+    /**
+     * Records a new Vertex. Duplicate labels are only found by `build`.
+     * @param newVertexName : The name of the Vertex. Must be UNIQUE
+     * @return This GraphBuilder, so that calls can be chained
+     */
+    public GraphBuilder addVertex(String newVertexName) {
+        if (newVertexName == null)
+            throw new IllegalArgumentException("Vertex cannot have a 'null' label.");
+        this.vertexLabels.add(newVertexName);
+        return this;
+    }
+    public GraphBuilder addVertices(Iterable<String> newVertexNames) {
+        for (String newVertexName: newVertexNames) {
+            this.addVertex(newVertexName);
+        }
+        return this;
+    }
+
+    /**
+     * Records a new Edge. Whether its vertices exist is only checked by `build`.
+     * @param vertexStartName : The starting point of the Edge
+     * @param vertexEndName : The end point of the Edge
+     * @param weight : [optional] The weight of the Edge. Default to '0'
+     * @param label : [optional] The label for the Edge. Defaults to "An Edge"
+     * @return This GraphBuilder, so that calls can be chained
+     */
+    public GraphBuilder addEdge(String vertexStartName, String vertexEndName, int weight, String label) {
+        if (weight < 0)
+            throw new IllegalArgumentException("Edge cannot have a negative weight.");
+        int edgeId = this.edgeStarts.size();
+        if (edgeId == this.edgeWeights.length)
+            this.edgeWeights = Arrays.copyOf(this.edgeWeights, edgeId * 2);
+        this.edgeWeights[edgeId] = weight;
+        this.edgeStarts.add(vertexStartName);
+        this.edgeEnds.add(vertexEndName);
+        this.edgeLabels.add(label);
+        return this;
+    }
+    public GraphBuilder addEdge(String vertexStartName, String vertexEndName, int weight) {
+        return this.addEdge(vertexStartName, vertexEndName, weight, Graph.EDGE_DEFAULT_LABEL);
+    }
+    public GraphBuilder addEdge(String vertexStartName, String vertexEndName) {
+        return this.addEdge(vertexStartName, vertexEndName, Graph.EDGE_DEFAULT_WEIGHT, Graph.EDGE_DEFAULT_LABEL);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Building the Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Builds a new Graph out of everything added so far. The builder can keep being used
+     * afterwards, and every call to `build` makes a new, separate Graph.
+     * @return A Graph, with every Vertex indexed and every Edge in place
+     * @throws IllegalArgumentException : Two vertices have the same label, or an Edge uses a Vertex that was not added
+     */
+    public Graph build() {
+        int numberOfVertices = this.vertexLabels.size();
+        int numberOfEdges = this.edgeStarts.size();
+        classLogger.debug("Building Graph of {} vertices and {} edges", numberOfVertices, numberOfEdges);
+
+        HashMap<String, Integer> vertexIds = new HashMap<>(Math.max(16, (int) (numberOfVertices / 0.75f) + 1));
+        ArrayList<Vertex> newVertices = new ArrayList<>(numberOfVertices);
+        for (String vertexLabel: this.vertexLabels) {
+            if (vertexIds.putIfAbsent(vertexLabel, newVertices.size()) != null)
+                throw new IllegalArgumentException(
+                    "A Vertex with the name %s was added more than once.".formatted( vertexLabel )
+                );
+            newVertices.add(new Vertex(vertexLabel));
+        }
+
+        //Look up both ends of every Edge
+        int[] starts = new int[numberOfEdges];
+        int[] ends = new int[numberOfEdges];
+        for (int e = 0; e < numberOfEdges; e++) {
+            starts[e] = this.lookUp(vertexIds, this.edgeStarts.get(e));
+            ends[e] = this.lookUp(vertexIds, this.edgeEnds.get(e));
+        }
+        return assemble(newVertices, starts, ends, this.edgeWeights, this.edgeLabels, numberOfEdges);
+    }
+
+    /**
+     * Links new vertices together with the given Edges (by Vertex id, which is the position in
+     * `newVertices`), and puts them into a new Graph. When there is more than one Edge between
+     * the same two vertices, the last one wins.
+     * @param newVertices : The vertices of the Graph, with unique labels and no Edges yet
+     * @param starts : The id of the Vertex each Edge starts at
+     * @param ends : The id of the Vertex each Edge ends at
+     * @param weights : The weight of each Edge
+     * @param labels : [nullable] The label of each Edge. Null gives every Edge the default label.
+     * @param numberOfEdges : The number of Edges to use from the arrays
+     * @return A Graph, with every Vertex indexed and every Edge in place
+     */
+    static Graph assemble(ArrayList<Vertex> newVertices, int[] starts, int[] ends, int[] weights,
+                          List<String> labels, int numberOfEdges) {
+        int numberOfVertices = newVertices.size();
+        //Count the Edges leaving each Vertex
+        int[] offsets = new int[numberOfVertices + 1];
+        for (int e = 0; e < numberOfEdges; e++) {
+            offsets[starts[e] + 1]++;
+        }
+        for (int v = 0; v < numberOfVertices; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        //Group the Edges by the Vertex they start at, keeping the order they were added in
+        int[] grouped = new int[numberOfEdges];
+        int[] fill = Arrays.copyOf(offsets, numberOfVertices);
+        for (int e = 0; e < numberOfEdges; e++) {
+            grouped[fill[starts[e]]++] = e;
+        }
+
+        //`seenFrom[t] == s` means an Edge from `s` to `t` has already been seen, at `seenAt[t]`
+        int[] seenFrom = new int[numberOfVertices];
+        int[] seenAt = new int[numberOfVertices];
+        Arrays.fill(seenFrom, -1);
+        int[] kept = new int[numberOfEdges];
+        int numberKept = 0;
+        for (int s = 0; s < numberOfVertices; s++) {
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                int e = grouped[i];
+                int t = ends[e];
+                if (seenFrom[t] == s) {
+                    kept[seenAt[t]] = e;
+                    continue;
+                }
+                seenFrom[t] = s;
+                seenAt[t] = numberKept;
+                kept[numberKept++] = e;
+            }
+        }
+
+        for (int i = 0; i < numberKept; i++) {
+            int e = kept[i];
+            Vertex vertexStart = newVertices.get(starts[e]);
+            Vertex vertexEnd = newVertices.get(ends[e]);
+            String label = (labels == null) ? Graph.EDGE_DEFAULT_LABEL : labels.get(e);
+            Edge newEdge = new Edge(vertexStart, vertexEnd, weights[e], label, false);
+            vertexStart.addEdgeUnchecked(newEdge);
+            vertexEnd.addIncomingEdgeUnchecked(newEdge);
+        }
+        classLogger.debug("Dropped {} duplicate edges", numberOfEdges - numberKept);
+
+        Graph newGraph = new Graph(numberOfVertices);
+        newGraph.addVerticesUnchecked(newVertices);
+        return newGraph;
+    }
+
+    private int lookUp(HashMap<String, Integer> vertexIds, String vertexName) {
+        Integer id = vertexIds.get(vertexName);
+        if (id == null)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexName )
+            );
+        return id;
+    }
+
+}
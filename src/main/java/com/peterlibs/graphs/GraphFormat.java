@@ -0,0 +1,408 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+/**
+ * Reads and writes a Graph in a compact, versioned binary format.
+ * Every label (of a Vertex or an Edge) is written once, in a table of strings, and everything
+ * else refers to a label by its position in that table. The Edges are written in CSR form (see
+ * `GraphSnapshot`), as flat arrays of ints. Every number is a little-endian int, and every
+ * section starts on a 4 byte boundary, so the file can also be mapped into memory and read in
+ * place (see `MappedGraph`).
+ *
+ * Layout of version 2:
+ *  - header (32 bytes): magic, version, V, E, number of strings S, number of string bytes B,
+ *    and 8 reserved bytes,
+ *  - vertex label ids [V],
+ *  - vertex ids sorted by their label's UTF-8 bytes [V], so that a Vertex can be found by a
+ *    binary search of the file, without loading every label (version 1 does not have this),
+ *  - Edge offsets [V+1] (the Edges leaving Vertex `v` are at `offsets[v]` up to `offsets[v+1]`),
+ *  - Edge targets [E], Edge weights [E], Edge label ids [E] (-1 for a null label),
+ *  - string offsets [S+1] (string `s` is bytes `stringOffsets[s]` up to `stringOffsets[s+1]`),
+ *  - string bytes [B], in UTF-8.
+ * Vertices are numbered in the order they were added to the Graph, so a Graph that is written
+ * and read back has the same vertices and Edges, in the same order.
+ */
+class GraphFormat {
+
+    static final Logger classLogger = LogManager.getLogger(GraphFormat.class);
+    static final int MAGIC = 0x48505247; //"GRPH", when read as little-endian bytes
+    static final int VERSION = 2;
+    static final int VERSION_WITHOUT_LABEL_ORDER = 1;
+    static final int HEADER_BYTES = 32;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    //The most ints (or bytes) a section can hold, which is the longest array the JVM can make
+    static final int MAX_SECTION_LENGTH = Integer.MAX_VALUE - 8;
+
+    private GraphFormat () {}
+
+    /**
+     * Writes the given vertices, and the Edges leaving them, to the channel.
+     * @param vertices : The vertices of the Graph, in the order they should be numbered
+     * @param channel : Where to write the Graph. It is not closed.
+     */
+    static void write(Collection<Vertex> vertices, WritableByteChannel channel) throws IOException {
+        int numberOfVertices = vertices.size();
+        HashMap<Vertex, Integer> vertexIds = new HashMap<>(Math.max(16, (int) (numberOfVertices / 0.75f) + 1));
+        HashMap<String, Integer> stringIds = new HashMap<>();
+        ArrayList<byte[]> strings = new ArrayList<>();
+        int[] vertexLabelIds = new int[numberOfVertices];
+        int numberOfEdges = 0;
+        for (Vertex aVertex: vertices) {
+            vertexLabelIds[vertexIds.size()] = addString(aVertex.getLabel(), stringIds, strings);
+            vertexIds.put(aVertex, vertexIds.size());
+            numberOfEdges += aVertex.getEdgesInternal().size();
+        }
+        int[] offsets = new int[numberOfVertices + 1];
+        int[] targets = new int[numberOfEdges];
+        int[] weights = new int[numberOfEdges];
+        int[] edgeLabelIds = new int[numberOfEdges];
+        int edgeId = 0;
+        int vertexId = 0;
+        for (Vertex aVertex: vertices) {
+            offsets[vertexId++] = edgeId;
+            for (Edge anEdge: aVertex.getEdgesInternal()) {
+                targets[edgeId] = vertexIds.get(anEdge.getVertexEnd());
+                weights[edgeId] = anEdge.getWeight();
+                edgeLabelIds[edgeId] = addString(anEdge.getLabel(), stringIds, strings);
+                edgeId++;
+            }
+        }
+        offsets[numberOfVertices] = edgeId;
+        int[] stringOffsets = new int[strings.size() + 1];
+        for (int s = 0; s < strings.size(); s++) {
+            stringOffsets[s + 1] = stringOffsets[s] + strings.get(s).length;
+        }
+        Integer[] sortedIds = new Integer[numberOfVertices];
+        for (int v = 0; v < numberOfVertices; v++) {
+            sortedIds[v] = v;
+        }
+        Arrays.sort(sortedIds, (a, b) -> Arrays.compareUnsigned(strings.get(vertexLabelIds[a]), strings.get(vertexLabelIds[b])));
+        int[] labelOrder = new int[numberOfVertices];
+        for (int v = 0; v < numberOfVertices; v++) {
+            labelOrder[v] = sortedIds[v];
+        }
+        classLogger.debug(
+            "Writing Graph of {} vertices, {} edges and {} distinct labels",
+            numberOfVertices, numberOfEdges, strings.size()
+        );
+
+        ChannelWriter writer = new ChannelWriter(channel);
+        writer.putInt(MAGIC);
+        writer.putInt(VERSION);
+        writer.putInt(numberOfVertices);
+        writer.putInt(numberOfEdges);
+        writer.putInt(strings.size());
+        writer.putInt(stringOffsets[strings.size()]);
+        writer.putInt(0);
+        writer.putInt(0);
+        writer.putInts(vertexLabelIds);
+        writer.putInts(labelOrder);
+        writer.putInts(offsets);
+        writer.putInts(targets);
+        writer.putInts(weights);
+        writer.putInts(edgeLabelIds);
+        writer.putInts(stringOffsets);
+        for (byte[] aString: strings) {
+            writer.putBytes(aString);
+        }
+        writer.flush();
+    }
+
+    private static int addString(String aString, HashMap<String, Integer> stringIds, ArrayList<byte[]> strings) {
+        if (aString == null)
+            return -1;
+        Integer id = stringIds.get(aString);
+        if (id == null) {
+            id = strings.size();
+            stringIds.put(aString, id);
+            strings.add(aString.getBytes(StandardCharsets.UTF_8));
+        }
+        return id;
+    }
+
+    /**
+     * Works out how long a file with the given header is
+     * @return The number of bytes in the file, header included
+     */
+    static long fileBytes(int version, int numberOfVertices, int numberOfEdges, int numberOfStrings, int numberOfStringBytes) {
+        long vertexInts = (version == VERSION_WITHOUT_LABEL_ORDER) ? numberOfVertices : 2L * numberOfVertices;
+        long ints = vertexInts + (numberOfVertices + 1L) + 3L * numberOfEdges + (numberOfStrings + 1L);
+        return HEADER_BYTES + ints * Integer.BYTES + numberOfStringBytes;
+    }
+
+    /**
+     * Reads a Graph written by `write` from the channel.
+     * The section sizes in the header are checked against the size of the channel when it has
+     * one (such as a FileChannel). Otherwise, each section is read into an array that grows as
+     * its ints arrive, so a corrupt header runs out of input long before it runs out of memory.
+     * @param channel : Where to read the Graph from. It is not closed.
+     * @return A new Graph
+     * @throws IOException : The channel could not be read, or does not hold a valid Graph
+     */
+    static Graph read(ReadableByteChannel channel) throws IOException {
+        long startPosition = (channel instanceof SeekableByteChannel seekable) ? seekable.position() : -1;
+        ChannelReader reader = new ChannelReader(channel);
+        if (reader.getInt() != MAGIC)
+            throw new IOException("Not a Graph file: the magic number does not match");
+        int version = reader.getInt();
+        if (version != VERSION && version != VERSION_WITHOUT_LABEL_ORDER)
+            throw new IOException("Unsupported Graph file version %d".formatted( version ));
+        int numberOfVertices = reader.getInt();
+        int numberOfEdges = reader.getInt();
+        int numberOfStrings = reader.getInt();
+        int numberOfStringBytes = reader.getInt();
+        reader.getInt();
+        reader.getInt();
+        if (numberOfVertices < 0 || numberOfEdges < 0 || numberOfStrings < 0 || numberOfStringBytes < 0)
+            throw new IOException("Corrupt Graph file: negative section size");
+        //The offset sections hold one more int than there are vertices (or strings)
+        if (numberOfVertices >= MAX_SECTION_LENGTH || numberOfEdges > MAX_SECTION_LENGTH
+                || numberOfStrings >= MAX_SECTION_LENGTH || numberOfStringBytes > MAX_SECTION_LENGTH)
+            throw new IOException("Corrupt Graph file: section too large to read");
+        if (startPosition != -1) {
+            long expectedBytes = fileBytes(version, numberOfVertices, numberOfEdges, numberOfStrings, numberOfStringBytes);
+            long availableBytes = ((SeekableByteChannel) channel).size() - startPosition;
+            if (availableBytes < expectedBytes)
+                throw new IOException(
+                    "Corrupt Graph file: expected %d bytes, found %d".formatted( expectedBytes, availableBytes )
+                );
+        }
+
+        int[] vertexLabelIds = reader.getInts(numberOfVertices);
+        if (version != VERSION_WITHOUT_LABEL_ORDER)
+            reader.getInts(numberOfVertices); //Only needed when searching the file in place
+        int[] offsets = reader.getInts(numberOfVertices + 1);
+        int[] targets = reader.getInts(numberOfEdges);
+        int[] weights = reader.getInts(numberOfEdges);
+        int[] edgeLabelIds = reader.getInts(numberOfEdges);
+        int[] stringOffsets = reader.getInts(numberOfStrings + 1);
+        byte[] stringBytes = reader.getBytes(numberOfStringBytes);
+
+        String[] strings = new String[numberOfStrings];
+        for (int s = 0; s < numberOfStrings; s++) {
+            if (stringOffsets[s] < 0 || stringOffsets[s] > stringOffsets[s + 1] || stringOffsets[s + 1] > numberOfStringBytes)
+                throw new IOException("Corrupt Graph file: bad string offset");
+            strings[s] = new String(stringBytes, stringOffsets[s], stringOffsets[s + 1] - stringOffsets[s], StandardCharsets.UTF_8);
+        }
+        ArrayList<Vertex> newVertices = new ArrayList<>(numberOfVertices);
+        HashMap<String, Integer> seenLabels = new HashMap<>(Math.max(16, (int) (numberOfVertices / 0.75f) + 1));
+        for (int v = 0; v < numberOfVertices; v++) {
+            String vertexLabel = lookUpString(strings, vertexLabelIds[v]);
+            if (vertexLabel == null || seenLabels.put(vertexLabel, v) != null)
+                throw new IOException("Corrupt Graph file: missing or repeated Vertex label");
+            newVertices.add(new Vertex(vertexLabel));
+        }
+        if (offsets[0] != 0 || offsets[numberOfVertices] != numberOfEdges)
+            throw new IOException("Corrupt Graph file: bad Edge offsets");
+        for (int v = 0; v < numberOfVertices; v++) {
+            if (offsets[v] > offsets[v + 1])
+                throw new IOException("Corrupt Graph file: bad Edge offsets");
+            Vertex vertexStart = newVertices.get(v);
+            for (int e = offsets[v]; e < offsets[v + 1]; e++) {
+                if (targets[e] < 0 || targets[e] >= numberOfVertices || weights[e] < 0)
+                    throw new IOException("Corrupt Graph file: bad Edge %d".formatted( e ));
+                Vertex vertexEnd = newVertices.get(targets[e]);
+                Edge newEdge = new Edge(vertexStart, vertexEnd, weights[e], lookUpString(strings, edgeLabelIds[e]), false);
+                vertexStart.addEdgeUnchecked(newEdge);
+                vertexEnd.addIncomingEdgeUnchecked(newEdge);
+            }
+        }
+        classLogger.debug("Read Graph of {} vertices and {} edges", numberOfVertices, numberOfEdges);
+
+        Graph newGraph = new Graph(numberOfVertices);
+        newGraph.addVerticesUnchecked(newVertices);
+        return newGraph;
+    }
+
+    private static String lookUpString(String[] strings, int stringId) throws IOException {
+        if (stringId == -1)
+            return null;
+        if (stringId < 0 || stringId >= strings.length)
+            throw new IOException("Corrupt Graph file: bad string id %d".formatted( stringId ));
+        return strings[stringId];
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Buffered channel reading and writing
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * Collects ints and bytes in a direct buffer, and hands the buffer to the channel whenever it
+     * fills up. Also used to write edge lists (see `EdgeListFormat`).
+     */
+    static final class ChannelWriter {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelWriter (WritableByteChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(BYTE_ORDER);
+        }
+
+        void putByte(byte value) throws IOException {
+            if (!this.buffer.hasRemaining())
+                this.flush();
+            this.buffer.put(value);
+        }
+        void putInt(int value) throws IOException {
+            if (this.buffer.remaining() < Integer.BYTES)
+                this.flush();
+            this.buffer.putInt(value);
+        }
+        void putInts(int[] values) throws IOException {
+            int written = 0;
+            while (written < values.length) {
+                if (this.buffer.remaining() < Integer.BYTES)
+                    this.flush();
+                int count = Math.min(values.length - written, this.buffer.remaining() / Integer.BYTES);
+                this.buffer.asIntBuffer().put(values, written, count);
+                this.buffer.position(this.buffer.position() + count * Integer.BYTES);
+                written += count;
+            }
+        }
+        void putBytes(byte[] values) throws IOException {
+            this.putBytes(values, 0, values.length);
+        }
+        void putBytes(byte[] values, int offset, int length) throws IOException {
+            int written = 0;
+            while (written < length) {
+                if (!this.buffer.hasRemaining())
+                    this.flush();
+                int count = Math.min(length - written, this.buffer.remaining());
+                this.buffer.put(values, offset + written, count);
+                written += count;
+            }
+        }
+        void flush() throws IOException {
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.channel.write(this.buffer);
+            }
+            this.buffer.clear();
+        }
+    }
+
+    /**
+     * Reads from the channel into a direct buffer as it is needed
+     */
+    private static final class ChannelReader {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer;
+
+        ChannelReader (ReadableByteChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(BYTE_ORDER);
+            this.buffer.limit(0);
+        }
+
+        /**
+         * Makes sure at least the given number of bytes are waiting in the buffer
+         */
+        private void require(int numberOfBytes) throws IOException {
+            if (this.buffer.remaining() >= numberOfBytes)
+                return;
+            this.buffer.compact();
+            while (this.buffer.position() < numberOfBytes) {
+                if (this.channel.read(this.buffer) == -1)
+                    throw new EOFException("Graph file ended early");
+            }
+            this.buffer.flip();
+        }
+
+        int getInt() throws IOException {
+            this.require(Integer.BYTES);
+            return this.buffer.getInt();
+        }
+        /**
+         * Reads the given number of ints. The array starts at the size of the buffer and doubles
+         * as it fills, so that a count that is far more than the channel holds fails with an
+         * EOFException, instead of allocating the whole count up front.
+         */
+        int[] getInts(int count) throws IOException {
+            int[] values = new int[Math.min(count, BUFFER_BYTES / Integer.BYTES)];
+            int read = 0;
+            while (read < count) {
+                if (read == values.length)
+                    values = Arrays.copyOf(values, (int) Math.min(count, 2L * values.length));
+                this.require(Integer.BYTES);
+                int available = Math.min(values.length - read, this.buffer.remaining() / Integer.BYTES);
+                this.buffer.asIntBuffer().get(values, read, available);
+                this.buffer.position(this.buffer.position() + available * Integer.BYTES);
+                read += available;
+            }
+            return values;
+        }
+        byte[] getBytes(int count) throws IOException {
+            byte[] values = new byte[Math.min(count, BUFFER_BYTES)];
+            int read = 0;
+            while (read < count) {
+                if (read == values.length)
+                    values = Arrays.copyOf(values, (int) Math.min(count, 2L * values.length));
+                this.require(1);
+                int available = Math.min(values.length - read, this.buffer.remaining());
+                this.buffer.get(values, read, available);
+                read += available;
+            }
+            return values;
+        }
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Java serialization
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    /**
+     * What a Graph is replaced with when written with an `ObjectOutputStream`: the Graph in this
+     * binary format, as a single byte array. This keeps Java serialization from walking the
+     * object web recursively (which can overflow the stack on a long chain of vertices).
+     */
+    static final class SerializedGraph implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final byte[] data;
+
+        SerializedGraph (Collection<Vertex> vertices) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            write(vertices, Channels.newChannel(bytes));
+            this.data = bytes.toByteArray();
+        }
+
+        private Object readResolve() throws ObjectStreamException {
+            try {
+                return read(Channels.newChannel(new ByteArrayInputStream(this.data)));
+            }
+            catch (IOException e) {
+                InvalidObjectException invalid = new InvalidObjectException("Could not read serialized Graph");
+                invalid.initCause(e);
+                throw invalid;
+            }
+        }
+    }
+
+}
@@ -0,0 +1,230 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * Makes large, made-up graphs for load and scaling tests. Every generator takes a seed, and the
+ * same arguments and seed always make exactly the same Graph.
+ * The Edges are made up as arrays of Vertex ids, and built straight into a Graph the same way
+ * `GraphBuilder.build` does (without looking up a label for every Edge), so graphs with tens of
+ * millions of Edges take seconds rather than minutes. Weights are picked uniformly between 1 and
+ * the given maximum. The random generators never make an Edge from a Vertex to itself, and when
+ * they pick the same Edge twice only one is kept, so a Graph may have a few less Edges than asked for.
+ */
+public final class GraphGenerators {
+
+    static final Logger classLogger = LogManager.getLogger(GraphGenerators.class);
+    //Every this many rows and columns of a road grid is a highway, with cheaper Edges
+    static final int HIGHWAY_SPACING = 10;
+    static final int HIGHWAY_DISCOUNT = 4;
+
+    private GraphGenerators () {}
+
+    /**
+     * Makes an Erdos-Renyi random graph, G(n, m): every Edge is between two vertices picked
+     * uniformly at random. Vertices are labeled "v0" up to "v{n-1}".
+     * @param numberOfVertices : The number of vertices (n). Must be at least 2.
+     * @param numberOfEdges : The number of Edges to pick (m)
+     * @param maxWeight : The highest weight an Edge can have. Must be at least 1.
+     * @param seed : The seed for the random numbers
+     * @return A new Graph
+     */
+    public static Graph erdosRenyi(int numberOfVertices, int numberOfEdges, int maxWeight, long seed) {
+        checkArguments(numberOfVertices, numberOfEdges, maxWeight);
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeArrays edges = new EdgeArrays(numberOfEdges);
+        for (int e = 0; e < numberOfEdges; e++) {
+            int start = random.nextInt(numberOfVertices);
+            //Pick from every Vertex but the start, so there are no loops
+            int end = random.nextInt(numberOfVertices - 1);
+            if (end >= start)
+                end++;
+            edges.add(start, end, 1 + random.nextInt(maxWeight));
+        }
+        return edges.build(numberedLabels(numberOfVertices));
+    }
+
+    /**
+     * Makes an R-MAT graph, which has a power-law spread of degrees like many real networks
+     * (a few vertices with a huge number of Edges, most with very few). Each Edge is placed by
+     * splitting the adjacency matrix into quarters `scale` times, picking the top-left, top-right,
+     * bottom-left or bottom-right quarter with the chances a, b, c and 1-a-b-c.
+     * Vertices are labeled "v0" up to "v{2^scale - 1}".
+     * @param scale : The log2 of the number of vertices. Must be between 1 and 30.
+     * @param numberOfEdges : The number of Edges to pick
+     * @param a : [optional] The chance of the top-left quarter. Defaults to 0.57
+     * @param b : [optional] The chance of the top-right quarter. Defaults to 0.19
+     * @param c : [optional] The chance of the bottom-left quarter. Defaults to 0.19
+     * @param maxWeight : The highest weight an Edge can have. Must be at least 1.
+     * @param seed : The seed for the random numbers
+     * @return A new Graph
+     */
+    public static Graph rmat(int scale, int numberOfEdges, double a, double b, double c, int maxWeight, long seed) {
+        if (scale < 1 || scale > 30)
+            throw new IllegalArgumentException("Scale must be between 1 and 30");
+        if (a < 0 || b < 0 || c < 0 || a + b + c > 1)
+            throw new IllegalArgumentException("Quarter chances must not be negative, and must add up to at most 1");
+        int numberOfVertices = 1 << scale;
+        checkArguments(numberOfVertices, numberOfEdges, maxWeight);
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeArrays edges = new EdgeArrays(numberOfEdges);
+        double ab = a + b;
+        double abc = a + b + c;
+        for (int e = 0; e < numberOfEdges; e++) {
+            int start = 0;
+            int end = 0;
+            for (int bit = scale - 1; bit >= 0; bit--) {
+                double quarter = random.nextDouble();
+                if (quarter >= ab)
+                    start |= 1 << bit;
+                if ((quarter >= a && quarter < ab) || quarter >= abc)
+                    end |= 1 << bit;
+            }
+            if (start != end)
+                edges.add(start, end, 1 + random.nextInt(maxWeight));
+        }
+        return edges.build(numberedLabels(numberOfVertices));
+    }
+    public static Graph rmat(int scale, int numberOfEdges, int maxWeight, long seed) {
+        return rmat(scale, numberOfEdges, 0.57, 0.19, 0.19, maxWeight, seed);
+    }
+
+    /**
+     * Makes a grid of roads: every Vertex has an Edge to, and from, each of its (up to) 4
+     * neighbours. Every `HIGHWAY_SPACING`th row and column is a highway, where Edges cost a
+     * quarter as much, so that shortest paths prefer to travel along them like they would on
+     * real roads. Vertices are labeled "x:y", without a comma or tab, so the Graph can be
+     * exported with `EdgeListFormat`.
+     * @param width : The number of columns. Must be at least 1.
+     * @param height : The number of rows. Must be at least 1.
+     * @param maxWeight : The highest weight an Edge can have. Must be at least 1.
+     * @param seed : The seed for the random numbers
+     * @return A new Graph
+     */
+    public static Graph grid(int width, int height, int maxWeight, long seed) {
+        if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Grid must have at least one row and column, and fit in an int");
+        long numberOfEdges = 2L * ((long) (width - 1) * height + (long) width * (height - 1));
+        checkArguments(width * height, numberOfEdges, maxWeight);
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeArrays edges = new EdgeArrays((int) numberOfEdges);
+        String[] labels = new String[width * height];
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int here = x * height + y;
+                labels[here] = x + ":" + y;
+                if (x + 1 < width) {
+                    //Along row y, which is a highway if y is
+                    int discount = (y % HIGHWAY_SPACING == 0) ? HIGHWAY_DISCOUNT : 1;
+                    edges.add(here, here + height, roadWeight(random, maxWeight, discount));
+                    edges.add(here + height, here, roadWeight(random, maxWeight, discount));
+                }
+                if (y + 1 < height) {
+                    int discount = (x % HIGHWAY_SPACING == 0) ? HIGHWAY_DISCOUNT : 1;
+                    edges.add(here, here + 1, roadWeight(random, maxWeight, discount));
+                    edges.add(here + 1, here, roadWeight(random, maxWeight, discount));
+                }
+            }
+        }
+        return edges.build(labels);
+    }
+    private static int roadWeight(SplittableRandom random, int maxWeight, int discount) {
+        return Math.max(1, (1 + random.nextInt(maxWeight)) / discount);
+    }
+
+    /**
+     * Makes a layered directed acyclic graph (like a graph of dependencies, or of tasks): every
+     * Vertex has Edges to vertices picked at random in the layer after it, and nowhere else.
+     * Vertices are labeled "layer-index", for example "3-17".
+     * @param numberOfLayers : The number of layers. Must be at least 1.
+     * @param width : The number of vertices in each layer. Must be at least 1.
+     * @param degree : The number of Edges to pick for each Vertex (apart from the last layer)
+     * @param maxWeight : The highest weight an Edge can have. Must be at least 1.
+     * @param seed : The seed for the random numbers
+     * @return A new Graph
+     */
+    public static Graph layeredDag(int numberOfLayers, int width, int degree, int maxWeight, long seed) {
+        if (numberOfLayers < 1 || width < 1 || degree < 0 || (long) numberOfLayers * width > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Must have at least one layer and Vertex per layer, and fit in an int");
+        long numberOfEdges = (long) (numberOfLayers - 1) * width * degree;
+        checkArguments(numberOfLayers * width, numberOfEdges, maxWeight);
+        SplittableRandom random = new SplittableRandom(seed);
+        EdgeArrays edges = new EdgeArrays((int) numberOfEdges);
+        String[] labels = new String[numberOfLayers * width];
+        for (int layer = 0; layer < numberOfLayers; layer++) {
+            for (int i = 0; i < width; i++) {
+                int here = layer * width + i;
+                labels[here] = layer + "-" + i;
+                if (layer + 1 == numberOfLayers)
+                    continue;
+                for (int d = 0; d < degree; d++) {
+                    edges.add(here, (layer + 1) * width + random.nextInt(width), 1 + random.nextInt(maxWeight));
+                }
+            }
+        }
+        return edges.build(labels);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Building the Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    private static void checkArguments(int numberOfVertices, long numberOfEdges, int maxWeight) {
+        if (numberOfVertices < 1)
+            throw new IllegalArgumentException("Graph must have at least one Vertex");
+        if (numberOfEdges < 0 || numberOfEdges > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("Number of Edges must be between 0 and %d".formatted( Integer.MAX_VALUE - 8 ));
+        if (numberOfEdges > 0 && numberOfVertices < 2)
+            throw new IllegalArgumentException("Graph must have at least two vertices to have any Edges");
+        if (maxWeight < 1)
+            throw new IllegalArgumentException("Maximum weight must be at least 1");
+    }
+
+    private static String[] numberedLabels(int numberOfVertices) {
+        String[] labels = new String[numberOfVertices];
+        for (int i = 0; i < numberOfVertices; i++) {
+            labels[i] = "v" + i;
+        }
+        return labels;
+    }
+
+    /**
+     * The Edges made up so far, as arrays of Vertex ids and weights
+     */
+    private static final class EdgeArrays {
+        private final int[] starts;
+        private final int[] ends;
+        private final int[] weights;
+        private int size;
+
+        EdgeArrays (int capacity) {
+            this.starts = new int[capacity];
+            this.ends = new int[capacity];
+            this.weights = new int[capacity];
+            this.size = 0;
+        }
+
+        void add(int start, int end, int weight) {
+            this.starts[this.size] = start;
+            this.ends[this.size] = end;
+            this.weights[this.size] = weight;
+            this.size++;
+        }
+
+        Graph build(String[] labels) {
+            classLogger.debug("Generated {} vertices and {} edges", labels.length, this.size);
+            ArrayList<Vertex> newVertices = new ArrayList<>(labels.length);
+            for (String aLabel: labels) {
+                newVertices.add(new Vertex(aLabel));
+            }
+            return GraphBuilder.assemble(newVertices, this.starts, this.ends, this.weights, null, this.size);
+        }
+    }
+
+}
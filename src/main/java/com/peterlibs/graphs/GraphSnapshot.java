@@ -0,0 +1,260 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable, read-only copy of a Graph, built for answering a large number of path queries.
+ * Every Vertex is given a dense integer id (0 to V-1), and the Edges are stored in
+ * "compressed sparse row" (CSR) form: the Edges leaving Vertex `v` are found at positions
+ * `offsets[v]` up to (but not including) `offsets[v+1]` of the `targets` and `weights` arrays.
+ * This keeps a traversal walking through a handful of flat arrays instead of chasing
+ * Vertex and Edge objects around the heap.
+ * Changes made to the Graph after the snapshot was taken are not seen by the snapshot.
+ * Paths are found by `CsrSearch`, the same engine `MappedGraph` uses.
+ */
+public class GraphSnapshot implements CsrAdjacency {
+
+    static final Logger classLogger = LogManager.getLogger(GraphSnapshot.class);
+    //Instance variables, for recording the label of each vertex (by id) and the id of
+    // each label, as well as the adjacency of the Graph in CSR form.
+    private final String[] vertexLabels;
+    private final HashMap<String, Integer> vertexIds;
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final String[] edgeLabels;
+
+    /**
+     * Constructor for a new snapshot of the given vertices (and the Edges leaving them).
+     * Every Edge must end at one of the given vertices.
+     * @param vertices : The vertices of the Graph, in the order they should be numbered
+     */
+    GraphSnapshot (Collection<Vertex> vertices) {
+        int numberOfVertices = vertices.size();
+        this.vertexLabels = new String[numberOfVertices];
+        this.vertexIds = new HashMap<>(Math.max(16, (int) (numberOfVertices / 0.75f) + 1));
+        int numberOfEdges = 0;
+        for (Vertex aVertex: vertices) {
+            this.vertexIds.put(aVertex.getLabel(), this.vertexIds.size());
+            this.vertexLabels[this.vertexIds.size() - 1] = aVertex.getLabel();
+            numberOfEdges += aVertex.getEdgesInternal().size();
+        }
+        classLogger.debug("Building snapshot of {} vertices and {} edges", numberOfVertices, numberOfEdges);
+
+        this.offsets = new int[numberOfVertices + 1];
+        this.targets = new int[numberOfEdges];
+        this.weights = new int[numberOfEdges];
+        this.edgeLabels = new String[numberOfEdges];
+        int vertexId = 0;
+        int edgeId = 0;
+        for (Vertex aVertex: vertices) {
+            this.offsets[vertexId] = edgeId;
+            for (Edge anEdge: aVertex.getEdgesInternal()) {
+                Integer targetId = this.vertexIds.get(anEdge.getVertexEnd().getLabel());
+                if (targetId == null)
+                    throw new IllegalArgumentException(
+                        "The Vertex %s is not part of this Graph.".formatted( anEdge.getVertexEnd().getLabel() )
+                    );
+                this.targets[edgeId] = targetId;
+                this.weights[edgeId] = anEdge.getWeight();
+                this.edgeLabels[edgeId] = anEdge.getLabel();
+                edgeId++;
+            }
+            vertexId++;
+        }
+        this.offsets[numberOfVertices] = edgeId;
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Simple Getters for the frozen Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    @Override
+    public int getNumberOfVertices() { return this.vertexLabels.length; }
+    public int getNumberOfEdges() { return this.targets.length; }
+    @Override
+    public int firstEdge(int vertexId) { return this.offsets[vertexId]; }
+    @Override
+    public int edgeTarget(int edgeId) { return this.targets[edgeId]; }
+    @Override
+    public int edgeWeight(int edgeId) { return this.weights[edgeId]; }
+
+    /**
+     * Gets the dense id given to the Vertex with the given label.
+     * @param vertexName : The label of the Vertex
+     * @return The id of the Vertex, or -1 if it is not in the snapshot
+     */
+    public int getVertexId(String vertexName) {
+        Integer id = this.vertexIds.get(vertexName);
+        return (id == null) ? -1 : id;
+    }
+    public String getVertexLabel(int vertexId) { return this.vertexLabels[vertexId]; }
+    //The CSR arrays themselves, for engines that walk the snapshot directly. They must not be changed.
+    int[] getOffsets() { return this.offsets; }
+    int[] getTargets() { return this.targets; }
+    int[] getWeights() { return this.weights; }
+
+    /**
+     * Gets the weight of the Edge between the two given vertices.
+     * @param vertexStartName : The name of the vertex that this edge starts at
+     * @param vertexEndName : The name of the vertex that this edge ends at
+     * @return The weight of the Edge, or -1 if the Edge does not exist
+     */
+    public int getEdgeWeight(String vertexStartName, String vertexEndName) {
+        int edgeId = this.findEdgeId(this.getVertexId(vertexStartName), this.getVertexId(vertexEndName));
+        return (edgeId == -1) ? -1 : this.weights[edgeId];
+    }
+    private int findEdgeId(int vertexStartId, int vertexEndId) {
+        if (vertexStartId == -1 || vertexEndId == -1)
+            return -1;
+        for (int e = this.offsets[vertexStartId]; e < this.offsets[vertexStartId + 1]; e++) {
+            if (this.targets[e] == vertexEndId)
+                return e;
+        }
+        return -1;
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Getting Paths between Vertices
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    int[] getEndpointIds(String vertexStartName, String vertexEndName) {
+        int vertexStartId = this.getVertexId(vertexStartName);
+        int vertexEndId = this.getVertexId(vertexEndName);
+        if (vertexStartId == vertexEndId) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        if (vertexStartId == -1)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexStartName )
+            );
+        if (vertexEndId == -1)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexEndName )
+            );
+        return new int[] { vertexStartId, vertexEndId };
+    }
+
+    /**
+     * Turns a list of Edge ids into a Path. Since the snapshot does not keep any Vertex or Edge
+     * objects, new (detached) ones are created that carry the labels and weights of the snapshot.
+     * @param edgeIds : The ids of the Edges in the path, in order
+     * @param length : The number of Edge ids to use from the array
+     * @param vertexStartId : The id of the Vertex the path starts at
+     * @return A Path object
+     */
+    Path makeIntoPath(int[] edgeIds, int length, int vertexStartId) {
+        Path newPath = new Path();
+        Vertex stepStart = new Vertex(this.vertexLabels[vertexStartId]);
+        for (int i = 0; i < length; i++) {
+            int edgeId = edgeIds[i];
+            Vertex stepEnd = new Vertex(this.vertexLabels[this.targets[edgeId]]);
+            newPath.addStep(
+                new Edge(stepStart, stepEnd, this.weights[edgeId], this.edgeLabels[edgeId]),
+                ((i+1) == length) //True if is final Edge in the path
+            );
+            stepStart = stepEnd;
+        }
+        return newPath;
+    }
+
+    /**
+     * Gets the shortest path between the given start and end vertices, using Dijkstra's algorithm.
+     * If more than one path has the lowest cost, the path using the fewest Edges is returned.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return A Path object, the shortest path from Vertex A to Vertex B
+     * @throws ArithmeticException : The shortest path costs more than `Integer.MAX_VALUE`, the most a Path can cost
+     */
+    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.getEndpointIds(vertexStartName, vertexEndName);
+        int[] edgeIds = CsrSearch.findShortestPath(this, endpoints[0], endpoints[1]);
+        if (edgeIds == null) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        return this.makeIntoPath(edgeIds, edgeIds.length, endpoints[0]);
+    }
+    /**
+     * Works out the shortest path between every pair of vertices at once. This is much quicker
+     * than calling `findShortestPath` for every pair, but needs memory for two V x V tables.
+     * Dense graphs use a blocked Floyd-Warshall, and sparse graphs run Dijkstra's algorithm from
+     * every Vertex. Either way, the work is split across the given pool.
+     * @param pool : [optional] The ForkJoinPool to do the work in. Defaults to the common pool.
+     * @return An AllPairsShortestPaths object, with the cost and next hop of every shortest path
+     * @throws IllegalArgumentException : The Graph has too many vertices for a V x V table to fit in an array
+     */
+    public AllPairsShortestPaths findAllShortestPaths(ForkJoinPool pool) {
+        return AllPairsShortestPaths.compute(this, pool);
+    }
+    public AllPairsShortestPaths findAllShortestPaths() {
+        return this.findAllShortestPaths(ForkJoinPool.commonPool());
+    }
+    /**
+     * Find all possible paths from the Vertex A to Vertex B, regardless of cost.
+     * Each path will only use each Vertex once at a maximum.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return A List of Path objects, in the same order `Graph.findAllPaths` finds them
+     */
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.getEndpointIds(vertexStartName, vertexEndName);
+        ArrayList<Path> allPaths = new ArrayList<>();
+        CsrSearch.findAllPaths(this, endpoints[0], endpoints[1], (edgeIds, length) -> {
+            allPaths.add(this.makeIntoPath(edgeIds, length, endpoints[0]));
+        });
+        return Collections.unmodifiableList(allPaths);
+    }
+
+    /**
+     * Finds the longest path between the given start and end vertices, the same way
+     * `Graph.findLongestPath` does (in O(V+E) when there are no cycles in the way).
+     * If more than one path has the highest cost, the path using the fewest Edges is returned.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @param expansionBudget : [optional] The number of vertices a search of a cyclic graph may expand
+     * @param timeBudget : [optional] How long a search of a cyclic graph may run for. Null means no limit.
+     * @return A Path object, the longest path from Vertex A to Vertex B
+     */
+    public Path findLongestPath(String vertexStartName, String vertexEndName, long expansionBudget, Duration timeBudget) {
+        int[] endpoints = this.getEndpointIds(vertexStartName, vertexEndName);
+        if (expansionBudget <= 0) {
+            throw new IllegalArgumentException("Expansion budget must be positive");
+        }
+        LongestPathSearch search = new LongestPathSearch(this.offsets, this.targets, this.weights);
+        int[] longestEdgeIds = search.search(endpoints[0], endpoints[1], expansionBudget, timeBudget, null);
+        if (longestEdgeIds == null && search.isBudgetExhausted()) {
+            throw new RuntimeException(
+                "Ran out of budget before finding a path from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        if (longestEdgeIds == null) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        return this.makeIntoPath(longestEdgeIds, longestEdgeIds.length, endpoints[0]);
+    }
+    public Path findLongestPath(String vertexStartName, String vertexEndName) {
+        return this.findLongestPath(vertexStartName, vertexEndName, LongestPathSearch.DEFAULT_EXPANSION_BUDGET, null);
+    }
+
+}
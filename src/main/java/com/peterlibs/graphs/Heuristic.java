@@ -0,0 +1,27 @@
+package com.peterlibs.graphs;
+
+/**
+ * An estimate of the cost of reaching one Vertex from another, used to guide an A* search
+ * (see `Graph.findShortestPath(String, String, Heuristic)`).
+ * For the search to still find the shortest path, the estimate must never be more than the
+ * real cost (it must be "admissible"), and it must never be negative. If the estimate is also
+ * "consistent" (the estimate at a Vertex is never more than the weight of an Edge plus the
+ * estimate at the end of that Edge), then every Vertex is expanded at most once.
+ * A straight line distance between two physical locations is both.
+ * The estimate is asked for every time a cheaper way of reaching a Vertex is found, so it should be cheap.
+ */
+@FunctionalInterface
+public interface Heuristic {
+
+    //Estimates nothing, which turns an A* search back into Dijkstra's algorithm
+    Heuristic NONE = (vertexLabel, destinationLabel) -> 0;
+
+    /**
+     * Estimates the cost of the cheapest path from a Vertex to the destination
+     * @param vertexLabel : The label of the Vertex the path would start at
+     * @param destinationLabel : The label of the Vertex we are searching for
+     * @return A lower bound on the cost of reaching the destination, zero or more
+     */
+    int estimate(String vertexLabel, String destinationLabel);
+
+}
@@ -0,0 +1,192 @@
+package com.peterlibs.graphs;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary min-heap of integer ids, where each id has a `long` priority (key).
+ * Because we keep track of where each id is sitting in the heap, we are able to lower the
+ * key of an id that is already queued ("decrease-key") in O(log n), instead of queueing a
+ * duplicate entry like `java.util.PriorityQueue` would force us to do.
+ * Ids are expected to be small, dense, non-negative integers. The heap grows as needed.
+ */
+class IndexedMinHeap {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    //Instance variables, for recording the heap itself (slot -> id), where each id is
+    // sitting in the heap (id -> slot, or -1 when not queued), and the key of each id.
+    private int[] heap;
+    private int[] position;
+    private long[] keys;
+    private int size;
+
+    /**
+     * Constructor for a new, empty heap
+     * @param capacity : [optional] The number of ids we expect to see. Defaults to '16'.
+     */
+    IndexedMinHeap (int capacity) {
+        capacity = Math.max(capacity, 1);
+        this.heap = new int[capacity];
+        this.position = new int[capacity];
+        Arrays.fill(this.position, -1);
+        this.keys = new long[capacity];
+        this.size = 0;
+    }
+    IndexedMinHeap () {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Queue operations
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    boolean isEmpty() { return this.size == 0; }
+    int size() { return this.size; }
+    boolean contains(int id) { return id < this.position.length && this.position[id] != -1; }
+    long getKey(int id) { return this.keys[id]; }
+
+    /**
+     * Adds the id to the heap with the given key.
+     * @param id : The id to queue. Must not already be queued.
+     * @param key : The priority of the id. Lower keys are polled first.
+     */
+    void insert(int id, long key) {
+        if (this.contains(id))
+            throw new IllegalArgumentException("The id %d is already in the heap.".formatted( id ));
+        this.ensureCapacity(id + 1);
+        this.keys[id] = key;
+        this.heap[this.size] = id;
+        this.position[id] = this.size;
+        this.size++;
+        this.siftUp(this.size - 1);
+    }
+
+    /**
+     * Lowers the key of an id that is already in the heap.
+     * @param id : The id to update. Must already be queued.
+     * @param key : The new key. Must not be greater than the current key.
+     */
+    void decreaseKey(int id, long key) {
+        if (!this.contains(id))
+            throw new IllegalArgumentException("The id %d is not in the heap.".formatted( id ));
+        if (key > this.keys[id])
+            throw new IllegalArgumentException("The new key cannot be greater than the current key.");
+        this.keys[id] = key;
+        this.siftUp(this.position[id]);
+    }
+
+    /**
+     * Queues the id if it is not yet in the heap, or lowers its key if the given key is better.
+     * @param id : The id to queue or update
+     * @param key : The candidate key for the id
+     * @return True if the heap was changed
+     */
+    boolean insertOrDecrease(int id, long key) {
+        if (!this.contains(id)) {
+            this.insert(id, key);
+            return true;
+        }
+        if (key < this.keys[id]) {
+            this.decreaseKey(id, key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes and returns the id with the lowest key.
+     * @return The id with the lowest key
+     * @throws NoSuchElementException : The heap is empty
+     */
+    int poll() {
+        if (this.size == 0)
+            throw new NoSuchElementException("Cannot poll from an empty heap.");
+        int topId = this.heap[0];
+        this.size--;
+        if (this.size > 0) {
+            this.moveTo(this.heap[this.size], 0);
+            this.siftDown(0);
+        }
+        this.position[topId] = -1;
+        return topId;
+    }
+
+    /**
+     * Gets the lowest key in the heap, without removing it.
+     * @return The lowest key
+     * @throws NoSuchElementException : The heap is empty
+     */
+    long peekKey() {
+        if (this.size == 0)
+            throw new NoSuchElementException("Cannot peek into an empty heap.");
+        return this.keys[this.heap[0]];
+    }
+
+    /**
+     * Empties the heap, so that it can be reused by another search.
+     */
+    void clear() {
+        for (int i = 0; i < this.size; i++) {
+            this.position[this.heap[i]] = -1;
+        }
+        this.size = 0;
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Heap maintenance
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    private void siftUp(int slot) {
+        int id = this.heap[slot];
+        long key = this.keys[id];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parentId = this.heap[parentSlot];
+            if (this.keys[parentId] <= key)
+                break;
+            this.moveTo(parentId, slot);
+            slot = parentSlot;
+        }
+        this.moveTo(id, slot);
+    }
+    private void siftDown(int slot) {
+        int id = this.heap[slot];
+        long key = this.keys[id];
+        int half = this.size >>> 1;
+        while (slot < half) {
+            int childSlot = 2 * slot + 1;
+            int childId = this.heap[childSlot];
+            int rightSlot = childSlot + 1;
+            if (rightSlot < this.size && this.keys[this.heap[rightSlot]] < this.keys[childId]) {
+                childSlot = rightSlot;
+                childId = this.heap[rightSlot];
+            }
+            if (key <= this.keys[childId])
+                break;
+            this.moveTo(childId, slot);
+            slot = childSlot;
+        }
+        this.moveTo(id, slot);
+    }
+    private void moveTo(int id, int slot) {
+        this.heap[slot] = id;
+        this.position[id] = slot;
+    }
+    private void ensureCapacity(int required) {
+        if (required <= this.position.length)
+            return;
+        int newCapacity = Math.max(required, this.position.length * 2);
+        int oldCapacity = this.position.length;
+        this.heap = Arrays.copyOf(this.heap, newCapacity);
+        this.keys = Arrays.copyOf(this.keys, newCapacity);
+        this.position = Arrays.copyOf(this.position, newCapacity);
+        Arrays.fill(this.position, oldCapacity, newCapacity, -1);
+    }
+
+}
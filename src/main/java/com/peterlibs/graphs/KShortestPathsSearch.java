@@ -0,0 +1,143 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * A query for the k cheapest simple paths (paths that use each Vertex at most once) between two
+ * vertices, answered using Yen's algorithm.
+ * The cheapest path is found with Dijkstra's algorithm. Each next path must leave the paths
+ * already found at some Vertex on the last one (the "spur" Vertex), so for every Vertex on the
+ * last path, we search for the cheapest way from it to the destination that does not reuse the
+ * part of the path before it (the "root"), and does not take an Edge out of the spur Vertex that
+ * an earlier path with the same root already took. Root plus spur is a candidate, and the
+ * cheapest candidate is the next path.
+ * Each spur search is a `DijkstraSearch` that is only allowed the Edges that avoid the root and
+ * the blocked Edges.
+ * This runs at most one Dijkstra search per Vertex of each path found, so it costs about
+ * k * (path length) * (Dijkstra), no matter how many simple paths the Graph has.
+ * Like `Graph.findShortestPath`, paths with the same cost are ordered by their number of Edges.
+ */
+class KShortestPathsSearch {
+
+    static final Logger classLogger = LogManager.getLogger(KShortestPathsSearch.class);
+
+    /**
+     * A path that may be one of the k cheapest, waiting to be picked
+     */
+    private record Candidate(ArrayList<Edge> edges, long key, long sequence) {}
+
+    //Instance variables, for recording the Graph being searched, and the vertices that the
+    // current spur search may not use (by Vertex index).
+    private final List<Vertex> indexedVertices;
+    private final BitSet blockedVertices;
+    //[nullable] Where to count the work done by every search
+    private final QueryStats stats;
+
+    /**
+     * Constructor for a new search
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     */
+    KShortestPathsSearch (List<Vertex> indexedVertices, QueryStats stats) {
+        this.indexedVertices = indexedVertices;
+        this.blockedVertices = new BitSet(indexedVertices.size());
+        this.stats = stats;
+    }
+
+    /**
+     * Finds up to k of the cheapest simple paths from the starting Vertex to the destination Vertex
+     * @param vertexStart : The vertex we are starting at
+     * @param vertexDestination : The vertex we are searching for
+     * @param k : The most paths to find
+     * @return The paths, as lists of Edges, cheapest first. Empty if there is no path.
+     */
+    List<ArrayList<Edge>> search(Vertex vertexStart, Vertex vertexDestination, int k) {
+        //k may be far more than the number of paths there are, such as Integer.MAX_VALUE for every path
+        ArrayList<ArrayList<Edge>> foundPaths = new ArrayList<>(Math.min(k, 16));
+        ArrayList<Edge> shortestPath = this.findSpurPath(vertexStart, vertexDestination, List.of());
+        if (shortestPath == null) {
+            classLogger.debug("The destination cannot be reached from the start.");
+            return foundPaths;
+        }
+        long shortestCost = 0;
+        for (Edge anEdge: shortestPath) {
+            shortestCost += anEdge.getWeight();
+        }
+        DijkstraSearch.checkCost(shortestCost);
+        foundPaths.add(shortestPath);
+
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>(
+            (a, b) -> (a.key() != b.key()) ? Long.compare(a.key(), b.key()) : Long.compare(a.sequence(), b.sequence())
+        );
+        //Every path found or queued, so that the same path is never queued twice
+        HashSet<List<Edge>> seenPaths = new HashSet<>();
+        seenPaths.add(shortestPath);
+        long sequence = 0;
+        while (foundPaths.size() < k) {
+            ArrayList<Edge> lastPath = foundPaths.get(foundPaths.size() - 1);
+            long rootCost = 0;
+            for (int i = 0; i < lastPath.size(); i++) {
+                Vertex spurVertex = lastPath.get(i).getVertexStart();
+                List<Edge> rootPath = lastPath.subList(0, i);
+                //Edges out of the spur Vertex taken by earlier paths with the same root
+                ArrayList<Edge> blockedEdges = new ArrayList<>();
+                for (ArrayList<Edge> aPath: foundPaths) {
+                    if (aPath.size() > i && aPath.subList(0, i).equals(rootPath))
+                        blockedEdges.add(aPath.get(i));
+                }
+                for (Edge rootEdge: rootPath) {
+                    this.blockedVertices.set(rootEdge.getVertexStart().getIndex());
+                }
+                ArrayList<Edge> spurPath = this.findSpurPath(spurVertex, vertexDestination, blockedEdges);
+                for (Edge rootEdge: rootPath) {
+                    this.blockedVertices.clear(rootEdge.getVertexStart().getIndex());
+                }
+
+                if (spurPath != null) {
+                    ArrayList<Edge> candidatePath = new ArrayList<>(i + spurPath.size());
+                    candidatePath.addAll(rootPath);
+                    candidatePath.addAll(spurPath);
+                    if (seenPaths.add(candidatePath)) {
+                        long cost = rootCost;
+                        for (Edge anEdge: spurPath) {
+                            cost += anEdge.getWeight();
+                        }
+                        candidates.add(new Candidate(
+                            candidatePath, DijkstraSearch.toKey(cost, candidatePath.size()), sequence++
+                        ));
+                    }
+                }
+                rootCost += lastPath.get(i).getWeight();
+            }
+            if (candidates.isEmpty()) {
+                classLogger.debug("Found every simple path, {} in total.", foundPaths.size());
+                break;
+            }
+            Candidate nextPath = candidates.poll();
+            DijkstraSearch.checkKey(nextPath.key());
+            foundPaths.add(nextPath.edges());
+        }
+        return foundPaths;
+    }
+
+    /**
+     * Finds the cheapest path from the spur Vertex to the destination with `DijkstraSearch`,
+     * without passing through a blocked Vertex, or taking one of the blocked Edges out of the
+     * spur Vertex.
+     * @return ArrayList of Edge objects, or null if the destination cannot be reached
+     */
+    private ArrayList<Edge> findSpurPath(Vertex spurVertex, Vertex vertexDestination, List<Edge> blockedEdges) {
+        Predicate<Edge> allowedEdges = anEdge ->
+            !this.blockedVertices.get(anEdge.getVertexEnd().getIndex())
+                && (anEdge.getVertexStart() != spurVertex || !blockedEdges.contains(anEdge));
+        return DijkstraSearch.findShortestPath(this.indexedVertices, spurVertex, vertexDestination, allowedEdges, this.stats);
+    }
+
+}
@@ -0,0 +1,372 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A single longest (simple) path query, run over a Graph stored in CSR form (see `GraphSnapshot`).
+ * First, only the vertices that can be on a path from the start to the destination are kept:
+ * those reachable from the start that can also reach the destination. Edges into the start and
+ * out of the destination are ignored, since a simple path can never use them.
+ * If what is left has no cycles, the longest path is found in O(V+E) by walking the vertices in
+ * topological order and keeping the best way of reaching each one (dynamic programming).
+ * If there are cycles, the problem is NP-hard, so we fall back to a depth first search of the
+ * simple paths, which skips any branch that cannot beat the best path found so far (branch and
+ * bound). The search stops early if it runs out of its node or time budget, in which case the
+ * best path found so far is returned.
+ * If more than one path has the highest cost, the path using the fewest Edges is returned.
+ */
+class LongestPathSearch {
+
+    static final Logger classLogger = LogManager.getLogger(LongestPathSearch.class);
+    //The number of vertices the branch and bound search may expand before giving up
+    static final long DEFAULT_EXPANSION_BUDGET = 50_000_000L;
+    //How many expansions happen between checks of the clock
+    private static final int CLOCK_CHECK_INTERVAL = 1024;
+    //Instance variables, for recording the Graph in CSR form (and, when the search was built
+    // from a Graph, the Edge object for each edge id).
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] weights;
+    private final Edge[] edgesById;
+    //Instance variables, for recording how the last search went
+    private long expansions;
+    private boolean budgetExhausted;
+    private boolean usedTopologicalOrder;
+    //[nullable] Where to count the work done by the current search
+    private QueryStats stats;
+
+    /**
+     * Constructor for a search over a Graph in CSR form
+     * @param offsets : The Edges leaving Vertex `v` are at `offsets[v]` up to `offsets[v+1]`
+     * @param targets : The Vertex each Edge ends at
+     * @param weights : The weight of each Edge
+     */
+    LongestPathSearch (int[] offsets, int[] targets, int[] weights) {
+        this(offsets, targets, weights, null);
+    }
+    private LongestPathSearch (int[] offsets, int[] targets, int[] weights, Edge[] edgesById) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.edgesById = edgesById;
+    }
+
+    /**
+     * Builds a search over the vertices of a Graph, numbering the vertices by their index.
+     * @param indexedVertices : Every Vertex of the Graph, where each is at its own index
+     * @return A LongestPathSearch, which can turn the ids it finds back into Edges
+     */
+    static LongestPathSearch forVertices(List<Vertex> indexedVertices) {
+        int numberOfVertices = indexedVertices.size();
+        int numberOfEdges = 0;
+        for (Vertex aVertex: indexedVertices) {
+            numberOfEdges += aVertex.getEdgesInternal().size();
+        }
+        int[] offsets = new int[numberOfVertices + 1];
+        int[] targets = new int[numberOfEdges];
+        int[] weights = new int[numberOfEdges];
+        Edge[] edgesById = new Edge[numberOfEdges];
+        int edgeId = 0;
+        for (int v = 0; v < numberOfVertices; v++) {
+            offsets[v] = edgeId;
+            for (Edge anEdge: indexedVertices.get(v).getEdgesInternal()) {
+                targets[edgeId] = anEdge.getVertexEnd().getIndex();
+                weights[edgeId] = anEdge.getWeight();
+                edgesById[edgeId] = anEdge;
+                edgeId++;
+            }
+        }
+        offsets[numberOfVertices] = edgeId;
+        return new LongestPathSearch(offsets, targets, weights, edgesById);
+    }
+
+    long getExpansions() { return this.expansions; }
+    boolean isBudgetExhausted() { return this.budgetExhausted; }
+    boolean usedTopologicalOrder() { return this.usedTopologicalOrder; }
+
+    /**
+     * Turns edge ids found by a search built with `forVertices` back into Edge objects
+     */
+    ArrayList<Edge> toEdges(int[] edgeIds) {
+        ArrayList<Edge> foundPath = new ArrayList<>(edgeIds.length);
+        for (int edgeId: edgeIds) {
+            foundPath.add(this.edgesById[edgeId]);
+        }
+        return foundPath;
+    }
+
+    /**
+     * Finds the longest simple path from the start to the destination.
+     * @param vertexStartId : The id of the vertex we are starting at
+     * @param vertexDestinationId : The id of the vertex we are searching for
+     * @param expansionBudget : The number of vertices the branch and bound search may expand
+     * @param timeBudget : [nullable] How long the branch and bound search may run for
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     * @return The ids of the Edges on the longest path, in order.
+     *          Returns null if the destination cannot be reached (or if the budget ran out
+     *          before any path was found).
+     */
+    int[] search(int vertexStartId, int vertexDestinationId, long expansionBudget, Duration timeBudget, QueryStats stats) {
+        this.expansions = 0;
+        this.budgetExhausted = false;
+        this.usedTopologicalOrder = false;
+        this.stats = stats;
+
+        BitSet relevant = this.findRelevantVertices(vertexStartId, vertexDestinationId);
+        if (relevant == null) {
+            classLogger.debug("The destination cannot be reached from the start.");
+            return null;
+        }
+        int[] topologicalOrder = this.topologicalOrder(relevant, vertexStartId, vertexDestinationId);
+        if (topologicalOrder != null) {
+            classLogger.debug("The {} relevant vertices have no cycles. Using topological order.", relevant.cardinality());
+            this.usedTopologicalOrder = true;
+            return this.searchTopologicalOrder(topologicalOrder, relevant, vertexStartId, vertexDestinationId);
+        }
+        classLogger.debug("The {} relevant vertices have cycles. Using branch and bound.", relevant.cardinality());
+        long deadline = (timeBudget == null) ? Long.MAX_VALUE : System.nanoTime() + timeBudget.toNanos();
+        return this.searchBranchAndBound(relevant, vertexStartId, vertexDestinationId, expansionBudget, deadline);
+    }
+
+    /**
+     * Gets the vertices that are reachable from the start and that can reach the destination.
+     * @return A bitset of vertex ids, or null if the destination is not reachable
+     */
+    private BitSet findRelevantVertices(int vertexStartId, int vertexDestinationId) {
+        int numberOfVertices = this.offsets.length - 1;
+        BitSet reachable = new BitSet(numberOfVertices);
+        int[] stack = new int[numberOfVertices];
+        int stackSize = 0;
+        reachable.set(vertexStartId);
+        stack[stackSize++] = vertexStartId;
+        while (stackSize > 0) {
+            int current = stack[--stackSize];
+            for (int e = this.offsets[current]; e < this.offsets[current + 1]; e++) {
+                if (!reachable.get(this.targets[e])) {
+                    reachable.set(this.targets[e]);
+                    stack[stackSize++] = this.targets[e];
+                }
+            }
+        }
+        if (!reachable.get(vertexDestinationId))
+            return null;
+
+        //Build the reverse adjacency of the reachable vertices, so that we can walk backwards
+        // from the destination
+        int[] reverseOffsets = new int[numberOfVertices + 1];
+        for (int v = reachable.nextSetBit(0); v >= 0; v = reachable.nextSetBit(v + 1)) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                reverseOffsets[this.targets[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < numberOfVertices; v++) {
+            reverseOffsets[v + 1] += reverseOffsets[v];
+        }
+        int[] reverseSources = new int[reverseOffsets[numberOfVertices]];
+        int[] fill = Arrays.copyOf(reverseOffsets, numberOfVertices);
+        for (int v = reachable.nextSetBit(0); v >= 0; v = reachable.nextSetBit(v + 1)) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                reverseSources[fill[this.targets[e]]++] = v;
+            }
+        }
+
+        BitSet relevant = new BitSet(numberOfVertices);
+        relevant.set(vertexDestinationId);
+        stack[stackSize++] = vertexDestinationId;
+        while (stackSize > 0) {
+            int current = stack[--stackSize];
+            for (int i = reverseOffsets[current]; i < reverseOffsets[current + 1]; i++) {
+                int source = reverseSources[i];
+                if (!relevant.get(source)) {
+                    relevant.set(source);
+                    stack[stackSize++] = source;
+                }
+            }
+        }
+        return relevant;
+    }
+
+    /**
+     * Says whether an Edge could be part of a simple path from the start to the destination
+     */
+    private boolean isUsable(int source, int edgeId, BitSet relevant, int vertexStartId, int vertexDestinationId) {
+        int target = this.targets[edgeId];
+        return source != vertexDestinationId && target != vertexStartId && relevant.get(target);
+    }
+
+    /**
+     * Sorts the relevant vertices into topological order (Kahn's algorithm).
+     * @return The relevant vertex ids in topological order, or null if they contain a cycle
+     */
+    private int[] topologicalOrder(BitSet relevant, int vertexStartId, int vertexDestinationId) {
+        int[] inDegrees = new int[this.offsets.length - 1];
+        for (int v = relevant.nextSetBit(0); v >= 0; v = relevant.nextSetBit(v + 1)) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                if (this.isUsable(v, e, relevant, vertexStartId, vertexDestinationId))
+                    inDegrees[this.targets[e]]++;
+            }
+        }
+        int[] order = new int[relevant.cardinality()];
+        int head = 0;
+        int tail = 0;
+        for (int v = relevant.nextSetBit(0); v >= 0; v = relevant.nextSetBit(v + 1)) {
+            if (inDegrees[v] == 0)
+                order[tail++] = v;
+        }
+        while (head < tail) {
+            int current = order[head++];
+            for (int e = this.offsets[current]; e < this.offsets[current + 1]; e++) {
+                if (!this.isUsable(current, e, relevant, vertexStartId, vertexDestinationId))
+                    continue;
+                if (--inDegrees[this.targets[e]] == 0)
+                    order[tail++] = this.targets[e];
+            }
+        }
+        return (tail == order.length) ? order : null;
+    }
+
+    private int[] searchTopologicalOrder(int[] order, BitSet relevant, int vertexStartId, int vertexDestinationId) {
+        int numberOfVertices = this.offsets.length - 1;
+        long[] costs = new long[numberOfVertices];
+        int[] hops = new int[numberOfVertices];
+        int[] previousEdges = new int[numberOfVertices];
+        int[] previousVertices = new int[numberOfVertices];
+        BitSet reached = new BitSet(numberOfVertices);
+        reached.set(vertexStartId);
+        previousVertices[vertexStartId] = -1;
+
+        for (int current: order) {
+            if (!reached.get(current))
+                continue;
+            if (this.stats != null) {
+                this.stats.countExpansion();
+                this.stats.countScans(this.offsets[current + 1] - this.offsets[current]);
+                this.stats.recordDepth(hops[current]);
+            }
+            for (int e = this.offsets[current]; e < this.offsets[current + 1]; e++) {
+                if (!this.isUsable(current, e, relevant, vertexStartId, vertexDestinationId))
+                    continue;
+                int target = this.targets[e];
+                long newCost = costs[current] + this.weights[e];
+                int newHops = hops[current] + 1;
+                if (
+                    !reached.get(target) ||
+                        newCost > costs[target] ||
+                        (newCost == costs[target] && newHops < hops[target])
+                ) {
+                    if (this.stats != null)
+                        this.stats.countRelaxation();
+                    reached.set(target);
+                    costs[target] = newCost;
+                    hops[target] = newHops;
+                    previousEdges[target] = e;
+                    previousVertices[target] = current;
+                }
+            }
+        }
+        int[] edgeIds = new int[hops[vertexDestinationId]];
+        for (int v = vertexDestinationId, i = edgeIds.length - 1; i >= 0; i--) {
+            edgeIds[i] = previousEdges[v];
+            v = previousVertices[v];
+        }
+        return edgeIds;
+    }
+
+    private int[] searchBranchAndBound(
+        BitSet relevant, int vertexStartId, int vertexDestinationId, long expansionBudget, long deadline
+    ) {
+        int numberOfVertices = this.offsets.length - 1;
+        //Every further Edge of a simple path enters a different vertex that is not yet on the
+        // path, so the heaviest usable Edge into each of those vertices gives an upper bound
+        // on how much more cost the path can pick up.
+        long[] heaviestIncoming = new long[numberOfVertices];
+        long remainingBound = 0;
+        for (int v = relevant.nextSetBit(0); v >= 0; v = relevant.nextSetBit(v + 1)) {
+            for (int e = this.offsets[v]; e < this.offsets[v + 1]; e++) {
+                if (this.isUsable(v, e, relevant, vertexStartId, vertexDestinationId))
+                    heaviestIncoming[this.targets[e]] = Math.max(heaviestIncoming[this.targets[e]], this.weights[e]);
+            }
+        }
+        for (int v = relevant.nextSetBit(0); v >= 0; v = relevant.nextSetBit(v + 1)) {
+            remainingBound += heaviestIncoming[v];
+        }
+
+        BitSet onPath = new BitSet(numberOfVertices);
+        int[] pathVertices = new int[numberOfVertices];
+        int[] pathEdges = new int[numberOfVertices];
+        int[] nextEdge = new int[numberOfVertices];
+        long[] pathCosts = new long[numberOfVertices + 1];
+        int[] bestEdgeIds = null;
+        long bestCost = -1;
+
+        int depth = 0;
+        pathVertices[0] = vertexStartId;
+        nextEdge[0] = this.offsets[vertexStartId];
+        onPath.set(vertexStartId);
+        while (depth >= 0) {
+            int current = pathVertices[depth];
+            if (nextEdge[depth] == this.offsets[current + 1]) {
+                onPath.clear(current);
+                remainingBound += heaviestIncoming[current];
+                depth--;
+                if (this.stats != null)
+                    this.stats.countQueueOperation();
+                continue;
+            }
+            int e = nextEdge[depth]++;
+            if (this.stats != null)
+                this.stats.countScans(1);
+            int neighbour = this.targets[e];
+            if (onPath.get(neighbour) || !this.isUsable(current, e, relevant, vertexStartId, vertexDestinationId))
+                continue;
+
+            long newCost = pathCosts[depth] + this.weights[e];
+            pathEdges[depth] = e;
+            if (neighbour == vertexDestinationId) {
+                if (bestEdgeIds == null || newCost > bestCost || (newCost == bestCost && depth + 1 < bestEdgeIds.length)) {
+                    bestEdgeIds = Arrays.copyOf(pathEdges, depth + 1);
+                    bestCost = newCost;
+                }
+                continue;
+            }
+            //Any path continuing through the neighbour needs at least one more Edge after it
+            long bound = newCost + remainingBound - heaviestIncoming[neighbour];
+            if (bestEdgeIds != null && (bound < bestCost || (bound == bestCost && depth + 2 >= bestEdgeIds.length)))
+                continue;
+
+            this.expansions++;
+            if (
+                this.expansions > expansionBudget ||
+                    (this.expansions % CLOCK_CHECK_INTERVAL == 0 && System.nanoTime() > deadline)
+            ) {
+                classLogger.warn(
+                    "Longest path search ran out of budget after {} expansions. Returning the best path found so far.",
+                    this.expansions
+                );
+                this.budgetExhausted = true;
+                break;
+            }
+            depth++;
+            pathVertices[depth] = neighbour;
+            nextEdge[depth] = this.offsets[neighbour];
+            pathCosts[depth] = newCost;
+            onPath.set(neighbour);
+            remainingBound -= heaviestIncoming[neighbour];
+            if (this.stats != null) {
+                //The stack is the whole frontier of a depth first search
+                this.stats.countQueueOperation();
+                this.stats.countExpansion();
+                this.stats.recordDepth(depth);
+                this.stats.recordFrontier(depth + 1);
+            }
+        }
+        return bestEdgeIds;
+    }
+
+}
@@ -0,0 +1,287 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A read-only Graph that answers queries straight out of a file written by `Graph.writeTo`
+ * (see `GraphFormat`), which is mapped into memory instead of being read.
+ * Opening the file only reads its header, so it takes the same (tiny) time however large the
+ * Graph is, and the operating system loads pages of the file as queries touch them. Several
+ * processes that map the same file share one copy of it in the page cache.
+ * Nothing is kept in the heap apart from the mapped buffers, so the vertices, Edges and Paths
+ * this returns are new, detached objects that carry the labels and weights from the file.
+ * Each section of the file is mapped on its own, so no single section can be larger than 2GB
+ * (about 500 million Edges). A MappedGraph can be queried from many threads at once.
+ * Paths are found by `CsrSearch`, the same engine `GraphSnapshot` uses.
+ */
+public class MappedGraph implements CsrAdjacency {
+
+    static final Logger classLogger = LogManager.getLogger(MappedGraph.class);
+    //Instance variables, for the mapped sections of the file (see `GraphFormat` for the layout)
+    private final int numberOfVertices;
+    private final int numberOfEdges;
+    private final IntBuffer vertexLabelIds;
+    private final IntBuffer labelOrder;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final IntBuffer weights;
+    private final IntBuffer edgeLabelIds;
+    private final IntBuffer stringOffsets;
+    private final ByteBuffer stringBytes;
+
+    private MappedGraph (FileChannel channel, int numberOfVertices, int numberOfEdges, int numberOfStrings, int numberOfStringBytes) throws IOException {
+        this.numberOfVertices = numberOfVertices;
+        this.numberOfEdges = numberOfEdges;
+        long position = GraphFormat.HEADER_BYTES;
+        this.vertexLabelIds = mapInts(channel, position, numberOfVertices);
+        position += (long) numberOfVertices * Integer.BYTES;
+        this.labelOrder = mapInts(channel, position, numberOfVertices);
+        position += (long) numberOfVertices * Integer.BYTES;
+        this.offsets = mapInts(channel, position, numberOfVertices + 1);
+        position += ((long) numberOfVertices + 1) * Integer.BYTES;
+        this.targets = mapInts(channel, position, numberOfEdges);
+        position += (long) numberOfEdges * Integer.BYTES;
+        this.weights = mapInts(channel, position, numberOfEdges);
+        position += (long) numberOfEdges * Integer.BYTES;
+        this.edgeLabelIds = mapInts(channel, position, numberOfEdges);
+        position += (long) numberOfEdges * Integer.BYTES;
+        this.stringOffsets = mapInts(channel, position, numberOfStrings + 1);
+        position += ((long) numberOfStrings + 1) * Integer.BYTES;
+        this.stringBytes = map(channel, position, numberOfStringBytes);
+    }
+
+    /**
+     * Maps the given Graph file into memory.
+     * The file must not be changed while it is mapped.
+     * @param file : A file written by `Graph.writeTo`
+     * @return A MappedGraph over the file
+     * @throws IOException : The file could not be mapped, or was not written by `Graph.writeTo`
+     */
+    public static MappedGraph open(java.nio.file.Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < GraphFormat.HEADER_BYTES)
+                throw new IOException("Not a Graph file: too short to hold a header");
+            IntBuffer header = mapInts(channel, 0, GraphFormat.HEADER_BYTES / Integer.BYTES);
+            if (header.get(0) != GraphFormat.MAGIC)
+                throw new IOException("Not a Graph file: the magic number does not match");
+            if (header.get(1) != GraphFormat.VERSION)
+                throw new IOException(
+                    "Graph file version %d cannot be mapped, it must be written again with `Graph.writeTo`".formatted( header.get(1) )
+                );
+            int numberOfVertices = header.get(2);
+            int numberOfEdges = header.get(3);
+            int numberOfStrings = header.get(4);
+            int numberOfStringBytes = header.get(5);
+            if (numberOfVertices < 0 || numberOfEdges < 0 || numberOfStrings < 0 || numberOfStringBytes < 0)
+                throw new IOException("Corrupt Graph file: negative section size");
+            long expectedSize = GraphFormat.fileBytes(
+                GraphFormat.VERSION, numberOfVertices, numberOfEdges, numberOfStrings, numberOfStringBytes
+            );
+            if (channel.size() != expectedSize)
+                throw new IOException(
+                    "Corrupt Graph file: expected %d bytes, found %d".formatted( expectedSize, channel.size() )
+                );
+            classLogger.debug("Mapping Graph file of {} vertices and {} edges", numberOfVertices, numberOfEdges);
+            //The mappings stay valid after the channel is closed
+            return new MappedGraph(channel, numberOfVertices, numberOfEdges, numberOfStrings, numberOfStringBytes);
+        }
+    }
+
+    private static ByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+        if (size > Integer.MAX_VALUE)
+            throw new IOException("A section of the Graph file is too large to be mapped");
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, size).order(GraphFormat.BYTE_ORDER);
+    }
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return map(channel, position, (long) count * Integer.BYTES).asIntBuffer();
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Simple Getters for the mapped Graph
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    @Override
+    public int getNumberOfVertices() { return this.numberOfVertices; }
+    public int getNumberOfEdges() { return this.numberOfEdges; }
+    @Override
+    public int firstEdge(int vertexId) { return this.offsets.get(vertexId); }
+    @Override
+    public int edgeTarget(int edgeId) { return this.targets.get(edgeId); }
+    @Override
+    public int edgeWeight(int edgeId) { return this.weights.get(edgeId); }
+
+    /**
+     * Gets the id of the Vertex with the given label, with a binary search of the sorted labels in the file.
+     * @param vertexName : The label of the Vertex
+     * @return The id of the Vertex, or -1 if it is not in the file
+     */
+    public int getVertexId(String vertexName) {
+        if (vertexName == null)
+            return -1;
+        byte[] wanted = vertexName.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = this.numberOfVertices - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int vertexId = this.labelOrder.get(middle);
+            int comparison = this.compareString(this.vertexLabelIds.get(vertexId), wanted);
+            if (comparison < 0)
+                low = middle + 1;
+            else if (comparison > 0)
+                high = middle - 1;
+            else
+                return vertexId;
+        }
+        return -1;
+    }
+    public String getVertexLabel(int vertexId) { return this.getString(this.vertexLabelIds.get(vertexId)); }
+
+    /**
+     * Gets a Vertex by its name, along with the Edges leaving it.
+     * @param vertexName : The name of the Vertex to search for
+     * @return A new, detached Vertex object if it exists, otherwise, null
+     */
+    public Vertex getVertex(String vertexName) {
+        int vertexId = this.getVertexId(vertexName);
+        if (vertexId == -1)
+            return null;
+        Vertex foundVertex = new Vertex(this.getVertexLabel(vertexId));
+        for (int e = this.offsets.get(vertexId); e < this.offsets.get(vertexId + 1); e++) {
+            Vertex vertexEnd = new Vertex(this.getVertexLabel(this.targets.get(e)));
+            foundVertex.addEdgeUnchecked(
+                new Edge(foundVertex, vertexEnd, this.weights.get(e), this.getString(this.edgeLabelIds.get(e)), false)
+            );
+        }
+        return foundVertex;
+    }
+    /**
+     * Attempts to find the Edge that exists between the two given Vertices
+     * @param vertexStartName : The name of the vertex that this edge starts at
+     * @param vertexEndName : The name of the vertex that this edge ends at
+     * @return A new, detached Edge object. Returns null if the Edge is not found
+     */
+    public Edge getEdge(String vertexStartName, String vertexEndName) {
+        int vertexStartId = this.getVertexId(vertexStartName);
+        int vertexEndId = this.getVertexId(vertexEndName);
+        if (vertexStartId == -1 || vertexEndId == -1)
+            return null;
+        for (int e = this.offsets.get(vertexStartId); e < this.offsets.get(vertexStartId + 1); e++) {
+            if (this.targets.get(e) == vertexEndId)
+                return this.makeEdge(new Vertex(this.getVertexLabel(vertexStartId)), e);
+        }
+        return null;
+    }
+
+    private Edge makeEdge(Vertex vertexStart, int edgeId) {
+        Vertex vertexEnd = new Vertex(this.getVertexLabel(this.targets.get(edgeId)));
+        return new Edge(vertexStart, vertexEnd, this.weights.get(edgeId), this.getString(this.edgeLabelIds.get(edgeId)), false);
+    }
+    private String getString(int stringId) {
+        if (stringId == -1)
+            return null;
+        int start = this.stringOffsets.get(stringId);
+        byte[] bytes = new byte[this.stringOffsets.get(stringId + 1) - start];
+        this.stringBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    /**
+     * Compares a string in the file with the given UTF-8 bytes, the same way the labels were sorted
+     */
+    private int compareString(int stringId, byte[] other) {
+        int start = this.stringOffsets.get(stringId);
+        int length = this.stringOffsets.get(stringId + 1) - start;
+        int shared = Math.min(length, other.length);
+        for (int i = 0; i < shared; i++) {
+            int comparison = Byte.compareUnsigned(this.stringBytes.get(start + i), other[i]);
+            if (comparison != 0)
+                return comparison;
+        }
+        return Integer.compare(length, other.length);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Getting Paths between Vertices
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    private int[] getEndpointIds(String vertexStartName, String vertexEndName) {
+        if (vertexStartName != null && vertexStartName.equals(vertexEndName)) {
+            classLogger.debug("Was given the same vertex for the start and end.");
+            throw new IllegalArgumentException("Starting Vertex and Ending Vertex cannot be the same");
+        }
+        int vertexStartId = this.getVertexId(vertexStartName);
+        if (vertexStartId == -1)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexStartName )
+            );
+        int vertexEndId = this.getVertexId(vertexEndName);
+        if (vertexEndId == -1)
+            throw new IllegalArgumentException(
+                "The Vertex %s does not exist in this Graph.".formatted( vertexEndName )
+            );
+        return new int[] { vertexStartId, vertexEndId };
+    }
+
+    private Path makeIntoPath(int[] edgeIds, int length, int vertexStartId) {
+        Path newPath = new Path();
+        Vertex stepStart = new Vertex(this.getVertexLabel(vertexStartId));
+        for (int i = 0; i < length; i++) {
+            Edge newEdge = this.makeEdge(stepStart, edgeIds[i]);
+            newPath.addStep(newEdge, ((i+1) == length)); //True if is final Edge in the path
+            stepStart = newEdge.getVertexEnd();
+        }
+        return newPath;
+    }
+
+    /**
+     * Gets the shortest path between the given start and end vertices, using Dijkstra's algorithm.
+     * If more than one path has the lowest cost, the path using the fewest Edges is returned.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return A Path object, the shortest path from Vertex A to Vertex B
+     * @throws ArithmeticException : The shortest path costs more than `Integer.MAX_VALUE`, the most a Path can cost
+     */
+    public Path findShortestPath(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.getEndpointIds(vertexStartName, vertexEndName);
+        int[] edgeIds = CsrSearch.findShortestPath(this, endpoints[0], endpoints[1]);
+        if (edgeIds == null) {
+            classLogger.debug("No path found from '{}' to '{}'", vertexStartName, vertexEndName);
+            throw new RuntimeException(
+                "No path could be found from '%s' to '%s'".formatted( vertexStartName, vertexEndName )
+            );
+        }
+        return this.makeIntoPath(edgeIds, edgeIds.length, endpoints[0]);
+    }
+
+    /**
+     * Find all possible paths from the Vertex A to Vertex B, regardless of cost.
+     * Each path will only use each Vertex once at a maximum.
+     * @param vertexStartName : The starting point of our path search
+     * @param vertexEndName : The Vertex we wish to reach
+     * @return A List of Path objects, in the same order `Graph.findAllPaths` finds them
+     */
+    public List<Path> findAllPaths(String vertexStartName, String vertexEndName) {
+        int[] endpoints = this.getEndpointIds(vertexStartName, vertexEndName);
+        ArrayList<Path> allPaths = new ArrayList<>();
+        CsrSearch.findAllPaths(this, endpoints[0], endpoints[1], (edgeIds, length) -> {
+            allPaths.add(this.makeIntoPath(edgeIds, length, endpoints[0]));
+        });
+        return Collections.unmodifiableList(allPaths);
+    }
+
+}
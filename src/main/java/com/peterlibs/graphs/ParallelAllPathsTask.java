@@ -0,0 +1,110 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds all simple paths to a destination by splitting the search tree across a ForkJoinPool.
+ * Each task owns one branch of the search: the Edges taken so far (its prefix) and its own
+ * bitset of visited vertices (by Vertex index), so tasks never share any mutable state.
+ * While the pool is short of work, a task forks one subtask per Edge leaving its Vertex;
+ * otherwise it walks its branch sequentially with an `AllPathsIterator`. Idle workers steal
+ * the forked subtasks.
+ * Each task returns its own list of paths, and the lists are joined in Edge order, so the
+ * final result is in the same order as `Graph.findAllPaths`.
+ * When the work is being counted, each task counts its own in its own QueryStats, and adds the
+ * counts of its subtasks to them once they are joined.
+ */
+class ParallelAllPathsTask extends RecursiveTask<ArrayList<Path>> {
+
+    private static final long serialVersionUID = 1L;
+    static final Logger classLogger = LogManager.getLogger(ParallelAllPathsTask.class);
+    //A task only splits while fewer than this many tasks are waiting in its worker's queue,
+    // which keeps the number of tasks in line with the number of idle workers.
+    static final int SURPLUS_TASK_THRESHOLD = 3;
+    //Instance variables, for recording the branch of the search this task owns.
+    private final Vertex vertexStart;
+    private final Vertex vertexCurrent;
+    private final Vertex vertexDestination;
+    private final ArrayList<Edge> pathPrefix;
+    private final BitSet visitedVertices;
+    //[nullable] Where to count the work done by this task and its subtasks
+    private final transient QueryStats stats;
+
+    /**
+     * Constructor for the task that searches from the starting Vertex
+     * @param vertexStart : The vertex we are starting at
+     * @param vertexDestination : The vertex we are searching for
+     * @param stats : [nullable] Where to count the work done by the search. The caller resets and finishes it.
+     */
+    ParallelAllPathsTask (Vertex vertexStart, Vertex vertexDestination, QueryStats stats) {
+        this(vertexStart, vertexStart, vertexDestination, new ArrayList<>(), new BitSet(), stats);
+        this.visitedVertices.set(vertexStart.getIndex());
+    }
+    private ParallelAllPathsTask (
+        Vertex vertexStart, Vertex vertexCurrent, Vertex vertexDestination,
+        ArrayList<Edge> pathPrefix, BitSet visitedVertices, QueryStats stats
+    ) {
+        this.vertexStart = vertexStart;
+        this.vertexCurrent = vertexCurrent;
+        this.vertexDestination = vertexDestination;
+        this.pathPrefix = pathPrefix;
+        this.visitedVertices = visitedVertices;
+        this.stats = stats;
+    }
+
+    @Override
+    protected ArrayList<Path> compute() {
+        ArrayList<Path> foundPaths = new ArrayList<>();
+        if (this.vertexCurrent == this.vertexDestination) {
+            foundPaths.add(Graph.makeIntoPath(this.pathPrefix));
+            return foundPaths;
+        }
+
+        ArrayList<Edge> edges = this.vertexCurrent.getEdgesInternal();
+        if (edges.size() > 1 && ForkJoinTask.getSurplusQueuedTaskCount() < SURPLUS_TASK_THRESHOLD) {
+            if (this.stats != null) {
+                this.stats.countExpansion();
+                this.stats.countScans(edges.size());
+                this.stats.recordDepth(this.pathPrefix.size());
+            }
+            ArrayList<ParallelAllPathsTask> subtasks = new ArrayList<>(edges.size());
+            for (Edge anEdge: edges) {
+                //If we have already visited the vertex, skip doing anything more
+                if (this.visitedVertices.get(anEdge.getVertexEnd().getIndex()))
+                    continue;
+                ArrayList<Edge> subtaskPrefix = new ArrayList<>(this.pathPrefix.size() + 1);
+                subtaskPrefix.addAll(this.pathPrefix);
+                subtaskPrefix.add(anEdge);
+                BitSet subtaskVisited = (BitSet) this.visitedVertices.clone();
+                subtaskVisited.set(anEdge.getVertexEnd().getIndex());
+                subtasks.add(new ParallelAllPathsTask(
+                    this.vertexStart, anEdge.getVertexEnd(), this.vertexDestination,
+                    subtaskPrefix, subtaskVisited, (this.stats != null) ? new QueryStats() : null
+                ));
+            }
+            invokeAll(subtasks);
+            for (ParallelAllPathsTask aSubtask: subtasks) {
+                foundPaths.addAll(aSubtask.join());
+                if (this.stats != null)
+                    this.stats.add(aSubtask.stats);
+            }
+            return foundPaths;
+        }
+
+        classLogger.trace("Searching branch of depth {} sequentially", this.pathPrefix.size());
+        Iterator<Path> branchPaths = new AllPathsIterator(
+            this.vertexStart, this.pathPrefix, this.vertexDestination, this.stats
+        );
+        while (branchPaths.hasNext()) {
+            foundPaths.add(branchPaths.next());
+        }
+        return foundPaths;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of path query results, keyed by the type of query and the labels of its
+ * start and end vertices. When full, the least recently used result is evicted.
+ * Every result is tied to the modification epoch of the Graph it was found in (see
+ * `Graph.getModificationEpoch`). As soon as the cache is used with a newer epoch, everything in
+ * it is thrown away, so a result from before a change to the Graph is never handed out.
+ * The hit, miss and eviction counts are kept so that the capacity can be tuned.
+ */
+public class PathCache {
+
+    static final Logger classLogger = LogManager.getLogger(PathCache.class);
+
+    /**
+     * The kinds of query whose results can be cached
+     */
+    enum QueryType {
+        SHORTEST_PATH,
+        ALL_PATHS
+    }
+    private record Key(QueryType queryType, String vertexStartName, String vertexEndName) {}
+
+    //Instance variables, for recording the cached results (in least to most recently used order),
+    // the epoch they were found in, and how well the cache is doing.
+    private final int capacity;
+    private final LinkedHashMap<Key, Object> results;
+    private long epoch;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Constructor for a new, empty PathCache
+     * @param capacity : The most results the cache will hold at once
+     */
+    PathCache (int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (this.size() > PathCache.this.capacity) {
+                    PathCache.this.evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+        this.epoch = -1;
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Simple Getters for the state of the cache
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public int getCapacity() { return this.capacity; }
+    public synchronized int size() { return this.results.size(); }
+    public synchronized long getHits() { return this.hits; }
+    public synchronized long getMisses() { return this.misses; }
+    //The number of results thrown out to make room for newer ones
+    public synchronized long getEvictions() { return this.evictions; }
+    //The number of times the whole cache was thrown away because the Graph changed
+    public synchronized long getInvalidations() { return this.invalidations; }
+
+    /**
+     * Looks up the result of a query.
+     * @param queryType : The kind of query
+     * @param vertexStartName : The label of the Vertex the query starts at
+     * @param vertexEndName : The label of the Vertex the query ends at
+     * @param currentEpoch : The modification epoch of the Graph right now
+     * @return The cached result, or null if there is none for the current epoch
+     */
+    synchronized Object get(QueryType queryType, String vertexStartName, String vertexEndName, long currentEpoch) {
+        this.checkEpoch(currentEpoch);
+        Object result = this.results.get(new Key(queryType, vertexStartName, vertexEndName));
+        if (result == null)
+            this.misses++;
+        else
+            this.hits++;
+        return result;
+    }
+
+    /**
+     * Stores the result of a query.
+     * @param queryType : The kind of query
+     * @param vertexStartName : The label of the Vertex the query starts at
+     * @param vertexEndName : The label of the Vertex the query ends at
+     * @param currentEpoch : The modification epoch of the Graph the result was found in
+     * @param result : The result of the query
+     */
+    synchronized void put(QueryType queryType, String vertexStartName, String vertexEndName, long currentEpoch, Object result) {
+        this.checkEpoch(currentEpoch);
+        //The Graph changed while the query was running, so the result may already be stale
+        if (currentEpoch != this.epoch)
+            return;
+        this.results.put(new Key(queryType, vertexStartName, vertexEndName), result);
+    }
+
+    private void checkEpoch(long currentEpoch) {
+        if (currentEpoch > this.epoch) {
+            if (!this.results.isEmpty()) {
+                classLogger.debug("Graph changed. Throwing away {} cached results", this.results.size());
+                this.results.clear();
+                this.invalidations++;
+            }
+            this.epoch = currentEpoch;
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PathCache{size=%d, capacity=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d}".formatted(
+            this.results.size(), this.capacity, this.hits, this.misses, this.evictions, this.invalidations
+        );
+    }
+
+}
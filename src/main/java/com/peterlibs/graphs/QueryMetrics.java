@@ -0,0 +1,205 @@
+package com.peterlibs.graphs;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Totals of the work done by every path query run against a Graph, for exporting to a metrics
+ * system (see `Graph.enableQueryMetrics`). For each kind of query, it keeps the number of
+ * queries, the sum of each count in `QueryStats` (allocated bytes included), the largest frontier and depth seen, and a
+ * histogram of how long the queries took.
+ * The histogram has one bucket per power of two nanoseconds, so it is fixed in size no matter
+ * how many queries are recorded, and each bucket is within a factor of two of its neighbours.
+ * Queries can be recorded from many threads at once (as they are through a `ConcurrentGraph`).
+ */
+public class QueryMetrics {
+
+    //The number of buckets in each latency histogram. Bucket `i` holds queries that took
+    // less than 2^i nanoseconds (and at least 2^(i-1)), so the last bucket starts at about 4.6 minutes.
+    static final int LATENCY_BUCKETS = 40;
+
+    /**
+     * The kinds of query that are recorded
+     */
+    public enum QueryType {
+        SHORTEST_PATH,
+        ALL_PATHS,
+        LONGEST_PATH,
+        K_SHORTEST_PATHS
+    }
+
+    /**
+     * The totals for one kind of query
+     */
+    private static final class Totals {
+        private final LongAdder queries = new LongAdder();
+        private final LongAdder verticesExpanded = new LongAdder();
+        private final LongAdder edgesScanned = new LongAdder();
+        private final LongAdder edgesRelaxed = new LongAdder();
+        private final LongAdder queueOperations = new LongAdder();
+        private final LongAdder wallTimeNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+        private final LongAccumulator maxFrontier = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+        private final LongAdder[] latencyBuckets = new LongAdder[LATENCY_BUCKETS];
+
+        Totals () {
+            for (int i = 0; i < LATENCY_BUCKETS; i++) {
+                this.latencyBuckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    //Instance variables, for recording the totals of each kind of query
+    private final EnumMap<QueryType, Totals> totals;
+
+    /**
+     * Constructor for a new QueryMetrics, with nothing recorded yet
+     */
+    QueryMetrics () {
+        this.totals = new EnumMap<>(QueryType.class);
+        for (QueryType aType: QueryType.values()) {
+            this.totals.put(aType, new Totals());
+        }
+    }
+
+    /**
+     * Adds the work done by one finished query to the totals
+     * @param queryType : The kind of query
+     * @param stats : The counts of the query, after `QueryStats.finish` was called
+     */
+    void record(QueryType queryType, QueryStats stats) {
+        Totals typeTotals = this.totals.get(queryType);
+        typeTotals.queries.increment();
+        typeTotals.verticesExpanded.add(stats.getVerticesExpanded());
+        typeTotals.edgesScanned.add(stats.getEdgesScanned());
+        typeTotals.edgesRelaxed.add(stats.getEdgesRelaxed());
+        typeTotals.queueOperations.add(stats.getQueueOperations());
+        typeTotals.wallTimeNanos.add(stats.getWallTimeNanos());
+        if (stats.getAllocatedBytes() > 0)
+            typeTotals.allocatedBytes.add(stats.getAllocatedBytes());
+        typeTotals.maxFrontier.accumulate(stats.getMaxFrontier());
+        typeTotals.maxDepth.accumulate(stats.getMaxDepth());
+        typeTotals.latencyBuckets[latencyBucket(stats.getWallTimeNanos())].increment();
+    }
+    static int latencyBucket(long nanos) {
+        int bucket = 64 - Long.numberOfLeadingZeros(Math.max(0, nanos));
+        return Math.min(bucket, LATENCY_BUCKETS - 1);
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Getters for the recorded totals
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    public long getQueries(QueryType queryType) { return this.totals.get(queryType).queries.sum(); }
+    public long getVerticesExpanded(QueryType queryType) { return this.totals.get(queryType).verticesExpanded.sum(); }
+    public long getEdgesScanned(QueryType queryType) { return this.totals.get(queryType).edgesScanned.sum(); }
+    public long getEdgesRelaxed(QueryType queryType) { return this.totals.get(queryType).edgesRelaxed.sum(); }
+    public long getQueueOperations(QueryType queryType) { return this.totals.get(queryType).queueOperations.sum(); }
+    public long getMaxFrontier(QueryType queryType) { return this.totals.get(queryType).maxFrontier.get(); }
+    public long getMaxDepth(QueryType queryType) { return this.totals.get(queryType).maxDepth.get(); }
+    public Duration getWallTime(QueryType queryType) { return Duration.ofNanos(this.totals.get(queryType).wallTimeNanos.sum()); }
+    //Zero on a JVM that cannot count allocated bytes (see `QueryStats.getAllocatedBytes`)
+    public long getAllocatedBytes(QueryType queryType) { return this.totals.get(queryType).allocatedBytes.sum(); }
+
+    /**
+     * Gets the latency histogram of a kind of query. Bucket `i` is the number of queries that
+     * took less than 2^i nanoseconds, and at least 2^(i-1) (the last bucket has no upper limit).
+     * @param queryType : The kind of query
+     * @return A new array of `LATENCY_BUCKETS` counts
+     */
+    public long[] getLatencyHistogram(QueryType queryType) {
+        LongAdder[] buckets = this.totals.get(queryType).latencyBuckets;
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            histogram[i] = buckets[i].sum();
+        }
+        return histogram;
+    }
+    /**
+     * Estimates a percentile of how long a kind of query took, from its latency histogram.
+     * The estimate is the upper limit of the bucket the percentile falls in, so it is never
+     * less than the real value, and at most twice it.
+     * @param queryType : The kind of query
+     * @param percentile : The percentile to estimate, between 0 and 100
+     * @return The estimated latency, or zero if no queries have been recorded
+     */
+    public Duration getLatencyPercentile(QueryType queryType, double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100");
+        }
+        long[] histogram = this.getLatencyHistogram(queryType);
+        long count = 0;
+        for (long bucketCount: histogram) {
+            count += bucketCount;
+        }
+        if (count == 0)
+            return Duration.ZERO;
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            seen += histogram[i];
+            if (seen >= rank)
+                return Duration.ofNanos(1L << i);
+        }
+        return Duration.ofNanos(1L << (LATENCY_BUCKETS - 1));
+    }
+
+    /**
+     * Gets every total as a flat map of metric names to values, ready to hand to a metrics system.
+     * Names look like "shortest_path.queries" or "all_paths.latency_p99_nanos".
+     * @return A new map, in a fixed order
+     */
+    public Map<String, Long> toMap() {
+        LinkedHashMap<String, Long> metrics = new LinkedHashMap<>();
+        for (QueryType aType: QueryType.values()) {
+            String prefix = aType.name().toLowerCase(Locale.ROOT) + ".";
+            metrics.put(prefix + "queries", this.getQueries(aType));
+            metrics.put(prefix + "vertices_expanded", this.getVerticesExpanded(aType));
+            metrics.put(prefix + "edges_scanned", this.getEdgesScanned(aType));
+            metrics.put(prefix + "edges_relaxed", this.getEdgesRelaxed(aType));
+            metrics.put(prefix + "queue_operations", this.getQueueOperations(aType));
+            metrics.put(prefix + "max_frontier", this.getMaxFrontier(aType));
+            metrics.put(prefix + "max_depth", this.getMaxDepth(aType));
+            metrics.put(prefix + "wall_time_nanos", this.getWallTime(aType).toNanos());
+            metrics.put(prefix + "allocated_bytes", this.getAllocatedBytes(aType));
+            metrics.put(prefix + "latency_p50_nanos", this.getLatencyPercentile(aType, 50).toNanos());
+            metrics.put(prefix + "latency_p99_nanos", this.getLatencyPercentile(aType, 99).toNanos());
+        }
+        return metrics;
+    }
+
+    /**
+     * Sets every total back to zero. Queries recorded while this runs may be partly lost.
+     */
+    public void reset() {
+        for (Totals typeTotals: this.totals.values()) {
+            typeTotals.queries.reset();
+            typeTotals.verticesExpanded.reset();
+            typeTotals.edgesScanned.reset();
+            typeTotals.edgesRelaxed.reset();
+            typeTotals.queueOperations.reset();
+            typeTotals.wallTimeNanos.reset();
+            typeTotals.allocatedBytes.reset();
+            typeTotals.maxFrontier.reset();
+            typeTotals.maxDepth.reset();
+            for (LongAdder aBucket: typeTotals.latencyBuckets) {
+                aBucket.reset();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "QueryMetrics" + this.toMap();
+    }
+
+}
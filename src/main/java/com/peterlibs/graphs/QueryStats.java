@@ -0,0 +1,152 @@
+package com.peterlibs.graphs;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Counts how much work a single path query did, so that different ways of answering the same
+ * query can be compared, and so that a slow query can be told apart from a query that simply
+ * had a lot to do. Pass one into a query that accepts it, and read it once the query returns
+ * (or throws). The counts are reset at the start of every query the object is given to.
+ * A QueryStats object should only be used by one query at a time.
+ * To keep totals across many queries instead, see `Graph.enableQueryMetrics`.
+ */
+public class QueryStats {
+
+    //Counts the bytes each thread allocates, or null on a JVM that cannot (or has been told not to)
+    private static final ThreadMXBean ALLOCATION_COUNTER = findAllocationCounter();
+
+    //Instance variables, for recording the work done by the last query
+    private long verticesExpanded;
+    private long edgesScanned;
+    private long edgesRelaxed;
+    private long queueOperations;
+    private int maxFrontier;
+    private int maxDepth;
+    private long startNanos;
+    private long wallTimeNanos;
+    private long startAllocatedBytes;
+    private long allocatedBytes;
+
+    /**
+     * Constructor for a new QueryStats, with every count at zero
+     */
+    public QueryStats () {
+        this.reset();
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Simple Getters for the recorded counts
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    //The number of vertices taken off of the queue (or pushed onto the stack), and whose Edges were looked at
+    public long getVerticesExpanded() { return this.verticesExpanded; }
+    //The number of Edges looked at, whether or not they led anywhere new
+    public long getEdgesScanned() { return this.edgesScanned; }
+    //The number of times a cheaper way of reaching a Vertex was found
+    public long getEdgesRelaxed() { return this.edgesRelaxed; }
+    //The number of times something was put on, taken off or moved up in the queue (or stack) of vertices to visit
+    public long getQueueOperations() { return this.queueOperations; }
+    //The most vertices waiting to be visited at once
+    public int getMaxFrontier() { return this.maxFrontier; }
+    //The most Edges on a single path the search was following at once. For a depth first
+    // search, this is how deep its recursion would have gone.
+    public int getMaxDepth() { return this.maxDepth; }
+    //How long the query took, from start to finish
+    public Duration getWallTime() { return Duration.ofNanos(this.wallTimeNanos); }
+    public long getWallTimeNanos() { return this.wallTimeNanos; }
+    //The bytes of memory the thread that ran the query allocated while it ran, or -1 if the JVM
+    // cannot count them. Work a parallel query hands to other threads is not included.
+    public long getAllocatedBytes() { return this.allocatedBytes; }
+
+    /**
+     * Sets every count back to zero, and starts the clock for a new query
+     */
+    void reset() {
+        this.verticesExpanded = 0;
+        this.edgesScanned = 0;
+        this.edgesRelaxed = 0;
+        this.queueOperations = 0;
+        this.maxFrontier = 0;
+        this.maxDepth = 0;
+        this.wallTimeNanos = 0;
+        this.allocatedBytes = 0;
+        this.startAllocatedBytes = currentAllocatedBytes();
+        this.startNanos = System.nanoTime();
+    }
+    /**
+     * Stops the clock (and the count of allocated bytes) for the query started by the last `reset`
+     */
+    void finish() {
+        this.wallTimeNanos = System.nanoTime() - this.startNanos;
+        long endAllocatedBytes = currentAllocatedBytes();
+        this.allocatedBytes = (endAllocatedBytes == -1 || this.startAllocatedBytes == -1)
+            ? -1 : endAllocatedBytes - this.startAllocatedBytes;
+    }
+    void countExpansion() { this.verticesExpanded++; }
+    void countScans(int edges) { this.edgesScanned += edges; }
+    void countRelaxation() { this.edgesRelaxed++; }
+    void countQueueOperation() { this.queueOperations++; }
+    void recordFrontier(int size) {
+        if (size > this.maxFrontier)
+            this.maxFrontier = size;
+    }
+    void recordDepth(int depth) {
+        if (depth > this.maxDepth)
+            this.maxDepth = depth;
+    }
+    /**
+     * Adds the counts of a part of the query that was counted separately (such as a branch
+     * searched on another thread) to these counts. The wall time and allocated bytes are left alone.
+     * @param other : The counts of the part of the query
+     */
+    void add(QueryStats other) {
+        this.verticesExpanded += other.verticesExpanded;
+        this.edgesScanned += other.edgesScanned;
+        this.edgesRelaxed += other.edgesRelaxed;
+        this.queueOperations += other.queueOperations;
+        this.recordFrontier(other.maxFrontier);
+        this.recordDepth(other.maxDepth);
+    }
+
+    @Override
+    public String toString() {
+        return ("QueryStats{verticesExpanded=%d, edgesScanned=%d, edgesRelaxed=%d, queueOperations=%d, " +
+                "maxFrontier=%d, maxDepth=%d, wallTime=%s, allocatedBytes=%d}").formatted(
+            this.verticesExpanded, this.edgesScanned, this.edgesRelaxed, this.queueOperations,
+            this.maxFrontier, this.maxDepth, this.getWallTime(), this.allocatedBytes
+        );
+    }
+
+
+    /*
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     * Counting allocated bytes
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - -
+     */
+
+    private static ThreadMXBean findAllocationCounter() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof ThreadMXBean threadBean
+                    && threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled())
+                return threadBean;
+        }
+        catch (UnsupportedOperationException | LinkageError unsupported) {
+            //Fall through, and count nothing
+        }
+        return null;
+    }
+    /**
+     * Gets the total bytes the current thread has allocated so far
+     * @return The number of bytes, or -1 if the JVM cannot count them
+     */
+    static long currentAllocatedBytes() {
+        return (ALLOCATION_COUNTER != null) ? ALLOCATION_COUNTER.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+}
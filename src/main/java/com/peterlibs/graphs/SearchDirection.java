@@ -0,0 +1,14 @@
+package com.peterlibs.graphs;
+
+/**
+ * Which way a shortest path query searches the Graph.
+ * Both give a path with the same cost and number of Edges, so they can be swapped freely to
+ * compare how long each takes.
+ */
+public enum SearchDirection {
+    //Search from the start, following the Edges leaving each Vertex
+    FORWARD,
+    //Search from the start and from the end at the same time (following the Edges coming into
+    // each Vertex from the end), until the two searches meet
+    BIDIRECTIONAL
+}
@@ -0,0 +1,94 @@
+package com.peterlibs.graphs;
+
+import java.util.Arrays;
+
+/**
+ * The scratch arrays a shortest path search needs (cost, hops and how each Vertex was reached,
+ * indexed by Vertex id), kept around between searches so that a search does not have to
+ * allocate and clear arrays the size of the whole Graph.
+ * Instead of clearing the arrays, every search is given a new "epoch" number. A Vertex only
+ * counts as settled if its stamp matches the current epoch, so stale values left over from
+ * earlier searches are simply ignored.
+ * Each thread gets its own workspace, so searches on different threads never share one.
+ * A search must be finished with its workspace before another search starts on the same thread.
+ * A bidirectional search uses a second workspace per thread for its backward half.
+ */
+class SearchWorkspace {
+
+    private static final ThreadLocal<SearchWorkspace> WORKSPACES = ThreadLocal.withInitial(SearchWorkspace::new);
+    private static final ThreadLocal<SearchWorkspace> BACKWARD_WORKSPACES = ThreadLocal.withInitial(SearchWorkspace::new);
+    //Instance variables, for recording the state of each Vertex (by id) in the current search
+    long[] costs;
+    int[] hops;
+    int[] previousVertices;
+    int[] previousEdges;
+    final IndexedMinHeap heap;
+    private int[] settledStamps;
+    private int epoch;
+
+    private SearchWorkspace () {
+        this.costs = new long[0];
+        this.hops = new int[0];
+        this.previousVertices = new int[0];
+        this.previousEdges = new int[0];
+        this.settledStamps = new int[0];
+        this.heap = new IndexedMinHeap();
+        this.epoch = 0;
+    }
+
+    /**
+     * Gets this thread's workspace, ready for a new search.
+     * @param numberOfIds : The number of Vertex ids the search may use (0 to numberOfIds-1)
+     * @return A SearchWorkspace, with no Vertex settled and an empty heap
+     */
+    static SearchWorkspace acquire(int numberOfIds) {
+        SearchWorkspace workspace = WORKSPACES.get();
+        workspace.begin(numberOfIds);
+        return workspace;
+    }
+
+    /**
+     * Same as `acquire`, but gets this thread's second workspace, so that the backward half of a
+     * bidirectional search can run alongside the forward half.
+     */
+    static SearchWorkspace acquireBackward(int numberOfIds) {
+        SearchWorkspace workspace = BACKWARD_WORKSPACES.get();
+        workspace.begin(numberOfIds);
+        return workspace;
+    }
+
+    private void begin(int numberOfIds) {
+        if (numberOfIds > this.settledStamps.length) {
+            int newCapacity = Math.max(numberOfIds, this.settledStamps.length * 2);
+            this.costs = Arrays.copyOf(this.costs, newCapacity);
+            this.hops = Arrays.copyOf(this.hops, newCapacity);
+            this.previousVertices = Arrays.copyOf(this.previousVertices, newCapacity);
+            this.previousEdges = Arrays.copyOf(this.previousEdges, newCapacity);
+            this.settledStamps = Arrays.copyOf(this.settledStamps, newCapacity);
+        }
+        this.heap.clear();
+        this.epoch++;
+        if (this.epoch == 0) {
+            //The epoch wrapped around, so old stamps could look current again
+            Arrays.fill(this.settledStamps, 0);
+            this.epoch = 1;
+        }
+    }
+
+    boolean isSettled(int id) { return this.settledStamps[id] == this.epoch; }
+    void settle(int id) { this.settledStamps[id] = this.epoch; }
+    void unsettle(int id) { this.settledStamps[id] = 0; }
+    //True if the Vertex has a recorded cost in the current search (it is settled or on the heap)
+    boolean isReached(int id) { return this.isSettled(id) || this.heap.contains(id); }
+
+    /**
+     * Records the best known way of reaching a Vertex
+     */
+    void reach(int id, long cost, int hops, int previousVertex, int previousEdge) {
+        this.costs[id] = cost;
+        this.hops[id] = hops;
+        this.previousVertices[id] = previousVertex;
+        this.previousEdges[id] = previousEdge;
+    }
+
+}
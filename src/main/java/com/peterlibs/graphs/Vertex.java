@@ -5,6 +5,7 @@ import org.apache.logging.log4j.Logger;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -13,10 +14,20 @@ import java.util.List;
 class Vertex implements Serializable {
 
     static final Logger classLogger = LogManager.getLogger(Vertex.class);
+    //Once a Vertex has this many Edges, we start keeping a hash index of its Edges by
+    // their ending Vertex, so that looking up an Edge does not need to scan them all.
+    static final int EDGE_INDEX_THRESHOLD = 16;
     //Instance variables, for recording the edges this Vertex is incident to, specifically
     // where this is the STARTING vertex in the incident pair.
+    //The index is `null` until the Vertex has EDGE_INDEX_THRESHOLD Edges.
+    //We also record the edges where this is the ENDING vertex, so that the edges touching
+    // this Vertex can be found without looking through the whole Graph.
     final ArrayList<Edge> edges;
+    private HashMap<Vertex, Edge> edgeIndex;
+    final ArrayList<Edge> incomingEdges;
     private String label;
+    //The dense index given to this Vertex by its Graph, or -1 if it is not in a Graph.
+    private int index;
 
     /**
      * Constructor for a new Vertex in the Graph
@@ -24,7 +35,9 @@ class Vertex implements Serializable {
      */
     Vertex (String label) {
         this.edges = new ArrayList<>();
+        this.incomingEdges = new ArrayList<>();
         this.setLabel(label);
+        this.index = -1;
     }
     Vertex () {
         this(Graph.VERTEX_DEFAULT_LABEL);
@@ -44,23 +57,33 @@ class Vertex implements Serializable {
         this.label = label;
     }
 
+    int getIndex() { return this.index; }
+    void setIndex(int newIndex) { this.index = newIndex; }
+
     public List<Edge> getEdges() { return Collections.unmodifiableList(this.edges); }
+    /**
+     * Gets the Edges leaving this Vertex, for reading only. Edges must only be added or
+     * removed through `addEdge` and `removeEdge`, so that the index is kept up to date.
+     */
     ArrayList<Edge> getEdgesInternal() { return this.edges; }
+    boolean hasEdgeIndex() { return this.edgeIndex != null; }
     void addEdge(Edge newEdge) {
         if (newEdge == null) {
             classLogger.warn("Given a null Edge object");
             throw new IllegalArgumentException("Cannot add a null Edge object.");
         }
-        classLogger.trace(
-            "start: {} {}",
-            newEdge.getVertexStart().getLabel(),
-            newEdge.getVertexStart().toString()
-        );
-        classLogger.trace(
-            "this: {} {}",
-            this.getLabel(),
-            this.toString()
-        );
+        if (Graph.LOG_HOT_PATHS && classLogger.isTraceEnabled()) {
+            classLogger.trace(
+                "start: {} {}",
+                newEdge.getVertexStart().getLabel(),
+                newEdge.getVertexStart().toString()
+            );
+            classLogger.trace(
+                "this: {} {}",
+                this.getLabel(),
+                this.toString()
+            );
+        }
         if (newEdge.getVertexStart() != this) {
             classLogger.warn(
                 "This and given Start Vertex are not the same. {}' does not match '{}'",
@@ -69,9 +92,104 @@ class Vertex implements Serializable {
             );
             throw new IllegalArgumentException("The Edge does not have this Vertex as its starting vertex.");
         }
+        this.addEdgeUnchecked(newEdge);
+    }
+    /**
+     * Same as `addEdge`, without checking or logging anything, for building a Graph in bulk.
+     * The Edge must start at this Vertex.
+     */
+    void addEdgeUnchecked(Edge newEdge) {
+        newEdge.setOutgoingIndex(this.edges.size());
         this.edges.add(newEdge);
+        if (this.edgeIndex != null) {
+            this.edgeIndex.put(newEdge.getVertexEnd(), newEdge);
+        }
+        else if (this.edges.size() >= EDGE_INDEX_THRESHOLD) {
+            classLogger.debug("Vertex '{}' has {} Edges. Building Edge index", this.getLabel(), this.edges.size());
+            this.edgeIndex = new HashMap<>(this.edges.size() * 2);
+            for (Edge anEdge: this.edges) {
+                this.edgeIndex.put(anEdge.getVertexEnd(), anEdge);
+            }
+        }
+    }
+    /**
+     * Removes the given Edge from this Vertex. While the Vertex has fewer than
+     * `EDGE_INDEX_THRESHOLD` Edges, the Edges after it are moved down, so the rest stay in the
+     * order they were added. Past that, it is removed in constant time by moving the last Edge
+     * into its place, which changes the order of `getEdges` (and so the order paths are found in,
+     * and which of two paths of the same cost and length is picked).
+     * @param anEdge : An Edge that starts at this Vertex
+     */
+    void removeEdge(Edge anEdge) {
+        int position = anEdge.getOutgoingIndex();
+        if (position >= this.edges.size() || this.edges.get(position) != anEdge) {
+            classLogger.debug("Given Edge does not start at this Vertex. Nothing to remove");
+            return;
+        }
+        if (this.edges.size() < EDGE_INDEX_THRESHOLD) {
+            this.edges.remove(position);
+            for (int i = position; i < this.edges.size(); i++) {
+                this.edges.get(i).setOutgoingIndex(i);
+            }
+        }
+        else {
+            Edge lastEdge = this.edges.remove(this.edges.size() - 1);
+            if (lastEdge != anEdge) {
+                this.edges.set(position, lastEdge);
+                lastEdge.setOutgoingIndex(position);
+            }
+        }
+        if (this.edgeIndex != null) {
+            this.edgeIndex.remove(anEdge.getVertexEnd(), anEdge);
+        }
+    }
+
+    public List<Edge> getIncomingEdges() { return Collections.unmodifiableList(this.incomingEdges); }
+    ArrayList<Edge> getIncomingEdgesInternal() { return this.incomingEdges; }
+    void addIncomingEdge(Edge newEdge) {
+        if (newEdge == null) {
+            classLogger.warn("Given a null Edge object");
+            throw new IllegalArgumentException("Cannot add a null Edge object.");
+        }
+        if (newEdge.getVertexEnd() != this) {
+            classLogger.warn(
+                "This and given End Vertex are not the same. {}' does not match '{}'",
+                newEdge.getVertexEnd().getLabel(),
+                this.getLabel()
+            );
+            throw new IllegalArgumentException("The Edge does not have this Vertex as its ending vertex.");
+        }
+        this.addIncomingEdgeUnchecked(newEdge);
+    }
+    void addIncomingEdgeUnchecked(Edge newEdge) {
+        newEdge.setIncomingIndex(this.incomingEdges.size());
+        this.incomingEdges.add(newEdge);
+    }
+    /**
+     * Removes the given Edge from this Vertex's incoming Edges, in the same way as `removeEdge`
+     * (keeping the order of the rest, unless there are `EDGE_INDEX_THRESHOLD` or more).
+     * @param anEdge : An Edge that ends at this Vertex
+     */
+    void removeIncomingEdge(Edge anEdge) {
+        int position = anEdge.getIncomingIndex();
+        if (position >= this.incomingEdges.size() || this.incomingEdges.get(position) != anEdge) {
+            classLogger.debug("Given Edge does not end at this Vertex. Nothing to remove");
+            return;
+        }
+        if (this.incomingEdges.size() < EDGE_INDEX_THRESHOLD) {
+            this.incomingEdges.remove(position);
+            for (int i = position; i < this.incomingEdges.size(); i++) {
+                this.incomingEdges.get(i).setIncomingIndex(i);
+            }
+        }
+        else {
+            Edge lastEdge = this.incomingEdges.remove(this.incomingEdges.size() - 1);
+            if (lastEdge != anEdge) {
+                this.incomingEdges.set(position, lastEdge);
+                lastEdge.setIncomingIndex(position);
+            }
+        }
     }
-    void removeEdge(Edge anEdge) { this.edges.remove(anEdge); }
 
     /**
      * Gets the Edge that connects this Vertex to the specified Vertex (if it exists).
@@ -80,29 +198,39 @@ class Vertex implements Serializable {
      */
     public Edge getEdgeToVertex(Vertex destinationVertex) {
         if (destinationVertex == null) {
-            classLogger.debug("Given destination Vertex is null. No Edge can exist");
+            if (Graph.LOG_HOT_PATHS)
+                classLogger.debug("Given destination Vertex is null. No Edge can exist");
             return null;
         }
 
-        classLogger.debug(
-            "Looking for Edge that connects this to Vertex '{}'",
-            destinationVertex.getLabel()
-        );
-        for (Edge anEdge: this.edges) {
-            classLogger.trace(
-                "Processing Edge: {} |  Ending Vertex [{}] '{}'",
-                anEdge.toString(),
-                anEdge.getVertexEnd().toString(),
-                anEdge.getVertexEnd().getLabel()
+        if (Graph.LOG_HOT_PATHS)
+            classLogger.debug(
+                "Looking for Edge that connects this to Vertex '{}'",
+                destinationVertex.getLabel()
             );
+        if (this.edgeIndex != null) {
+            return this.edgeIndex.get(destinationVertex);
+        }
+        boolean traceEdges = Graph.LOG_HOT_PATHS && classLogger.isTraceEnabled();
+        for (int i = 0; i < this.edges.size(); i++) {
+            Edge anEdge = this.edges.get(i);
+            if (traceEdges)
+                classLogger.trace(
+                    "Processing Edge: {} |  Ending Vertex [{}] '{}'",
+                    anEdge.toString(),
+                    anEdge.getVertexEnd().toString(),
+                    anEdge.getVertexEnd().getLabel()
+                );
             if (anEdge.getVertexEnd() == destinationVertex) {
                 return anEdge;
             }
         }
-        classLogger.debug("No Edge found. Returning null");
+        if (Graph.LOG_HOT_PATHS)
+            classLogger.debug("No Edge found. Returning null");
         return null;
     }
 
+    //Prints every one of the Vertex's Edges, so only log a Vertex when the log line will be seen
     @Override
     public String toString() {
         return
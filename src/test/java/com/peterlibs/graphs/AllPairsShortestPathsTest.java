@@ -0,0 +1,113 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+class AllPairsShortestPathsTest {
+
+    static final Logger testLogger = LogManager.getLogger(AllPairsShortestPathsTest.class);
+
+    Graph largeGraph;
+    GraphSnapshot largeSnapshot;
+
+    @BeforeEach
+    public void init() {
+        //More vertices than a single Floyd-Warshall block, so that every phase gets used
+        testLogger.info("Creating new Graph of 150 vertices, with random Edges");
+        largeGraph = new Graph();
+        Random random = new Random(42);
+        for (int i = 0; i < 150; i++) {
+            largeGraph.addVertex("v" + i);
+        }
+        for (int i = 0; i < 600; i++) {
+            int start = random.nextInt(150);
+            int end = random.nextInt(150);
+            if (start != end)
+                largeGraph.addEdge("v" + start, "v" + end, random.nextInt(10));
+        }
+        largeSnapshot = largeGraph.freeze();
+    }
+
+    @Test
+    void backendsMatchDijkstra() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            AllPairsShortestPaths floydWarshall = AllPairsShortestPaths.computeFloydWarshall(largeSnapshot, pool);
+            AllPairsShortestPaths dijkstra = AllPairsShortestPaths.computeDijkstra(largeSnapshot, pool);
+            for (AllPairsShortestPaths allPairs: new AllPairsShortestPaths[] { floydWarshall, dijkstra }) {
+                for (int i = 0; i < 150; i += 7) {
+                    for (int j = 0; j < 150; j += 3) {
+                        if (i == j)
+                            continue;
+                        String vertexStartName = "v" + i;
+                        String vertexEndName = "v" + j;
+                        Path expectedPath;
+                        try {
+                            expectedPath = largeGraph.findShortestPath(vertexStartName, vertexEndName);
+                        }
+                        catch (RuntimeException e) {
+                            assertEquals(-1, allPairs.getDistance(vertexStartName, vertexEndName));
+                            assertThrows(RuntimeException.class, () -> allPairs.getPath(vertexStartName, vertexEndName));
+                            continue;
+                        }
+                        assertEquals(expectedPath.getCost(), allPairs.getDistance(vertexStartName, vertexEndName));
+                        Path aPath = allPairs.getPath(vertexStartName, vertexEndName);
+                        assertEquals(expectedPath.getCost(), aPath.getCost());
+                        assertEquals(expectedPath.getVertices().size(), aPath.getVertices().size());
+                        assertEquals(vertexEndName, aPath.getVertices().get(aPath.getVertices().size() - 1).getLabel());
+                    }
+                }
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void matrices() {
+        Graph testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addVertex("v3");
+        testGraph.addEdge("v1", "v2", 4);
+        testGraph.addEdge("v2", "v3", 1);
+        testGraph.addEdge("v1", "v3", 6);
+
+        AllPairsShortestPaths allPairs = testGraph.findAllShortestPaths();
+        assertEquals(3, allPairs.getNumberOfVertices());
+        long[][] distances = allPairs.getDistanceMatrix();
+        int[][] nextHops = allPairs.getNextHopMatrix();
+        assertArrayEquals(new long[] { 0, 4, 5 }, distances[0]);
+        assertArrayEquals(new long[] { -1, 0, 1 }, distances[1]);
+        assertArrayEquals(new long[] { -1, -1, 0 }, distances[2]);
+        assertArrayEquals(new int[] { -1, 1, 1 }, nextHops[0]);
+        assertArrayEquals(new int[] { -1, -1, 2 }, nextHops[1]);
+        assertEquals("v2", allPairs.getVertexLabel(nextHops[allPairs.getVertexId("v1")][allPairs.getVertexId("v3")]));
+
+        Path aPath = allPairs.getPath("v1", "v3");
+        assertEquals(5, aPath.getCost());
+        assertEquals(3, aPath.getVertices().size());
+        assertThrows(RuntimeException.class, () -> allPairs.getPath("v3", "v1"));
+        assertThrows(IllegalArgumentException.class, () -> allPairs.getPath("v1", "v1"));
+        assertThrows(IllegalArgumentException.class, () -> allPairs.getDistance("v1", "vbad"));
+    }
+
+    @Test
+    void tooManyVertices() {
+        testLogger.info("Validating that a V x V table too big for an array is refused up front");
+        GraphBuilder aBuilder = new GraphBuilder();
+        for (int i = 0; i < 46341; i++) {
+            aBuilder.addVertex("v" + i);
+        }
+        GraphSnapshot bigSnapshot = aBuilder.build().freeze();
+        assertThrows(IllegalArgumentException.class, bigSnapshot::findAllShortestPaths);
+    }
+
+}
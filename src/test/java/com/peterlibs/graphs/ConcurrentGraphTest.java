@@ -0,0 +1,265 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class ConcurrentGraphTest {
+
+    static final Logger testLogger = LogManager.getLogger(ConcurrentGraphTest.class);
+    static final int GRID_SIZE = 20;
+    static final int THREADS = 4;
+
+    ConcurrentGraph gridGraph;
+    ExecutorService executor;
+
+    @BeforeEach
+    public void init() {
+        testLogger.info("Creating new grid Graph, shared between threads");
+        Graph aGraph = new Graph();
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int y = 0; y < GRID_SIZE; y++) {
+                aGraph.addVertex(x + "," + y);
+            }
+        }
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int y = 0; y < GRID_SIZE; y++) {
+                if (x + 1 < GRID_SIZE)
+                    aGraph.addEdge(x + "," + y, (x + 1) + "," + y, 1 + (x * y) % 5);
+                if (y + 1 < GRID_SIZE)
+                    aGraph.addEdge(x + "," + y, x + "," + (y + 1), 1 + (x + y) % 3);
+            }
+        }
+        gridGraph = new ConcurrentGraph(aGraph);
+        executor = Executors.newFixedThreadPool(THREADS + 1);
+    }
+
+    @AfterEach
+    public void cleanUp() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void queriesInParallel() throws Exception {
+        String corner = (GRID_SIZE - 1) + "," + (GRID_SIZE - 1);
+        int expectedCost = gridGraph.findShortestPath("0,0", corner).getCost();
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            results.add(executor.submit(() -> {
+                int cost = 0;
+                for (int i = 0; i < 200; i++) {
+                    cost = gridGraph.findShortestPath("0,0", corner).getCost();
+                }
+                return cost;
+            }));
+        }
+        for (Future<Integer> aResult: results) {
+            assertEquals(expectedCost, aResult.get(30, TimeUnit.SECONDS));
+        }
+        assertEquals(GRID_SIZE * GRID_SIZE, gridGraph.getNumberOfVertices());
+        assertEquals(2 * GRID_SIZE * (GRID_SIZE - 1), gridGraph.getNumberOfEdges());
+    }
+
+    @Test
+    void readersDoNotBlockReaders() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> longQuery = executor.submit(() -> gridGraph.read(aGraph -> {
+            holding.countDown();
+            try {
+                release.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holding.await();
+
+        testLogger.info("Validating that a query runs while another query holds the read lock");
+        Future<Path> otherQuery = executor.submit(() -> gridGraph.findShortestPath("0,0", "3,3"));
+        assertNotNull(otherQuery.get(10, TimeUnit.SECONDS));
+        assertNotNull(gridGraph.getEdge("0,0", "0,1"));
+
+        testLogger.info("Validating that a change waits until the query is done");
+        Future<Edge> change = executor.submit(() -> gridGraph.addEdge("0,0", "3,3", 0));
+        assertThrows(TimeoutException.class, () -> change.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        longQuery.get(10, TimeUnit.SECONDS);
+        assertNotNull(change.get(10, TimeUnit.SECONDS));
+        assertEquals(0, gridGraph.findShortestPath("0,0", "3,3").getCost());
+    }
+
+    @Test
+    void queriesWhileChanging() throws Exception {
+        checkQueriesWhileChanging();
+    }
+
+    @Test
+    void queriesWhileChangingStriped() throws Exception {
+        gridGraph = new ConcurrentGraph(gridGraph.read(aGraph -> aGraph), 16);
+        assertTrue(gridGraph.isStriped());
+        checkQueriesWhileChanging();
+    }
+
+    private void checkQueriesWhileChanging() throws Exception {
+        String corner = (GRID_SIZE - 1) + "," + (GRID_SIZE - 1);
+        int costWithoutShortcut = gridGraph.findShortestPath("0,0", corner).getCost();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<Integer> writer = executor.submit(() -> {
+            int changes = 0;
+            while (running.get()) {
+                gridGraph.addEdge("0,0", corner, 1, "shortcut");
+                gridGraph.removeEdge("0,0", corner);
+                gridGraph.addVertex("extra");
+                gridGraph.addEdge("extra", "0,0", 1);
+                gridGraph.removeVertex("extra");
+                changes += 5;
+            }
+            return changes;
+        });
+        List<Future<Integer>> readers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            readers.add(executor.submit(() -> {
+                int queries = 0;
+                for (int i = 0; i < 300; i++) {
+                    //Every query sees the Graph either with or without the shortcut, never half changed
+                    int cost = gridGraph.findShortestPath("0,0", corner).getCost();
+                    assertTrue(cost == 1 || cost == costWithoutShortcut);
+                    Edge anEdge = gridGraph.getEdge("0,0", corner);
+                    assertTrue(anEdge == null || anEdge.getWeight() == 1);
+                    assertTrue(gridGraph.getNumberOfVertices() >= GRID_SIZE * GRID_SIZE);
+                    queries++;
+                }
+                return queries;
+            }));
+        }
+        for (Future<Integer> aReader: readers) {
+            assertEquals(300, aReader.get(60, TimeUnit.SECONDS));
+        }
+        running.set(false);
+        testLogger.info("Writer made {} changes while the readers ran", writer.get(10, TimeUnit.SECONDS));
+        assertNull(gridGraph.getVertex("extra"));
+        assertEquals(costWithoutShortcut, gridGraph.findShortestPath("0,0", corner).getCost());
+    }
+
+    @Test
+    void edgeChangesInParallel() throws Exception {
+        testLogger.info("Changing Edges from many threads at once, while vertices are removed");
+        ConcurrentGraph stripedGraph = new ConcurrentGraph(new Graph(), ConcurrentGraph.DEFAULT_STRIPES);
+        for (int i = 0; i < 400; i++) {
+            stripedGraph.addVertex("v" + i);
+        }
+        List<Future<Integer>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            writers.add(executor.submit(() -> {
+                int changes = 0;
+                for (int round = 0; round < 5; round++) {
+                    for (int i = thread; i < 400; i += THREADS) {
+                        //Every thread links its own vertices to every thread's vertices.
+                        // An Edge to a Vertex that was just removed is refused, like it would be in a Graph.
+                        try {
+                            stripedGraph.addEdge("v" + i, "v" + ((i * 7 + round) % 400), round + i);
+                            stripedGraph.addEdge("v" + i, "v" + ((i + 1) % 400), round);
+                            changes += 2;
+                        }
+                        catch (IllegalArgumentException e) {
+                            assertTrue(stripedGraph.getVertex("v" + i) == null || stripedGraph.getVertex("v" + ((i + 1) % 400)) == null
+                                || stripedGraph.getVertex("v" + ((i * 7 + round) % 400)) == null);
+                        }
+                    }
+                }
+                return changes;
+            }));
+        }
+        Future<?> remover = executor.submit(() -> {
+            for (int i = 0; i < 20; i++) {
+                stripedGraph.removeVertex("v" + (i * 19 + 3));
+            }
+        });
+        for (Future<Integer> aWriter: writers) {
+            assertTrue(aWriter.get(60, TimeUnit.SECONDS) > 0);
+        }
+        remover.get(60, TimeUnit.SECONDS);
+
+        testLogger.info("Validating that every Edge left is attached at both ends");
+        assertEquals(380, stripedGraph.getNumberOfVertices());
+        assertNull(stripedGraph.getVertex("v3"));
+        stripedGraph.read(aGraph -> {
+            int outgoing = 0;
+            int incoming = 0;
+            for (Vertex aVertex: aGraph.getVerticesInternal()) {
+                for (Edge anEdge: aVertex.getEdges()) {
+                    assertSame(aVertex, anEdge.getVertexStart());
+                    assertSame(anEdge.getVertexEnd(), aGraph.getVertex(anEdge.getVertexEnd().getLabel()));
+                    assertTrue(anEdge.getVertexEnd().getIncomingEdges().contains(anEdge));
+                    outgoing++;
+                }
+                incoming += aVertex.getIncomingEdges().size();
+            }
+            assertEquals(outgoing, incoming);
+            assertEquals(outgoing, aGraph.getNumberOfEdges());
+            return null;
+        });
+        assertEquals(4, stripedGraph.getEdge("v1", "v2").getWeight());
+        assertEquals(stripedGraph.getVertex("v1"), stripedGraph.getEdge("v1", "v2").getVertexStart());
+    }
+
+    @Test
+    void stripedWrite() {
+        ConcurrentGraph stripedGraph = new ConcurrentGraph(new Graph(), 4);
+        assertEquals(4, stripedGraph.getNumberOfStripes());
+        stripedGraph.write(aGraph -> {
+            aGraph.addVertex("v1");
+            aGraph.addVertex("v2");
+            return aGraph.addEdge("v1", "v2", 3);
+        });
+        testLogger.info("Validating that vertices added in a batch can be found without a lock");
+        assertNotNull(stripedGraph.getVertex("v1"));
+        assertEquals(3, stripedGraph.findShortestPath("v1", "v2").getCost());
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentGraph(new Graph(), 3));
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentGraph(null));
+    }
+
+    @Test
+    void stripedWriteKeepsVerticesVisible() throws Exception {
+        ConcurrentGraph stripedGraph = new ConcurrentGraph(new Graph(), 4);
+        for (int i = 0; i < 2000; i++) {
+            stripedGraph.addVertex("v" + i);
+        }
+        testLogger.info("Looking up vertices without a lock, while batches keep replacing the label index");
+        AtomicBoolean writing = new AtomicBoolean(true);
+        Future<Integer> reader = executor.submit(() -> {
+            int lookups = 0;
+            while (writing.get()) {
+                for (int i = 0; i < 2000; i += 37) {
+                    assertNotNull(stripedGraph.getVertex("v" + i));
+                    lookups++;
+                }
+            }
+            return lookups;
+        });
+        for (int round = 0; round < 50; round++) {
+            String extraLabel = "extra" + round;
+            stripedGraph.write(aGraph -> aGraph.addVertex(extraLabel));
+            assertNotNull(stripedGraph.getVertex(extraLabel));
+        }
+        writing.set(false);
+        assertTrue(reader.get(60, TimeUnit.SECONDS) > 0);
+    }
+
+}
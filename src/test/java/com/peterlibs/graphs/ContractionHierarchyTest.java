@@ -0,0 +1,114 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+import java.util.Random;
+
+class ContractionHierarchyTest {
+
+    static final Logger testLogger = LogManager.getLogger(ContractionHierarchyTest.class);
+    static final int GRID_SIZE = 25;
+
+    Graph roadGraph;
+
+    @BeforeEach
+    public void init() {
+        testLogger.info("Creating new grid Graph of roads, some of which are one way");
+        roadGraph = new Graph();
+        Random random = new Random(7);
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int y = 0; y < GRID_SIZE; y++) {
+                roadGraph.addVertex(x + "," + y);
+            }
+        }
+        for (int x = 0; x < GRID_SIZE; x++) {
+            for (int y = 0; y < GRID_SIZE; y++) {
+                String here = x + "," + y;
+                if (x + 1 < GRID_SIZE) {
+                    roadGraph.addEdge(here, (x + 1) + "," + y, 1 + random.nextInt(9));
+                    if (random.nextInt(5) != 0)
+                        roadGraph.addEdge((x + 1) + "," + y, here, 1 + random.nextInt(9));
+                }
+                if (y + 1 < GRID_SIZE) {
+                    roadGraph.addEdge(here, x + "," + (y + 1), 1 + random.nextInt(9));
+                    if (random.nextInt(5) != 0)
+                        roadGraph.addEdge(x + "," + (y + 1), here, 1 + random.nextInt(9));
+                }
+            }
+        }
+    }
+
+    @Test
+    void findShortestPath() {
+        ContractionHierarchy hierarchy = roadGraph.buildContractionHierarchy();
+        testLogger.info(
+            "Built hierarchy in {} ms with {} shortcuts",
+            hierarchy.getPreprocessingTime().toMillis(), hierarchy.getNumberOfShortcuts()
+        );
+        assertEquals(GRID_SIZE * GRID_SIZE, hierarchy.getNumberOfVertices());
+        assertTrue(hierarchy.getNumberOfShortcuts() > 0);
+        assertNotNull(hierarchy.getPreprocessingTime());
+
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            String vertexStartName = random.nextInt(GRID_SIZE) + "," + random.nextInt(GRID_SIZE);
+            String vertexEndName = random.nextInt(GRID_SIZE) + "," + random.nextInt(GRID_SIZE);
+            if (vertexStartName.equals(vertexEndName))
+                continue;
+            Path expectedPath;
+            try {
+                expectedPath = roadGraph.findShortestPath(vertexStartName, vertexEndName);
+            }
+            catch (RuntimeException e) {
+                assertThrows(RuntimeException.class, () -> hierarchy.findShortestPath(vertexStartName, vertexEndName));
+                continue;
+            }
+            Path aPath = hierarchy.findShortestPath(vertexStartName, vertexEndName);
+            assertEquals(expectedPath.getCost(), aPath.getCost());
+            assertEquals(expectedPath.getVertices().size(), aPath.getVertices().size());
+
+            //The shortcuts must be unpacked into the Graph's own Edges, one after the other
+            List<Edge> edges = aPath.getEdges();
+            assertEquals(vertexStartName, edges.get(0).getVertexStart().getLabel());
+            assertEquals(vertexEndName, edges.get(edges.size() - 1).getVertexEnd().getLabel());
+            for (int e = 0; e < edges.size(); e++) {
+                Edge anEdge = edges.get(e);
+                assertSame(anEdge, roadGraph.getEdge(anEdge.getVertexStart().getLabel(), anEdge.getVertexEnd().getLabel()));
+                if (e > 0)
+                    assertSame(edges.get(e - 1).getVertexEnd(), anEdge.getVertexStart());
+            }
+        }
+    }
+
+    @Test
+    void findShortestPathExpandsFewerVertices() {
+        ContractionHierarchy hierarchy = roadGraph.buildContractionHierarchy();
+        QueryStats dijkstraStats = new QueryStats();
+        QueryStats hierarchyStats = new QueryStats();
+        String vertexStartName = "0,0";
+        String vertexEndName = (GRID_SIZE - 1) + "," + (GRID_SIZE - 1);
+        Path expectedPath = roadGraph.findShortestPath(vertexStartName, vertexEndName, Heuristic.NONE, dijkstraStats);
+        Path aPath = hierarchy.findShortestPath(vertexStartName, vertexEndName, hierarchyStats);
+        testLogger.info("Dijkstra {} | Contraction Hierarchy {}", dijkstraStats, hierarchyStats);
+        assertEquals(expectedPath.getCost(), aPath.getCost());
+        assertTrue(hierarchyStats.getVerticesExpanded() < dijkstraStats.getVerticesExpanded());
+    }
+
+    @Test
+    void changedGraph() {
+        ContractionHierarchy hierarchy = roadGraph.buildContractionHierarchy();
+        assertThrows(IllegalArgumentException.class, () -> hierarchy.findShortestPath("0,0", "0,0"));
+        assertThrows(RuntimeException.class, () -> hierarchy.findShortestPath("0,0", "vbad"));
+
+        testLogger.info("Validating that the hierarchy cannot be used once the Graph changes");
+        roadGraph.addEdge("0,0", "3,3", 1);
+        assertThrows(IllegalStateException.class, () -> hierarchy.findShortestPath("0,0", "3,3"));
+        assertEquals(1, roadGraph.buildContractionHierarchy().findShortestPath("0,0", "3,3").getCost());
+    }
+
+}
@@ -0,0 +1,114 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+class EdgeListFormatTest {
+
+    static final Logger testLogger = LogManager.getLogger(EdgeListFormatTest.class);
+
+    private static Graph importString(EdgeListFormat format, String edgeList) throws IOException {
+        byte[] bytes = edgeList.getBytes(StandardCharsets.UTF_8);
+        return format.importFrom(Channels.newChannel(new ByteArrayInputStream(bytes)));
+    }
+
+    @Test
+    void importEdgeList() throws IOException {
+        EdgeListFormat format = EdgeListFormat.tsv();
+        Graph aGraph = importString(format, "v1\tv2\t4\tfirst\r\nv2\tv3\t2\n\nv3\tv1\nv4\nv1\tv2\t7\tsecond");
+        assertEquals(4, aGraph.getNumberOfVertices());
+        assertEquals(3, aGraph.getNumberOfEdges());
+        testLogger.info("Validating that the last duplicate Edge wins, and missing fields get default values");
+        assertEquals(7, aGraph.getEdge("v1", "v2").getWeight());
+        assertEquals("second", aGraph.getEdge("v1", "v2").getLabel());
+        assertEquals(Graph.EDGE_DEFAULT_LABEL, aGraph.getEdge("v2", "v3").getLabel());
+        assertEquals(Graph.EDGE_DEFAULT_WEIGHT, aGraph.getEdge("v3", "v1").getWeight());
+        assertNotNull(aGraph.getVertex("v4"));
+        assertEquals(6, format.getLinesRead());
+        assertEquals(47, format.getBytesRead());
+    }
+
+    @Test
+    void importBadEdgeList() {
+        EdgeListFormat format = EdgeListFormat.csv();
+        assertThrows(IOException.class, () -> importString(format, "v1,v2,-4"));
+        assertThrows(IOException.class, () -> importString(format, "v1,v2,4x"));
+        assertThrows(IOException.class, () -> importString(format, "v1,v2,"));
+        assertThrows(IOException.class, () -> importString(format, "v1,v2,99999999999"));
+        assertThrows(IOException.class, () -> importString(format, "v1,v2,4,label,extra"));
+        assertThrows(IOException.class, () -> importString(format, "v".repeat(EdgeListFormat.BUFFER_BYTES + 1)));
+        assertThrows(IllegalArgumentException.class, () -> new EdgeListFormat('\n'));
+    }
+
+    @Test
+    void exportAndImport() throws IOException {
+        Graph aGraph = new Graph();
+        aGraph.addVertex("v1");
+        aGraph.addVertex("v2");
+        aGraph.addVertex("v3");
+        aGraph.addVertex("alone");
+        aGraph.addEdge("v1", "v2", 4, "a label");
+        aGraph.addEdge("v2", "v3", 1234567);
+        aGraph.addEdge("v3", "v1", 0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EdgeListFormat format = EdgeListFormat.csv();
+        format.exportTo(aGraph, Channels.newChannel(bytes));
+        assertEquals(
+            "v1,v2,4,a label\nv2,v3,1234567,An Edge\nv3,v1,0,An Edge\nalone\n",
+            bytes.toString(StandardCharsets.UTF_8)
+        );
+
+        Graph readGraph = importString(format, bytes.toString(StandardCharsets.UTF_8));
+        assertEquals(4, readGraph.getNumberOfVertices());
+        assertEquals(3, readGraph.getNumberOfEdges());
+        assertEquals("a label", readGraph.getEdge("v1", "v2").getLabel());
+        assertEquals(1234567, readGraph.getEdge("v2", "v3").getWeight());
+
+        aGraph.addEdge("v1", "v3", 1, "has,comma");
+        assertThrows(IllegalArgumentException.class, () -> format.exportTo(aGraph, Channels.newChannel(new ByteArrayOutputStream())));
+    }
+
+    @Test
+    void exportAndImportLargeFile() throws IOException {
+        GraphBuilder builder = Graph.builder();
+        for (int i = 0; i < 100000; i++) {
+            builder.addVertex("vertex-" + i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            builder.addEdge("vertex-" + i, "vertex-" + ((i + 1) % 100000), i % 1000, "road");
+            builder.addEdge("vertex-" + i, "vertex-" + ((i * 31 + 7) % 100000), i % 17, "rail");
+        }
+        Graph aGraph = builder.build();
+        java.nio.file.Path tempFile = Files.createTempFile("edges", ".csv");
+        try {
+            EdgeListFormat format = EdgeListFormat.csv();
+            format.exportTo(aGraph, tempFile);
+            Graph readGraph = format.importFrom(tempFile);
+            testLogger.info(
+                "Imported {} bytes in {} ms, {} MB/s",
+                format.getBytesRead(), format.getImportTime().toMillis(), format.getMegabytesPerSecond()
+            );
+            assertEquals(Files.size(tempFile), format.getBytesRead());
+            assertTrue(format.getMegabytesPerSecond() > 0);
+            assertEquals(aGraph.getNumberOfVertices(), readGraph.getNumberOfVertices());
+            assertEquals(aGraph.getNumberOfEdges(), readGraph.getNumberOfEdges());
+            assertEquals(
+                aGraph.findShortestPath("vertex-5", "vertex-77777").getCost(),
+                readGraph.findShortestPath("vertex-5", "vertex-77777").getCost()
+            );
+        }
+        finally {
+            Files.delete(tempFile);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GraphBuilderTest {
+
+    static final Logger testLogger = LogManager.getLogger(GraphBuilderTest.class);
+
+    @Test
+    void build() {
+        testLogger.info("Building the dense Graph in bulk");
+        GraphBuilder builder = TestGraphs.denseGraphBuilder();
+        assertEquals(5, builder.getNumberOfVertices());
+        assertEquals(14, builder.getNumberOfEdges());
+        Graph builtGraph = builder.build();
+
+        assertEquals(5, builtGraph.getNumberOfVertices());
+        assertEquals(14, builtGraph.getNumberOfEdges());
+        assertEquals("short-hop", builtGraph.getEdge("v5", "v4").getLabel());
+        assertEquals(Graph.EDGE_DEFAULT_LABEL, builtGraph.getEdge("v1", "v2").getLabel());
+        assertEquals(3, builtGraph.findShortestPath("v1", "v4").getCost());
+        assertEquals(10, builtGraph.findAllPaths("v1", "v4").size());
+        assertEquals(2, builtGraph.getPredecessors("v5").size());
+
+        testLogger.info("Validating that the built Graph can still be changed");
+        builtGraph.addVertex("v6");
+        builtGraph.addEdge("v4", "v6", 1);
+        builtGraph.removeVertex("v1");
+        assertEquals(5, builtGraph.getNumberOfVertices());
+        assertEquals(5, builtGraph.findShortestPath("v2", "v6").getCost());
+    }
+
+    @Test
+    void buildWithDuplicates() {
+        GraphBuilder builder = Graph.builder()
+            .addVertex("v1")
+            .addVertex("v2")
+            .addEdge("v1", "v2", 4, "first")
+            .addEdge("v2", "v1", 1)
+            .addEdge("v1", "v2", 7, "second");
+        Graph builtGraph = builder.build();
+        testLogger.info("Validating that the last duplicate Edge wins");
+        assertEquals(2, builtGraph.getNumberOfEdges());
+        assertEquals(7, builtGraph.getEdge("v1", "v2").getWeight());
+        assertEquals("second", builtGraph.getEdge("v1", "v2").getLabel());
+
+        testLogger.info("Validating that bad vertices are only found when building");
+        builder.addVertex("v1");
+        assertThrows(IllegalArgumentException.class, builder::build);
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> Graph.builder().addVertex("v1").addEdge("v1", "vbad").build()
+        );
+        assertThrows(IllegalArgumentException.class, () -> Graph.builder().addVertex(null));
+        assertThrows(IllegalArgumentException.class, () -> Graph.builder().addEdge("v1", "v2", -1));
+    }
+
+    @Test
+    void buildLargeGraph() {
+        testLogger.info("Building a Graph where one Vertex has an Edge to every other Vertex");
+        GraphBuilder builder = Graph.builder();
+        for (int i = 0; i < 2000; i++) {
+            builder.addVertex("v" + i);
+        }
+        for (int i = 1; i < 2000; i++) {
+            builder.addEdge("v0", "v" + i, i);
+            builder.addEdge("v" + i, "v" + (i % 1999 + 1), 1);
+        }
+        Graph builtGraph = builder.build();
+        assertEquals(2000, builtGraph.getNumberOfVertices());
+        assertEquals(3998, builtGraph.getNumberOfEdges());
+        assertTrue(builtGraph.getVertex("v0").hasEdgeIndex());
+        assertEquals(1500, builtGraph.getEdge("v0", "v1500").getWeight());
+        assertEquals(1500, builtGraph.findShortestPath("v0", "v1500").getCost());
+        assertEquals(2, builtGraph.findShortestPath("v0", "v1500").getVertices().size());
+        assertEquals(2, builtGraph.findShortestPath("v1999", "v2").getCost());
+    }
+
+}
@@ -0,0 +1,183 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+class GraphFormatTest {
+
+    static final Logger testLogger = LogManager.getLogger(GraphFormatTest.class);
+
+    private static Graph makeGraph() {
+        Graph aGraph = new Graph();
+        aGraph.addVertex("v1");
+        aGraph.addVertex("v2");
+        aGraph.addVertex("v3");
+        aGraph.addVertex("v4");
+        aGraph.addVertex("v\u00fc");
+        aGraph.addEdge("v1", "v2", 4);
+        aGraph.addEdge("v1", "v3", 3, "named");
+        aGraph.addEdge("v2", "v4", 8);
+        aGraph.addEdge("v3", "v\u00fc", 2, "named");
+        aGraph.addEdge("v\u00fc", "v1", 1, "\u00fcn\u00efcode");
+        aGraph.getEdge("v2", "v4").setLabel(null);
+        aGraph.addVertex("v5");
+        aGraph.addEdge("v4", "v5", 9);
+        aGraph.removeVertex("v3");
+        return aGraph;
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        Graph aGraph = makeGraph();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        aGraph.writeTo(bytes);
+        testLogger.info("Wrote Graph in {} bytes", bytes.size());
+        //The 5 vertex labels, plus "An Edge" and the unicode label ("named" is no longer used by an Edge)
+        int stringBytes = "v1v2v4v\u00fcv5An Edge\u00fcn\u00efcode".getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+        assertEquals(GraphFormat.HEADER_BYTES + 4 * (5 + 5 + 6 + 3 * 4 + 8) + stringBytes, bytes.size());
+
+        Graph readGraph = Graph.readFrom(new ByteArrayInputStream(bytes.toByteArray()));
+        TestGraphs.assertSameGraph(aGraph, readGraph);
+        assertNull(readGraph.getEdge("v2", "v4").getLabel());
+        assertEquals("\u00fcn\u00efcode", readGraph.getEdge("v\u00fc", "v1").getLabel());
+        assertEquals(aGraph.findShortestPath("v\u00fc", "v5").getCost(), readGraph.findShortestPath("v\u00fc", "v5").getCost());
+        readGraph.addEdge("v5", "v1", 1);
+        assertEquals(5, readGraph.getNumberOfEdges());
+    }
+
+    @Test
+    void writeAndReadThroughFileChannel() throws IOException {
+        GraphBuilder builder = Graph.builder();
+        for (int i = 0; i < 50000; i++) {
+            builder.addVertex("v" + i);
+        }
+        for (int i = 0; i < 50000; i++) {
+            builder.addEdge("v" + i, "v" + ((i + 1) % 50000), i % 97);
+            builder.addEdge("v" + i, "v" + ((i * 7 + 3) % 50000), i % 13, "jump");
+        }
+        Graph aGraph = builder.build();
+        java.nio.file.Path tempFile = Files.createTempFile("graph", ".bin");
+        try {
+            long startTime = System.nanoTime();
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                aGraph.writeTo(channel);
+            }
+            long writeTime = System.nanoTime() - startTime;
+            startTime = System.nanoTime();
+            Graph readGraph;
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.READ)) {
+                readGraph = Graph.readFrom(channel);
+            }
+            long readTime = System.nanoTime() - startTime;
+            testLogger.info(
+                "Wrote {} bytes in {} ms, read them in {} ms",
+                Files.size(tempFile), writeTime / 1_000_000, readTime / 1_000_000
+            );
+            TestGraphs.assertSameGraph(aGraph, readGraph);
+        }
+        finally {
+            Files.delete(tempFile);
+        }
+    }
+
+    @Test
+    void javaSerialization() throws IOException, ClassNotFoundException {
+        testLogger.info("Serializing a long chain of vertices, which used to overflow the stack");
+        GraphBuilder builder = Graph.builder();
+        for (int i = 0; i < 100000; i++) {
+            builder.addVertex("v" + i);
+            if (i > 0)
+                builder.addEdge("v" + (i - 1), "v" + i, 1);
+        }
+        Graph aGraph = builder.build();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream stream = new ObjectOutputStream(bytes)) {
+            stream.writeObject(aGraph);
+        }
+        Graph readGraph;
+        try (ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            readGraph = (Graph) stream.readObject();
+        }
+        TestGraphs.assertSameGraph(aGraph, readGraph);
+        assertEquals(99999, readGraph.findShortestPath("v0", "v99999").getCost());
+    }
+
+    @Test
+    void readBadInput() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        makeGraph().writeTo(bytes);
+        byte[] data = bytes.toByteArray();
+
+        testLogger.info("Validating that a truncated or altered file cannot be read");
+        byte[] truncated = java.util.Arrays.copyOf(data, data.length - 3);
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(truncated)));
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(badMagic)));
+        byte[] badVersion = data.clone();
+        badVersion[4] = 9;
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(badVersion)));
+        //The first Edge target comes right after the header, the 5 vertex label ids, the 5 sorted ids and the 6 offsets
+        byte[] badTarget = data.clone();
+        badTarget[GraphFormat.HEADER_BYTES + 4 * 16] = 100;
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(badTarget)));
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(new byte[0])));
+        assertEquals(0, Graph.readFrom(new ByteArrayInputStream(writeEmpty())).getNumberOfVertices());
+    }
+
+    @Test
+    void readCorruptHeader() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        makeGraph().writeTo(bytes);
+        byte[] data = bytes.toByteArray();
+
+        testLogger.info("Validating that a header with counts the file cannot hold is rejected before allocating");
+        byte[] maxVertices = withHeaderInt(data, 2, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(maxVertices)));
+        byte[] maxStringBytes = withHeaderInt(data, 5, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(maxStringBytes)));
+        //Far more than the stream holds, but small enough to pass the section size check
+        byte[] manyEdges = withHeaderInt(data, 3, 500_000_000);
+        assertThrows(IOException.class, () -> Graph.readFrom(new ByteArrayInputStream(manyEdges)));
+
+        java.nio.file.Path tempFile = Files.createTempFile("graph", ".bin");
+        try {
+            Files.write(tempFile, manyEdges);
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.READ)) {
+                IOException thrown = assertThrows(IOException.class, () -> Graph.readFrom(channel));
+                assertTrue(thrown.getMessage().startsWith("Corrupt Graph file"), thrown.getMessage());
+            }
+        } finally {
+            Files.delete(tempFile);
+        }
+    }
+
+    /**
+     * Copies a written Graph with one of the ints of its header replaced
+     */
+    private static byte[] withHeaderInt(byte[] data, int index, int value) {
+        byte[] altered = data.clone();
+        ByteBuffer.wrap(altered).order(ByteOrder.LITTLE_ENDIAN).putInt(index * Integer.BYTES, value);
+        return altered;
+    }
+
+    private static byte[] writeEmpty() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new Graph().writeTo(bytes);
+        return bytes.toByteArray();
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+class GraphGeneratorsTest {
+
+    static final Logger testLogger = LogManager.getLogger(GraphGeneratorsTest.class);
+
+    @Test
+    void erdosRenyi() {
+        Graph aGraph = GraphGenerators.erdosRenyi(1000, 5000, 100, 42L);
+        assertEquals(1000, aGraph.getNumberOfVertices());
+        testLogger.info("Made {} of 5000 Edges, after dropping duplicates", aGraph.getNumberOfEdges());
+        assertTrue(aGraph.getNumberOfEdges() > 4900 && aGraph.getNumberOfEdges() <= 5000);
+        for (Vertex aVertex: aGraph.getVerticesInternal()) {
+            for (Edge anEdge: aVertex.getEdges()) {
+                assertNotSame(aVertex, anEdge.getVertexEnd());
+                assertTrue(anEdge.getWeight() >= 1 && anEdge.getWeight() <= 100);
+            }
+        }
+        testLogger.info("Validating that the same seed makes the same Graph, and a different one does not");
+        TestGraphs.assertSameGraph(aGraph, GraphGenerators.erdosRenyi(1000, 5000, 100, 42L));
+        Graph otherGraph = GraphGenerators.erdosRenyi(1000, 5000, 100, 43L);
+        assertNotEquals(
+            aGraph.getVertex("v0").getEdges().size() + "" + aGraph.getVertex("v1").getEdges().size() + aGraph.getVertex("v2").getEdges().size(),
+            otherGraph.getVertex("v0").getEdges().size() + "" + otherGraph.getVertex("v1").getEdges().size() + otherGraph.getVertex("v2").getEdges().size()
+        );
+        assertThrows(IllegalArgumentException.class, () -> GraphGenerators.erdosRenyi(1, 1, 100, 42L));
+        assertThrows(IllegalArgumentException.class, () -> GraphGenerators.erdosRenyi(10, 10, 0, 42L));
+    }
+
+    @Test
+    void rmat() {
+        Graph aGraph = GraphGenerators.rmat(12, 40000, 10, 7L);
+        assertEquals(4096, aGraph.getNumberOfVertices());
+        TestGraphs.assertSameGraph(aGraph, GraphGenerators.rmat(12, 40000, 10, 7L));
+        testLogger.info("Validating that a few vertices have far more Edges than average");
+        int maxDegree = 0;
+        for (Vertex aVertex: aGraph.getVerticesInternal()) {
+            maxDegree = Math.max(maxDegree, aVertex.getEdges().size());
+        }
+        double averageDegree = (double) aGraph.getNumberOfEdges() / aGraph.getNumberOfVertices();
+        testLogger.info("Largest degree is {}, average is {}", maxDegree, averageDegree);
+        assertTrue(maxDegree > 10 * averageDegree);
+        assertThrows(IllegalArgumentException.class, () -> GraphGenerators.rmat(12, 10, 0.6, 0.3, 0.3, 10, 7L));
+        assertThrows(IllegalArgumentException.class, () -> GraphGenerators.rmat(31, 10, 10, 7L));
+    }
+
+    @Test
+    void grid() throws IOException {
+        Graph aGraph = GraphGenerators.grid(30, 20, 40, 1L);
+        assertEquals(600, aGraph.getNumberOfVertices());
+        assertEquals(2 * (29 * 20 + 30 * 19), aGraph.getNumberOfEdges());
+        assertNotNull(aGraph.getEdge("3:4", "4:4"));
+        assertNotNull(aGraph.getEdge("4:4", "3:4"));
+        assertNull(aGraph.getEdge("3:4", "4:5"));
+        testLogger.info("Validating that highways are cheaper than other roads");
+        int highwayCost = aGraph.findShortestPath("0:10", "29:10").getCost();
+        assertTrue(highwayCost <= 29 * 40 / GraphGenerators.HIGHWAY_DISCOUNT);
+        TestGraphs.assertSameGraph(aGraph, GraphGenerators.grid(30, 20, 40, 1L));
+        assertEquals(0, GraphGenerators.grid(1, 1, 40, 1L).getNumberOfEdges());
+
+        testLogger.info("Validating that the labels can be exported as an edge list");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        EdgeListFormat.csv().exportTo(aGraph, Channels.newChannel(bytes));
+        Graph readGraph = EdgeListFormat.csv().importFrom(Channels.newChannel(new ByteArrayInputStream(bytes.toByteArray())));
+        TestGraphs.assertSameGraph(aGraph, readGraph);
+    }
+
+    @Test
+    void layeredDag() {
+        Graph aGraph = GraphGenerators.layeredDag(10, 50, 3, 20, 5L);
+        assertEquals(500, aGraph.getNumberOfVertices());
+        assertTrue(aGraph.getNumberOfEdges() > 9 * 50 * 2 && aGraph.getNumberOfEdges() <= 9 * 50 * 3);
+        testLogger.info("Validating that every Edge goes to the next layer");
+        for (Vertex aVertex: aGraph.getVerticesInternal()) {
+            int layer = Integer.parseInt(aVertex.getLabel().split("-")[0]);
+            for (Edge anEdge: aVertex.getEdges()) {
+                assertEquals(layer + 1, Integer.parseInt(anEdge.getVertexEnd().getLabel().split("-")[0]));
+            }
+        }
+        assertEquals(0, aGraph.getVertex("9-0").getEdges().size());
+        TestGraphs.assertSameGraph(aGraph, GraphGenerators.layeredDag(10, 50, 3, 20, 5L));
+    }
+
+    @Test
+    void largeGraph() {
+        long started = System.nanoTime();
+        Graph aGraph = GraphGenerators.erdosRenyi(200000, 2000000, 1000, 99L);
+        testLogger.info(
+            "Generated {} vertices and {} Edges in {} ms",
+            aGraph.getNumberOfVertices(), aGraph.getNumberOfEdges(), (System.nanoTime() - started) / 1000000
+        );
+        assertEquals(200000, aGraph.getNumberOfVertices());
+        assertTrue(aGraph.getNumberOfEdges() > 1990000);
+        assertNotNull(aGraph.findShortestPath("v0", "v199999"));
+    }
+
+}
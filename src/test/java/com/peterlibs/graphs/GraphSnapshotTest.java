@@ -0,0 +1,112 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class GraphSnapshotTest {
+
+    static final Logger testLogger = LogManager.getLogger(GraphSnapshotTest.class);
+
+    Graph denseGraph;
+    GraphSnapshot denseSnapshot;
+
+    @BeforeEach
+    public void init() {
+        testLogger.info("Creating new dense Graph, and freezing it");
+        denseGraph = TestGraphs.denseGraph();
+        denseSnapshot = denseGraph.freeze();
+    }
+
+    @Test
+    void freeze() {
+        assertEquals(denseGraph.getNumberOfVertices(), denseSnapshot.getNumberOfVertices());
+        assertEquals(denseGraph.getNumberOfEdges(), denseSnapshot.getNumberOfEdges());
+        for (int i = 0; i < TestGraphs.DENSE_VERTEX_NAMES.length; i++) {
+            assertEquals(i, denseSnapshot.getVertexId(TestGraphs.DENSE_VERTEX_NAMES[i]));
+            assertEquals(TestGraphs.DENSE_VERTEX_NAMES[i], denseSnapshot.getVertexLabel(i));
+        }
+        assertEquals(-1, denseSnapshot.getVertexId("v-missing"));
+        assertEquals(8, denseSnapshot.getEdgeWeight("v2", "v4"));
+        assertEquals(-1, denseSnapshot.getEdgeWeight("v1", "v4"));
+
+        testLogger.info("Validating that later changes to the Graph are not seen by the snapshot");
+        denseGraph.addEdge("v2", "v4", 1);
+        denseGraph.removeVertex("v5");
+        assertEquals(8, denseSnapshot.getEdgeWeight("v2", "v4"));
+        assertEquals(5, denseSnapshot.getNumberOfVertices());
+        assertEquals(2, denseSnapshot.findShortestPath("v1", "v5").getCost());
+    }
+
+    @Test
+    void findShortestPath() {
+        for (String vertexStartName: TestGraphs.DENSE_VERTEX_NAMES) {
+            for (String vertexEndName: TestGraphs.DENSE_VERTEX_NAMES) {
+                if (vertexStartName.equals(vertexEndName)) {
+                    assertThrows(
+                        IllegalArgumentException.class,
+                        () -> denseSnapshot.findShortestPath(vertexStartName, vertexEndName)
+                    );
+                    continue;
+                }
+                Path expected = denseGraph.findShortestPath(vertexStartName, vertexEndName);
+                Path actual = denseSnapshot.findShortestPath(vertexStartName, vertexEndName);
+                assertEquals(expected.getCost(), actual.getCost());
+                assertEquals(expected.getVertices().size(), actual.getVertices().size());
+                assertEquals(vertexStartName, actual.getVertices().get(0).getLabel());
+                assertEquals(vertexEndName, actual.getVertices().get(actual.getVertices().size() - 1).getLabel());
+            }
+        }
+
+        Path aPath = denseSnapshot.findShortestPath("v1", "v4");
+        assertEquals("v5", aPath.getVertices().get(1).getLabel());
+        assertEquals("short-hop", aPath.getEdges().get(1).getLabel());
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> denseSnapshot.findShortestPath("v1", "v-missing")
+        );
+    }
+
+    @Test
+    void findShortestPathWithoutPath() {
+        Graph testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addEdge("v2", "v1");
+        GraphSnapshot testSnapshot = testGraph.freeze();
+
+        assertThrows(RuntimeException.class, () -> testSnapshot.findShortestPath("v1", "v2"));
+        assertEquals(0, testSnapshot.findAllPaths("v1", "v2").size());
+        assertThrows(RuntimeException.class, () -> testSnapshot.findLongestPath("v1", "v2"));
+    }
+
+    @Test
+    void findAllPaths() {
+        for (String vertexStartName: TestGraphs.DENSE_VERTEX_NAMES) {
+            for (String vertexEndName: TestGraphs.DENSE_VERTEX_NAMES) {
+                if (vertexStartName.equals(vertexEndName))
+                    continue;
+                List<Path> expected = denseGraph.findAllPaths(vertexStartName, vertexEndName);
+                List<Path> actual = denseSnapshot.findAllPaths(vertexStartName, vertexEndName);
+                assertEquals(expected.size(), actual.size());
+                for (int i = 0; i < expected.size(); i++) {
+                    assertEquals(expected.get(i).getCost(), actual.get(i).getCost());
+                    assertEquals(expected.get(i).getVertices().size(), actual.get(i).getVertices().size());
+                }
+            }
+        }
+    }
+
+    @Test
+    void findLongestPath() {
+        //The longest of the 10 paths from v1 to v4 is v1 -> v5 -> v3 -> v2 -> v4
+        Path aPath = denseSnapshot.findLongestPath("v1", "v4");
+        assertEquals(16, aPath.getCost());
+        assertEquals(5, aPath.getVertices().size());
+    }
+
+}
@@ -2,7 +2,6 @@ package com.peterlibs.graphs;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,7 +12,11 @@ import java.io.*;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
 
 class GraphTest {
 
@@ -71,6 +74,71 @@ class GraphTest {
             )
         );
         assertNull(testGraph.getEdge(vertexToStay, vertexToBeRemoved));
+
+        testLogger.info("Validating that the removed Vertex's label can be used again");
+        assertDoesNotThrow( () -> testGraph.addVertex(vertexToBeRemoved) );
+        assertEquals(testGraph.getNumberOfVertices(), 2);
+        assertNotNull(testGraph.getVertex(vertexToBeRemoved));
+    }
+
+    @Test
+    void removeVertexWithIncidentEdges() {
+        testLogger.info("Creating new Graph, where 'v2' has incoming, outgoing and looping Edges");
+        Graph testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addVertex("v3");
+        testGraph.addEdge("v1", "v2");
+        testGraph.addEdge("v3", "v2");
+        testGraph.addEdge("v2", "v3");
+        testGraph.addEdge("v2", "v2");
+        testGraph.addEdge("v1", "v3");
+        testGraph.addEdge("v3", "v1");
+        assertEquals(6, testGraph.getNumberOfEdges());
+
+        testLogger.info("Removing Vertex 'v2'");
+        testGraph.removeVertex("v2");
+        assertEquals(2, testGraph.getNumberOfEdges());
+        assertEquals(1, testGraph.getVertex("v1").getEdges().size());
+        assertEquals(1, testGraph.getVertex("v1").getIncomingEdges().size());
+        assertEquals(1, testGraph.getVertex("v3").getEdges().size());
+        assertEquals(1, testGraph.getVertex("v3").getIncomingEdges().size());
+        assertNotNull(testGraph.getEdge("v1", "v3"));
+        assertNotNull(testGraph.getEdge("v3", "v1"));
+
+        testLogger.info("Validating that the remaining vertices were re-indexed, and can still be searched");
+        assertEquals(0, testGraph.getVertex("v1").getIndex());
+        assertEquals(1, testGraph.getVertex("v3").getIndex());
+        testGraph.addVertex("v4");
+        testGraph.addEdge("v3", "v4", 2);
+        assertEquals(2, testGraph.getVertex("v4").getIndex());
+        assertEquals(2, testGraph.findShortestPath("v1", "v4").getCost());
+        assertEquals(1, testGraph.findAllPaths("v1", "v4").size());
+    }
+
+    @Test
+    void getPredecessors() {
+        testLogger.info("Creating new Graph");
+        Graph testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addVertex("v3");
+        testGraph.addEdge("v1", "v3");
+        testGraph.addEdge("v2", "v3");
+        testGraph.addEdge("v3", "v1");
+
+        List<Vertex> predecessors = testGraph.getPredecessors("v3");
+        assertEquals(2, predecessors.size());
+        assertTrue(predecessors.contains(testGraph.getVertex("v1")));
+        assertTrue(predecessors.contains(testGraph.getVertex("v2")));
+        assertEquals(0, testGraph.getPredecessors("v2").size());
+
+        testLogger.info("Removing an Edge, and validating the predecessors are updated");
+        testGraph.removeEdge("v1", "v3");
+        predecessors = testGraph.getPredecessors("v3");
+        assertEquals(1, predecessors.size());
+        assertSame(testGraph.getVertex("v2"), predecessors.get(0));
+        assertThrows(IllegalArgumentException.class, () -> testGraph.getPredecessors("vbad"));
     }
 
     @Test
@@ -210,6 +278,301 @@ class GraphTest {
         assertEquals(startVertex.getLabel(), startVertex2.getLabel());
     }
     
+    @Test
+    void findShortestPathPrefersFewerHops() {
+        testLogger.info("Creating new Graph with two paths of equal cost");
+        Graph testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addVertex("v3");
+        testGraph.addVertex("v4");
+        testGraph.addEdge("v1", "v2", 1);
+        testGraph.addEdge("v2", "v3", 1);
+        testGraph.addEdge("v3", "v4", 1);
+        testGraph.addEdge("v1", "v4", 3);
+
+        Path aPath = testGraph.findShortestPath("v1", "v4");
+        assertEquals(3, aPath.getCost());
+        assertEquals(2, aPath.getVertices().size());
+
+        testLogger.info("Making the longer path cheaper");
+        testGraph.addEdge("v2", "v3", 0);
+        aPath = testGraph.findShortestPath("v1", "v4");
+        assertEquals(2, aPath.getCost());
+        assertEquals(4, aPath.getVertices().size());
+        assertEquals("v1", aPath.getVertices().get(0).getLabel());
+        assertEquals("v4", aPath.getVertices().get(3).getLabel());
+    }
+
+    @Test
+    void findShortestPathWithHugeWeights() {
+        testLogger.info("Creating new Graph where one path costs more than an int can hold");
+        int huge = Integer.MAX_VALUE - 1;
+        Graph testGraph = new Graph();
+        for (String aLabel: new String[] { "v1", "v2", "v3", "v4", "v5", "v6" }) {
+            testGraph.addVertex(aLabel);
+        }
+        testGraph.addEdge("v1", "v2", huge);
+        testGraph.addEdge("v2", "v4", huge);
+        testGraph.addEdge("v1", "v3", huge);
+        testGraph.addEdge("v3", "v4", 1);
+        testGraph.addEdge("v4", "v5", huge);
+        testGraph.addEdge("v5", "v6", huge);
+
+        testLogger.info("Validating that every search finds the path that fits, and not the one that overflows");
+        GraphSnapshot aSnapshot = testGraph.freeze();
+        ContractionHierarchy hierarchy = testGraph.buildContractionHierarchy();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            AllPairsShortestPaths floydWarshall = AllPairsShortestPaths.computeFloydWarshall(aSnapshot, pool);
+            AllPairsShortestPaths dijkstra = AllPairsShortestPaths.computeDijkstra(aSnapshot, pool);
+            List<Path> foundPaths = List.of(
+                testGraph.findShortestPath("v1", "v4"),
+                testGraph.findShortestPath("v1", "v4", SearchDirection.BIDIRECTIONAL, null),
+                aSnapshot.findShortestPath("v1", "v4"),
+                hierarchy.findShortestPath("v1", "v4"),
+                floydWarshall.getPath("v1", "v4"),
+                dijkstra.getPath("v1", "v4"),
+                testGraph.findKShortestPaths("v1", "v4", 1).get(0)
+            );
+            for (Path aPath: foundPaths) {
+                assertEquals(Integer.MAX_VALUE, aPath.getCost());
+                assertEquals("v3", aPath.getVertices().get(1).getLabel());
+            }
+            assertEquals(Integer.MAX_VALUE, floydWarshall.getDistance("v1", "v4"));
+            assertEquals(Integer.MAX_VALUE, dijkstra.getDistance("v1", "v4"));
+
+            testLogger.info("Validating that a path costing more than an int can hold throws, instead of being wrong");
+            assertThrows(ArithmeticException.class, () -> testGraph.findShortestPath("v1", "v5"));
+            assertThrows(ArithmeticException.class, () -> testGraph.findShortestPath("v4", "v6"));
+            assertThrows(
+                ArithmeticException.class,
+                () -> testGraph.findShortestPath("v4", "v6", SearchDirection.BIDIRECTIONAL, null)
+            );
+            assertThrows(ArithmeticException.class, () -> aSnapshot.findShortestPath("v4", "v6"));
+            assertThrows(ArithmeticException.class, () -> hierarchy.findShortestPath("v4", "v6"));
+            assertThrows(ArithmeticException.class, () -> floydWarshall.getDistance("v4", "v6"));
+            assertThrows(ArithmeticException.class, () -> dijkstra.getPath("v4", "v6"));
+            assertThrows(ArithmeticException.class, () -> testGraph.findKShortestPaths("v1", "v4", 2));
+            assertEquals(-1, dijkstra.getDistance("v6", "v1"));
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void findAllPathsParallel() {
+        testLogger.info("Creating new complete Graph of 8 vertices");
+        Graph testGraph = TestGraphs.completeGraph(8);
+
+        List<Path> allPaths = testGraph.findAllPaths("v0", "v7");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Path> parallelPaths = testGraph.findAllPathsParallel("v0", "v7", pool);
+            assertEquals(1957, allPaths.size());
+            assertEquals(allPaths.size(), parallelPaths.size());
+            for (int i = 0; i < allPaths.size(); i++) {
+                assertEquals(allPaths.get(i).getVertices(), parallelPaths.get(i).getVertices());
+            }
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        assertEquals(allPaths.size(), testGraph.findAllPathsParallel("v0", "v7").size());
+        assertEquals(0, testGraph.findAllPathsParallel("v0", "vbad").size());
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> testGraph.findAllPathsParallel("v3", "v3")
+        );
+    }
+
+    @Test
+    void findLongestPathWithBudget() {
+        testLogger.info("Creating new complete Graph of 8 vertices");
+        Graph testGraph = TestGraphs.completeGraph(8);
+
+        int longestCost = 0;
+        for (Path aPath: testGraph.findAllPaths("v0", "v7")) {
+            longestCost = Math.max(longestCost, aPath.getCost());
+        }
+        Path aPath = testGraph.findLongestPath("v0", "v7");
+        assertEquals(longestCost, aPath.getCost());
+        assertEquals(8, aPath.getVertices().size());
+
+        testLogger.info("Validating that a search out of budget returns the best path found so far");
+        Path budgetPath = testGraph.findLongestPath("v0", "v7", 100, null);
+        assertTrue(budgetPath.getCost() <= longestCost);
+        assertEquals("v7", budgetPath.getVertices().get(budgetPath.getVertices().size() - 1).getLabel());
+        assertThrows(
+            RuntimeException.class,
+            () -> testGraph.findLongestPath("v0", "v7", 1, null)
+        );
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> testGraph.findLongestPath("v0", "v7", 0, null)
+        );
+        assertThrows(
+            RuntimeException.class,
+            () -> testGraph.findLongestPath("v0", "vbad")
+        );
+    }
+
+    @Test
+    void findShortestPathWithHeuristic() {
+        testLogger.info("Creating new 20x20 grid Graph, with Edges both ways between neighbours");
+        //With a highest weight of 1, every Edge costs 1 (highways too), so the Manhattan distance
+        // is never more than the real cost
+        Graph testGraph = GraphGenerators.grid(20, 20, 1, 1L);
+        Heuristic manhattan = (vertexLabel, destinationLabel) -> {
+            String[] from = vertexLabel.split(":");
+            String[] to = destinationLabel.split(":");
+            return Math.abs(Integer.parseInt(from[0]) - Integer.parseInt(to[0])) +
+                Math.abs(Integer.parseInt(from[1]) - Integer.parseInt(to[1]));
+        };
+
+        QueryStats dijkstraStats = new QueryStats();
+        QueryStats aStarStats = new QueryStats();
+        Path dijkstraPath = testGraph.findShortestPath("5:5", "15:12", Heuristic.NONE, dijkstraStats);
+        Path aStarPath = testGraph.findShortestPath("5:5", "15:12", manhattan, aStarStats);
+        testLogger.info("Dijkstra {} | A* {}", dijkstraStats, aStarStats);
+        assertEquals(17, dijkstraPath.getCost());
+        assertEquals(dijkstraPath.getCost(), aStarPath.getCost());
+        assertEquals(dijkstraPath.getVertices().size(), aStarPath.getVertices().size());
+        assertTrue(aStarStats.getVerticesExpanded() < dijkstraStats.getVerticesExpanded() / 2);
+        assertEquals(17, testGraph.findShortestPath("5:5", "15:12", manhattan).getCost());
+
+        testLogger.info("Validating that a bidirectional search finds the same path");
+        QueryStats bidirectionalStats = new QueryStats();
+        Path bidirectionalPath = testGraph.findShortestPath("5:5", "15:12", SearchDirection.BIDIRECTIONAL, bidirectionalStats);
+        testLogger.info("Bidirectional {}", bidirectionalStats);
+        assertEquals(dijkstraPath.getCost(), bidirectionalPath.getCost());
+        assertEquals(dijkstraPath.getVertices().size(), bidirectionalPath.getVertices().size());
+        assertTrue(bidirectionalStats.getVerticesExpanded() < dijkstraStats.getVerticesExpanded());
+
+        testLogger.info("Validating that a bad heuristic is not allowed");
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> testGraph.findShortestPath("5:5", "15:12", (vertexLabel, destinationLabel) -> -1)
+        );
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> testGraph.findShortestPath("5:5", "15:12", (Heuristic) null)
+        );
+    }
+
+    @Test
+    void queryStatsForEveryQuery() {
+        testLogger.info("Creating a Graph with two routes from 'a' to 'd', and a dead end");
+        Graph testGraph = new Graph();
+        for (String aLabel: List.of("a", "b", "c", "d", "dead end")) {
+            testGraph.addVertex(aLabel);
+        }
+        testGraph.addEdge("a", "b", 1);
+        testGraph.addEdge("b", "d", 1);
+        testGraph.addEdge("a", "c", 5);
+        testGraph.addEdge("c", "d", 5);
+        testGraph.addEdge("a", "dead end", 1);
+
+        QueryStats stats = new QueryStats();
+        assertEquals(2, testGraph.findShortestPath("a", "d", Heuristic.NONE, stats).getCost());
+        testLogger.info("Shortest path {}", stats);
+        //'a', 'b' and 'dead end' are taken off of the heap before 'd' is
+        assertEquals(4, stats.getVerticesExpanded());
+        assertEquals(4, stats.getEdgesRelaxed());
+        assertEquals(4, stats.getEdgesScanned());
+        assertEquals(1 + 4 + 4, stats.getQueueOperations());
+        assertEquals(3, stats.getMaxFrontier());
+        assertEquals(2, stats.getMaxDepth());
+        assertTrue(stats.getWallTimeNanos() > 0);
+
+        testLogger.info("Validating that the counts are reset for the next query");
+        assertEquals(2, testGraph.findAllPaths("a", "d", stats).size());
+        testLogger.info("All paths {}", stats);
+        //'a', 'b', 'c' and 'dead end' are pushed onto the stack, and every Edge is looked at once
+        assertEquals(4, stats.getVerticesExpanded());
+        assertEquals(5, stats.getEdgesScanned());
+        assertEquals(0, stats.getEdgesRelaxed());
+        assertEquals(8, stats.getQueueOperations());
+        assertEquals(1, stats.getMaxDepth());
+
+        assertEquals(10, testGraph.findLongestPath("a", "d", 1000, null, stats).getCost());
+        testLogger.info("Longest path {}", stats);
+        assertTrue(stats.getVerticesExpanded() > 0);
+        assertEquals(2, stats.getMaxDepth());
+
+        testLogger.info("Validating that a failed query is still timed");
+        stats = new QueryStats();
+        QueryStats failedStats = stats;
+        assertThrows(RuntimeException.class, () -> testGraph.findShortestPath("dead end", "a", Heuristic.NONE, failedStats));
+        assertEquals(1, failedStats.getVerticesExpanded());
+        assertTrue(failedStats.getWallTimeNanos() > 0);
+    }
+
+    @Test
+    void findKShortestPaths() {
+        testLogger.info("Creating the usual example Graph for Yen's algorithm");
+        Graph testGraph = new Graph();
+        for (String aLabel: List.of("C", "D", "E", "F", "G", "H")) {
+            testGraph.addVertex(aLabel);
+        }
+        testGraph.addEdge("C", "D", 3);
+        testGraph.addEdge("C", "E", 2);
+        testGraph.addEdge("D", "F", 4);
+        testGraph.addEdge("E", "D", 1);
+        testGraph.addEdge("E", "F", 2);
+        testGraph.addEdge("E", "G", 3);
+        testGraph.addEdge("F", "G", 2);
+        testGraph.addEdge("F", "H", 1);
+        testGraph.addEdge("G", "H", 2);
+
+        List<Path> shortestPaths = testGraph.findKShortestPaths("C", "H", 3);
+        assertEquals(3, shortestPaths.size());
+        assertEquals(List.of(5, 7, 8), shortestPaths.stream().map(Path::getCost).toList());
+        assertEquals(List.of("C", "E", "F", "H"), shortestPaths.get(0).getVertices().stream().map(Vertex::getLabel).toList());
+        assertEquals(List.of("C", "E", "G", "H"), shortestPaths.get(1).getVertices().stream().map(Vertex::getLabel).toList());
+
+        testLogger.info("Validating that asking for more paths than exist returns every simple path");
+        List<Path> everyPath = testGraph.findKShortestPaths("C", "H", 100);
+        assertEquals(testGraph.findAllPaths("C", "H").size(), everyPath.size());
+        assertEquals(everyPath.size(), testGraph.findKShortestPaths("C", "H", Integer.MAX_VALUE).size());
+        assertEquals(0, testGraph.findKShortestPaths("H", "C", 5).size());
+        assertEquals(0, testGraph.findKShortestPaths("C", "nowhere", 5).size());
+        assertThrows(IllegalArgumentException.class, () -> testGraph.findKShortestPaths("C", "H", 0));
+        assertThrows(IllegalArgumentException.class, () -> testGraph.findKShortestPaths("C", "C", 3));
+    }
+
+    @Test
+    void findKShortestPathsMatchesAllPaths() {
+        Graph testGraph = GraphGenerators.erdosRenyi(12, 40, 10, 3L);
+        for (int end = 1; end < 12; end++) {
+            String vertexEnd = "v" + end;
+            List<Path> allPaths = new ArrayList<>(testGraph.findAllPaths("v0", vertexEnd));
+            allPaths.sort((a, b) -> (a.getCost() != b.getCost())
+                ? Integer.compare(a.getCost(), b.getCost())
+                : Integer.compare(a.getEdges().size(), b.getEdges().size()));
+            List<Path> shortestPaths = testGraph.findKShortestPaths("v0", vertexEnd, 25);
+            assertEquals(Math.min(25, allPaths.size()), shortestPaths.size());
+            for (int i = 0; i < shortestPaths.size(); i++) {
+                assertEquals(allPaths.get(i).getCost(), shortestPaths.get(i).getCost());
+                assertEquals(allPaths.get(i).getEdges().size(), shortestPaths.get(i).getEdges().size());
+            }
+        }
+
+        testLogger.info("Validating that a Graph with far too many paths to list is still quick");
+        Graph gridGraph = GraphGenerators.grid(100, 100, 20, 3L);
+        QueryStats stats = new QueryStats();
+        List<Path> shortestPaths = gridGraph.findKShortestPaths("0:0", "99:99", 10, stats);
+        testLogger.info("10 shortest paths across a 100x100 grid | {}", stats);
+        assertEquals(10, shortestPaths.size());
+        assertEquals(gridGraph.findShortestPath("0:0", "99:99").getCost(), shortestPaths.get(0).getCost());
+        for (int i = 1; i < shortestPaths.size(); i++) {
+            assertTrue(shortestPaths.get(i - 1).getCost() <= shortestPaths.get(i).getCost());
+            assertEquals(shortestPaths.get(i).getVertices().size(), new HashSet<>(shortestPaths.get(i).getVertices()).size());
+        }
+    }
+
     //These are some helper functions for the testing of path logic
     private void logPathAsString(Path aPath) {
         ArrayList<String> aPathAsStrings = new ArrayList<>();
@@ -293,6 +656,44 @@ class GraphTest {
         }
     }
 
+    /**
+     * Checks that a bidirectional search finds a path as cheap and as short as a forward
+     * search does, between every pair of the given vertices (and fails where it fails)
+     */
+    private void doTestBidirectionalMatchesForward(Graph aGraph, String[] vertexNames) {
+        for (String vertexStartName: vertexNames) {
+            for (String vertexEndName: vertexNames) {
+                if (vertexStartName.equals(vertexEndName)) {
+                    assertThrows(
+                        IllegalArgumentException.class,
+                        () -> aGraph.findShortestPath(vertexStartName, vertexEndName, SearchDirection.BIDIRECTIONAL)
+                    );
+                    continue;
+                }
+                testLogger.info("Comparing both search directions from '{}' to '{}'", vertexStartName, vertexEndName);
+                Path forwardPath;
+                try {
+                    forwardPath = aGraph.findShortestPath(vertexStartName, vertexEndName, SearchDirection.FORWARD);
+                }
+                catch (RuntimeException e) {
+                    assertThrows(
+                        RuntimeException.class,
+                        () -> aGraph.findShortestPath(vertexStartName, vertexEndName, SearchDirection.BIDIRECTIONAL)
+                    );
+                    continue;
+                }
+                Path bidirectionalPath = aGraph.findShortestPath(vertexStartName, vertexEndName, SearchDirection.BIDIRECTIONAL);
+                assertEquals(forwardPath.getCost(), bidirectionalPath.getCost());
+                assertEquals(forwardPath.getVertices().size(), bidirectionalPath.getVertices().size());
+                assertEquals(vertexStartName, bidirectionalPath.getVertices().get(0).getLabel());
+                assertEquals(
+                    vertexEndName,
+                    bidirectionalPath.getVertices().get(bidirectionalPath.getVertices().size() - 1).getLabel()
+                );
+            }
+        }
+    }
+
     @Nested
     class DenseGraphPathTest {
 
@@ -301,30 +702,7 @@ class GraphTest {
         @BeforeEach
         public void init() {
             testLogger.info("Creating new dense Graph");
-            denseGraph = new Graph();
-
-            testLogger.info("Adding vertices to dense Graph");
-            denseGraph.addVertex("v1");
-            denseGraph.addVertex("v2");
-            denseGraph.addVertex("v3");
-            denseGraph.addVertex("v4");
-            denseGraph.addVertex("v5");
-
-            testLogger.info("Adding edges to dense Graph");
-            denseGraph.addEdge("v1", "v2", 4);
-            denseGraph.addEdge("v1", "v3", 3);
-            denseGraph.addEdge("v1", "v5", 2);
-            denseGraph.addEdge("v2", "v1", 5);
-            denseGraph.addEdge("v2", "v3", 6);
-            denseGraph.addEdge("v2", "v4", 8);
-            denseGraph.addEdge("v2", "v5", 3);
-            denseGraph.addEdge("v3", "v2", 4);
-            denseGraph.addEdge("v3", "v4", 3);
-            denseGraph.addEdge("v4", "v1", 2);
-            denseGraph.addEdge("v4", "v2", 5);
-            denseGraph.addEdge("v4", "v3", 6);
-            denseGraph.addEdge("v5", "v3", 2);
-            denseGraph.addEdge("v5", "v4", 1);
+            denseGraph = TestGraphs.denseGraph();
         }
 
         @Test
@@ -360,6 +738,35 @@ class GraphTest {
             doTestFindAllPaths(denseGraph, "v5", "v5", -1);
         }
 
+        @Test
+        void streamAllPaths() {
+            List<Path> allPaths = denseGraph.findAllPaths("v1", "v4");
+            List<Path> streamedPaths = denseGraph.streamAllPaths("v1", "v4").toList();
+            assertEquals(allPaths.size(), streamedPaths.size());
+            for (int i = 0; i < allPaths.size(); i++) {
+                assertEquals(allPaths.get(i).getVertices(), streamedPaths.get(i).getVertices());
+            }
+
+            testLogger.info("Validating that the stream can be stopped early");
+            assertEquals(3, denseGraph.streamAllPaths("v1", "v4").limit(3).count());
+            assertTrue(
+                denseGraph.streamAllPaths("v1", "v4").anyMatch( aPath -> aPath.getCost() == 3 )
+            );
+
+            Iterator<Path> paths = denseGraph.iterateAllPaths("v4", "v1");
+            for (int i = 0; i < 3; i++) {
+                assertTrue(paths.hasNext());
+                List<Vertex> pathVertices = paths.next().getVertices();
+                assertEquals("v1", pathVertices.get(pathVertices.size() - 1).getLabel());
+            }
+            assertFalse(paths.hasNext());
+            assertThrows(NoSuchElementException.class, paths::next);
+            assertThrows(
+                IllegalArgumentException.class,
+                () -> denseGraph.streamAllPaths("v2", "v2")
+            );
+        }
+
         @Test
         void findShortestPath() throws InvocationTargetException, NoSuchMethodException, IllegalAccessException {
             String graphMethodName =  "findShortestPath";
@@ -395,9 +802,44 @@ class GraphTest {
             doTestFindAPath(denseGraph, "v5", "v5", graphMethodName, true, -1, -1);
         }
 
-        @Disabled
         @Test
-        void findLongestPath() {
+        void findShortestPathBidirectional() {
+            doTestBidirectionalMatchesForward(denseGraph, TestGraphs.DENSE_VERTEX_NAMES);
+        }
+
+        @Test
+        void findLongestPath() throws InvocationTargetException, NoSuchMethodException, IllegalAccessException {
+            String graphMethodName =  "findLongestPath";
+            
+            doTestFindAPath(denseGraph, "v1", "v1", graphMethodName, true, -1, -1);
+            doTestFindAPath(denseGraph, "v1", "v2", graphMethodName, true, 13, 5);
+            doTestFindAPath(denseGraph, "v1", "v3", graphMethodName, true, 18, 4);
+            doTestFindAPath(denseGraph, "v1", "v4", graphMethodName, true, 16, 5);
+            doTestFindAPath(denseGraph, "v1", "v5", graphMethodName, true, 14, 5);
+
+            doTestFindAPath(denseGraph, "v2", "v1", graphMethodName, true, 11, 4);
+            doTestFindAPath(denseGraph, "v2", "v2", graphMethodName, true, -1, -1);
+            doTestFindAPath(denseGraph, "v2", "v3", graphMethodName, true, 14, 3);
+            doTestFindAPath(denseGraph, "v2", "v4", graphMethodName, true, 12, 5);
+            doTestFindAPath(denseGraph, "v2", "v5", graphMethodName, true, 13, 5);
+
+            doTestFindAPath(denseGraph, "v3", "v1", graphMethodName, true, 14, 4);
+            doTestFindAPath(denseGraph, "v3", "v2", graphMethodName, true, 9, 4);
+            doTestFindAPath(denseGraph, "v3", "v3", graphMethodName, true, -1, -1);
+            doTestFindAPath(denseGraph, "v3", "v4", graphMethodName, true, 12, 3);
+            doTestFindAPath(denseGraph, "v3", "v5", graphMethodName, true, 16, 5);
+
+            doTestFindAPath(denseGraph, "v4", "v1", graphMethodName, true, 15, 4);
+            doTestFindAPath(denseGraph, "v4", "v2", graphMethodName, true, 10, 3);
+            doTestFindAPath(denseGraph, "v4", "v3", graphMethodName, true, 14, 5);
+            doTestFindAPath(denseGraph, "v4", "v4", graphMethodName, true, -1, -1);
+            doTestFindAPath(denseGraph, "v4", "v5", graphMethodName, true, 17, 5);
+
+            doTestFindAPath(denseGraph, "v5", "v1", graphMethodName, true, 16, 5);
+            doTestFindAPath(denseGraph, "v5", "v2", graphMethodName, true, 11, 4);
+            doTestFindAPath(denseGraph, "v5", "v3", graphMethodName, true, 14, 5);
+            doTestFindAPath(denseGraph, "v5", "v4", graphMethodName, true, 14, 4);
+            doTestFindAPath(denseGraph, "v5", "v5", graphMethodName, true, -1, -1);
         }
 
     }
@@ -405,6 +847,8 @@ class GraphTest {
     @Nested
     class SparseGraphPathTest {
 
+        static final String[] SPARSE_VERTEX_NAMES = { "v1", "v2", "v3", "v4", "v5", "v6", "v7", "v8", "v9" };
+
         Graph sparseGraph;
 
         @BeforeEach
@@ -628,9 +1072,104 @@ class GraphTest {
             doTestFindAPath(sparseGraph, "v9", "v9", graphMethodName, false, -1, -1);
         }
 
-        @Disabled
         @Test
-        void findLongestPath() {
+        void findShortestPathBidirectional() {
+            doTestBidirectionalMatchesForward(sparseGraph, SPARSE_VERTEX_NAMES);
+        }
+
+        @Test
+        void findLongestPath() throws InvocationTargetException, NoSuchMethodException, IllegalAccessException {
+            String graphMethodName =  "findLongestPath";
+            
+            doTestFindAPath(sparseGraph, "v1", "v1", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v1", "v2", graphMethodName, true, 4, 2);
+            doTestFindAPath(sparseGraph, "v1", "v3", graphMethodName, true, 6, 3);
+            doTestFindAPath(sparseGraph, "v1", "v4", graphMethodName, true, 14, 5);
+            doTestFindAPath(sparseGraph, "v1", "v5", graphMethodName, true, 7, 3);
+            doTestFindAPath(sparseGraph, "v1", "v6", graphMethodName, true, 16, 6);
+            doTestFindAPath(sparseGraph, "v1", "v7", graphMethodName, true, 10, 4);
+            doTestFindAPath(sparseGraph, "v1", "v8", graphMethodName, true, 9, 4);
+            doTestFindAPath(sparseGraph, "v1", "v9", graphMethodName, true, 18, 6);
+
+            doTestFindAPath(sparseGraph, "v2", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v2", "v2", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v2", "v3", graphMethodName, true, 2, 2);
+            doTestFindAPath(sparseGraph, "v2", "v4", graphMethodName, true, 10, 4);
+            doTestFindAPath(sparseGraph, "v2", "v5", graphMethodName, true, 3, 2);
+            doTestFindAPath(sparseGraph, "v2", "v6", graphMethodName, true, 12, 5);
+            doTestFindAPath(sparseGraph, "v2", "v7", graphMethodName, true, 6, 3);
+            doTestFindAPath(sparseGraph, "v2", "v8", graphMethodName, true, 5, 3);
+            doTestFindAPath(sparseGraph, "v2", "v9", graphMethodName, true, 14, 5);
+
+            doTestFindAPath(sparseGraph, "v3", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v3", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v3", "v3", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v3", "v4", graphMethodName, true, 3, 2);
+            doTestFindAPath(sparseGraph, "v3", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v3", "v6", graphMethodName, true, 9, 3);
+            doTestFindAPath(sparseGraph, "v3", "v7", graphMethodName, true, 4, 2);
+            doTestFindAPath(sparseGraph, "v3", "v8", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v3", "v9", graphMethodName, true, 7, 3);
+
+            doTestFindAPath(sparseGraph, "v4", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v4", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v4", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v6", graphMethodName, true, 2, 2);
+            doTestFindAPath(sparseGraph, "v4", "v7", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v8", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v4", "v9", graphMethodName, true, 4, 2);
+
+            doTestFindAPath(sparseGraph, "v5", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v5", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v5", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v5", "v4", graphMethodName, true, 7, 3);
+            doTestFindAPath(sparseGraph, "v5", "v5", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v5", "v6", graphMethodName, true, 9, 4);
+            doTestFindAPath(sparseGraph, "v5", "v7", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v5", "v8", graphMethodName, true, 2, 2);
+            doTestFindAPath(sparseGraph, "v5", "v9", graphMethodName, true, 11, 4);
+
+            doTestFindAPath(sparseGraph, "v6", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v4", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v6", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v6", "v7", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v8", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v6", "v9", graphMethodName, false, 0, 0);
+
+            doTestFindAPath(sparseGraph, "v7", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v4", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v6", graphMethodName, true, 5, 2);
+            doTestFindAPath(sparseGraph, "v7", "v7", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v7", "v8", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v7", "v9", graphMethodName, false, 0, 0);
+
+            doTestFindAPath(sparseGraph, "v8", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v8", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v8", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v8", "v4", graphMethodName, true, 5, 2);
+            doTestFindAPath(sparseGraph, "v8", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v8", "v6", graphMethodName, true, 7, 3);
+            doTestFindAPath(sparseGraph, "v8", "v7", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v8", "v8", graphMethodName, false, -1, -1);
+            doTestFindAPath(sparseGraph, "v8", "v9", graphMethodName, true, 9, 3);
+
+            doTestFindAPath(sparseGraph, "v9", "v1", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v2", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v3", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v4", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v5", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v6", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v7", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v8", graphMethodName, false, 0, 0);
+            doTestFindAPath(sparseGraph, "v9", "v9", graphMethodName, false, -1, -1);
         }
 
     }
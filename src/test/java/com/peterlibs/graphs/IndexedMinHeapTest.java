@@ -0,0 +1,50 @@
+package com.peterlibs.graphs;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.NoSuchElementException;
+
+class IndexedMinHeapTest {
+
+    @Test
+    void pollInKeyOrder() {
+        IndexedMinHeap heap = new IndexedMinHeap(2);
+        heap.insert(0, 50);
+        heap.insert(1, 10);
+        heap.insert(2, 30);
+        heap.insert(7, 20);
+
+        assertEquals(4, heap.size());
+        assertEquals(1, heap.poll());
+        assertEquals(7, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(0, heap.poll());
+        assertTrue(heap.isEmpty());
+        assertThrows(NoSuchElementException.class, heap::poll);
+    }
+
+    @Test
+    void decreaseKey() {
+        IndexedMinHeap heap = new IndexedMinHeap();
+        heap.insert(0, 50);
+        heap.insert(1, 10);
+        heap.insert(2, 30);
+
+        heap.decreaseKey(0, 5);
+        assertEquals(5, heap.peekKey());
+        assertFalse(heap.insertOrDecrease(2, 40));
+        assertTrue(heap.insertOrDecrease(2, 7));
+        assertTrue(heap.insertOrDecrease(3, 8));
+
+        assertEquals(0, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(3, heap.poll());
+        assertEquals(1, heap.poll());
+        assertFalse(heap.contains(1));
+
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(1, 1));
+        heap.insert(1, 10);
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(1, 11));
+        assertThrows(IllegalArgumentException.class, () -> heap.insert(1, 1));
+    }
+}
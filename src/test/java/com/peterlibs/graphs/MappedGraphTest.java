@@ -0,0 +1,138 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+
+class MappedGraphTest {
+
+    static final Logger testLogger = LogManager.getLogger(MappedGraphTest.class);
+
+    Graph denseGraph;
+    java.nio.file.Path graphFile;
+
+    @BeforeEach
+    public void init() throws IOException {
+        testLogger.info("Creating new dense Graph, and writing it to a file");
+        denseGraph = TestGraphs.denseGraph();
+        graphFile = Files.createTempFile("graph", ".bin");
+        try (OutputStream stream = Files.newOutputStream(graphFile)) {
+            denseGraph.writeTo(stream);
+        }
+    }
+
+    @AfterEach
+    public void cleanUp() throws IOException {
+        Files.deleteIfExists(graphFile);
+    }
+
+    @Test
+    void getVertexAndEdge() throws IOException {
+        MappedGraph mappedGraph = MappedGraph.open(graphFile);
+        assertEquals(5, mappedGraph.getNumberOfVertices());
+        assertEquals(14, mappedGraph.getNumberOfEdges());
+        assertEquals(2, mappedGraph.getVertexId("v3"));
+        assertEquals("v3", mappedGraph.getVertexLabel(2));
+        assertEquals(-1, mappedGraph.getVertexId("vbad"));
+        assertEquals(-1, mappedGraph.getVertexId("v"));
+        assertEquals(-1, mappedGraph.getVertexId(null));
+
+        Vertex aVertex = mappedGraph.getVertex("v2");
+        assertEquals("v2", aVertex.getLabel());
+        assertEquals(4, aVertex.getEdges().size());
+        assertEquals("v1", aVertex.getEdges().get(0).getVertexEnd().getLabel());
+        assertNull(mappedGraph.getVertex("vbad"));
+
+        Edge anEdge = mappedGraph.getEdge("v5", "v4");
+        assertEquals(1, anEdge.getWeight());
+        assertEquals("short-hop", anEdge.getLabel());
+        assertEquals("v5", anEdge.getVertexStart().getLabel());
+        assertNull(mappedGraph.getEdge("v1", "v4"));
+        assertNull(mappedGraph.getEdge("v1", "vbad"));
+    }
+
+    @Test
+    void findPaths() throws IOException {
+        MappedGraph mappedGraph = MappedGraph.open(graphFile);
+        Path aPath = mappedGraph.findShortestPath("v1", "v4");
+        assertEquals(3, aPath.getCost());
+        assertEquals("short-hop", aPath.getEdges().get(1).getLabel());
+        assertEquals(denseGraph.findShortestPath("v3", "v5").getCost(), mappedGraph.findShortestPath("v3", "v5").getCost());
+
+        List<Path> expectedPaths = denseGraph.findAllPaths("v1", "v4");
+        List<Path> allPaths = mappedGraph.findAllPaths("v1", "v4");
+        assertEquals(expectedPaths.size(), allPaths.size());
+        for (int i = 0; i < allPaths.size(); i++) {
+            assertEquals(expectedPaths.get(i).getCost(), allPaths.get(i).getCost());
+            assertEquals(expectedPaths.get(i).getVertices().size(), allPaths.get(i).getVertices().size());
+        }
+        assertThrows(IllegalArgumentException.class, () -> mappedGraph.findShortestPath("v1", "v1"));
+        assertThrows(IllegalArgumentException.class, () -> mappedGraph.findAllPaths("v1", "vbad"));
+    }
+
+    @Test
+    void findShortestPathInLargeFile() throws IOException {
+        testLogger.info("Comparing shortest paths in a large mapped Graph against the Graph itself");
+        Random random = new Random(3);
+        GraphBuilder builder = Graph.builder();
+        for (int i = 0; i < 20000; i++) {
+            builder.addVertex("vertex-" + i);
+        }
+        for (int i = 0; i < 80000; i++) {
+            builder.addEdge("vertex-" + random.nextInt(20000), "vertex-" + random.nextInt(20000), random.nextInt(100));
+        }
+        Graph largeGraph = builder.build();
+        try (OutputStream stream = Files.newOutputStream(graphFile)) {
+            largeGraph.writeTo(stream);
+        }
+        long startTime = System.nanoTime();
+        MappedGraph mappedGraph = MappedGraph.open(graphFile);
+        testLogger.info("Mapped {} bytes in {} us", Files.size(graphFile), (System.nanoTime() - startTime) / 1000);
+
+        for (int i = 0; i < 50; i++) {
+            String vertexStartName = "vertex-" + random.nextInt(20000);
+            String vertexEndName = "vertex-" + random.nextInt(20000);
+            if (vertexStartName.equals(vertexEndName))
+                continue;
+            Path expectedPath;
+            try {
+                expectedPath = largeGraph.findShortestPath(vertexStartName, vertexEndName);
+            }
+            catch (RuntimeException e) {
+                assertThrows(RuntimeException.class, () -> mappedGraph.findShortestPath(vertexStartName, vertexEndName));
+                continue;
+            }
+            Path aPath = mappedGraph.findShortestPath(vertexStartName, vertexEndName);
+            assertEquals(expectedPath.getCost(), aPath.getCost());
+            assertEquals(expectedPath.getVertices().size(), aPath.getVertices().size());
+        }
+    }
+
+    @Test
+    void openBadFile() throws IOException {
+        byte[] data = Files.readAllBytes(graphFile);
+        testLogger.info("Validating that a truncated or altered file cannot be mapped");
+        Files.write(graphFile, java.util.Arrays.copyOf(data, data.length - 1));
+        assertThrows(IOException.class, () -> MappedGraph.open(graphFile));
+        byte[] badMagic = data.clone();
+        badMagic[0] = 'X';
+        Files.write(graphFile, badMagic);
+        assertThrows(IOException.class, () -> MappedGraph.open(graphFile));
+        byte[] oldVersion = data.clone();
+        oldVersion[4] = GraphFormat.VERSION_WITHOUT_LABEL_ORDER;
+        Files.write(graphFile, oldVersion);
+        assertThrows(IOException.class, () -> MappedGraph.open(graphFile));
+        Files.write(graphFile, new byte[3]);
+        assertThrows(IOException.class, () -> MappedGraph.open(graphFile));
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+class PathCacheTest {
+
+    static final Logger testLogger = LogManager.getLogger(PathCacheTest.class);
+
+    Graph testGraph;
+
+    @BeforeEach
+    public void init() {
+        testLogger.info("Creating new Graph");
+        testGraph = new Graph();
+        testGraph.addVertex("v1");
+        testGraph.addVertex("v2");
+        testGraph.addVertex("v3");
+        testGraph.addEdge("v1", "v2", 1);
+        testGraph.addEdge("v2", "v3", 1);
+        testGraph.addEdge("v1", "v3", 5);
+    }
+
+    @Test
+    void hitsAndMisses() {
+        PathCache cache = testGraph.enableQueryCache(10);
+        assertSame(cache, testGraph.getQueryCache());
+
+        Path firstPath = testGraph.findShortestPath("v1", "v3");
+        Path secondPath = testGraph.findShortestPath("v1", "v3");
+        assertSame(firstPath, secondPath);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        testLogger.info("Validating that different kinds of query are cached separately");
+        List<Path> allPaths = testGraph.findAllPaths("v1", "v3");
+        assertEquals(2, allPaths.size());
+        assertSame(allPaths, testGraph.findAllPaths("v1", "v3"));
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        assertEquals(2, cache.size());
+
+        testLogger.info("Validating that no path is cached when caching is disabled");
+        testGraph.disableQueryCache();
+        assertNull(testGraph.getQueryCache());
+        assertNotSame(firstPath, testGraph.findShortestPath("v1", "v3"));
+    }
+
+    @Test
+    void changesInvalidate() {
+        PathCache cache = testGraph.enableQueryCache(10);
+        assertEquals(2, testGraph.findShortestPath("v1", "v3").getCost());
+
+        testLogger.info("Making the direct Edge cheaper");
+        long epoch = testGraph.getModificationEpoch();
+        testGraph.addEdge("v1", "v3", 1);
+        assertTrue(testGraph.getModificationEpoch() > epoch);
+        assertEquals(1, testGraph.findShortestPath("v1", "v3").getCost());
+        assertEquals(0, cache.getHits());
+        assertEquals(1, cache.getInvalidations());
+
+        testLogger.info("Removing the direct Edge");
+        testGraph.removeEdge("v1", "v3");
+        assertEquals(2, testGraph.findShortestPath("v1", "v3").getCost());
+
+        testLogger.info("Adding and removing a Vertex");
+        testGraph.findShortestPath("v1", "v3");
+        assertEquals(1, cache.getHits());
+        testGraph.addVertex("v4");
+        testGraph.findShortestPath("v1", "v3");
+        testGraph.removeVertex("v4");
+        testGraph.findShortestPath("v1", "v3");
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getInvalidations());
+    }
+
+    @Test
+    void evictions() {
+        PathCache cache = testGraph.enableQueryCache(2);
+        testGraph.findShortestPath("v1", "v2");
+        testGraph.findShortestPath("v2", "v3");
+        testGraph.findShortestPath("v1", "v2");
+        testGraph.findShortestPath("v1", "v3");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        testLogger.info("Validating that the least recently used result was evicted");
+        testGraph.findShortestPath("v1", "v2");
+        assertEquals(2, cache.getHits());
+        testGraph.findShortestPath("v2", "v3");
+        assertEquals(2, cache.getHits());
+        assertThrows(IllegalArgumentException.class, () -> testGraph.enableQueryCache(0));
+    }
+
+}
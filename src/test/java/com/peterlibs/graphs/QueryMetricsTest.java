@@ -0,0 +1,152 @@
+package com.peterlibs.graphs;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+class QueryMetricsTest {
+
+    static final Logger testLogger = LogManager.getLogger(QueryMetricsTest.class);
+
+    @Test
+    void recordQueries() {
+        Graph testGraph = new Graph();
+        for (int i = 0; i < 10; i++) {
+            testGraph.addVertex("v" + i);
+        }
+        for (int i = 0; i + 1 < 10; i++) {
+            testGraph.addEdge("v" + i, "v" + (i + 1), 1);
+        }
+        testGraph.addEdge("v0", "v5", 3);
+        assertNull(testGraph.getQueryMetrics());
+        QueryMetrics metrics = testGraph.enableQueryMetrics();
+        assertSame(metrics, testGraph.getQueryMetrics());
+
+        testLogger.info("Running queries, with and without their own QueryStats");
+        QueryStats stats = new QueryStats();
+        testGraph.findShortestPath("v0", "v9");
+        testGraph.findShortestPath("v0", "v9", Heuristic.NONE, stats);
+        testGraph.findShortestPath("v0", "v9", SearchDirection.BIDIRECTIONAL);
+        assertThrows(RuntimeException.class, () -> testGraph.findShortestPath("v9", "v0"));
+        testGraph.findAllPaths("v0", "v9");
+        testGraph.findLongestPath("v0", "v9");
+        testLogger.info("Recorded {}", metrics);
+
+        assertEquals(4, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        assertEquals(1, metrics.getQueries(QueryMetrics.QueryType.ALL_PATHS));
+        assertEquals(1, metrics.getQueries(QueryMetrics.QueryType.LONGEST_PATH));
+        assertTrue(metrics.getVerticesExpanded(QueryMetrics.QueryType.SHORTEST_PATH) > 2 * stats.getVerticesExpanded());
+        assertEquals(8, metrics.getMaxDepth(QueryMetrics.QueryType.ALL_PATHS));
+        assertTrue(metrics.getWallTime(QueryMetrics.QueryType.SHORTEST_PATH).toNanos() >= stats.getWallTimeNanos());
+        if (QueryStats.currentAllocatedBytes() != -1) {
+            //Every query builds at least the Path it returns
+            assertTrue(stats.getAllocatedBytes() > 0);
+            assertTrue(metrics.getAllocatedBytes(QueryMetrics.QueryType.ALL_PATHS) > 0);
+        }
+        else {
+            assertEquals(-1, stats.getAllocatedBytes());
+        }
+
+        Map<String, Long> exported = metrics.toMap();
+        assertEquals(4L, exported.get("shortest_path.queries"));
+        assertEquals(metrics.getEdgesScanned(QueryMetrics.QueryType.ALL_PATHS), exported.get("all_paths.edges_scanned"));
+        assertTrue(exported.containsKey("longest_path.latency_p99_nanos"));
+        assertEquals(metrics.getAllocatedBytes(QueryMetrics.QueryType.SHORTEST_PATH), exported.get("shortest_path.allocated_bytes"));
+
+        testLogger.info("Validating that cached results and disabled metrics are not counted");
+        testGraph.enableQueryCache(10);
+        testGraph.findShortestPath("v0", "v9");
+        testGraph.findShortestPath("v0", "v9");
+        assertEquals(5, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        testGraph.disableQueryCache();
+        assertSame(metrics, testGraph.getQueryMetrics());
+        testGraph.findShortestPath("v0", "v9");
+        assertEquals(6, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        testGraph.disableQueryMetrics();
+        testGraph.findShortestPath("v1", "v9");
+        assertEquals(6, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        metrics.reset();
+        assertEquals(0, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        assertEquals(0, metrics.getMaxFrontier(QueryMetrics.QueryType.SHORTEST_PATH));
+    }
+
+    @Test
+    void recordOtherQueries() {
+        Graph testGraph = new Graph();
+        for (int i = 0; i < 6; i++) {
+            testGraph.addVertex("v" + i);
+        }
+        for (int i = 0; i < 6; i++) {
+            for (int j = i + 1; j < 6; j++) {
+                testGraph.addEdge("v" + i, "v" + j, 1 + i + j);
+            }
+        }
+        QueryMetrics metrics = testGraph.enableQueryMetrics();
+
+        testLogger.info("Validating that a parallel search counts the work of every thread");
+        QueryStats stats = new QueryStats();
+        assertEquals(16, testGraph.findAllPathsParallel("v0", "v5", ForkJoinPool.commonPool(), stats).size());
+        assertEquals(1, metrics.getQueries(QueryMetrics.QueryType.ALL_PATHS));
+        assertTrue(stats.getVerticesExpanded() >= 6);
+        assertTrue(stats.getEdgesScanned() >= 15);
+        assertEquals(4, stats.getMaxDepth());
+
+        testLogger.info("Validating that iterated searches are counted once they run out of paths");
+        Iterator<Path> somePaths = testGraph.iterateAllPaths("v0", "v5");
+        somePaths.next();
+        assertEquals(1, metrics.getQueries(QueryMetrics.QueryType.ALL_PATHS));
+        Iterator<Path> everyPath = testGraph.iterateAllPaths("v0", "v5");
+        while (everyPath.hasNext()) {
+            everyPath.next();
+        }
+        everyPath.hasNext();
+        assertEquals(2, metrics.getQueries(QueryMetrics.QueryType.ALL_PATHS));
+        assertTrue(testGraph.streamAllPaths("v0", "v5").findFirst().isPresent());
+        assertEquals(16, testGraph.streamAllPaths("v0", "v5").count());
+        assertEquals(3, metrics.getQueries(QueryMetrics.QueryType.ALL_PATHS));
+
+        testLogger.info("Validating that contraction hierarchy queries are counted");
+        ContractionHierarchy hierarchy = testGraph.buildContractionHierarchy();
+        hierarchy.findShortestPath("v0", "v5");
+        assertEquals(1, metrics.getQueries(QueryMetrics.QueryType.SHORTEST_PATH));
+        assertTrue(metrics.getVerticesExpanded(QueryMetrics.QueryType.SHORTEST_PATH) > 0);
+    }
+
+    @Test
+    void latencyHistogram() {
+        QueryMetrics metrics = new QueryMetrics();
+        assertEquals(Duration.ZERO, metrics.getLatencyPercentile(QueryMetrics.QueryType.SHORTEST_PATH, 50));
+        assertEquals(0, QueryMetrics.latencyBucket(0));
+        assertEquals(1, QueryMetrics.latencyBucket(1));
+        assertEquals(10, QueryMetrics.latencyBucket(1000));
+        assertEquals(QueryMetrics.LATENCY_BUCKETS - 1, QueryMetrics.latencyBucket(Long.MAX_VALUE));
+
+        testLogger.info("Recording 100 queries");
+        for (int i = 0; i < 100; i++) {
+            QueryStats stats = new QueryStats();
+            stats.countExpansion();
+            stats.recordFrontier(i);
+            stats.finish();
+            metrics.record(QueryMetrics.QueryType.SHORTEST_PATH, stats);
+        }
+        long[] histogram = metrics.getLatencyHistogram(QueryMetrics.QueryType.SHORTEST_PATH);
+        long total = 0;
+        for (long bucketCount: histogram) {
+            total += bucketCount;
+        }
+        assertEquals(100, total);
+        assertEquals(99, metrics.getMaxFrontier(QueryMetrics.QueryType.SHORTEST_PATH));
+        assertEquals(100, metrics.getVerticesExpanded(QueryMetrics.QueryType.SHORTEST_PATH));
+        Duration median = metrics.getLatencyPercentile(QueryMetrics.QueryType.SHORTEST_PATH, 50);
+        Duration slowest = metrics.getLatencyPercentile(QueryMetrics.QueryType.SHORTEST_PATH, 100);
+        assertTrue(median.compareTo(slowest) <= 0);
+        assertThrows(IllegalArgumentException.class, () -> metrics.getLatencyPercentile(QueryMetrics.QueryType.ALL_PATHS, 101));
+    }
+
+}
@@ -0,0 +1,111 @@
+package com.peterlibs.graphs;
+
+import static org.junit.jupiter.api.Assertions.*;
+import java.util.List;
+
+/**
+ * Graphs and checks shared by more than one test class
+ */
+final class TestGraphs {
+
+    static final String[] DENSE_VERTEX_NAMES = { "v1", "v2", "v3", "v4", "v5" };
+
+    /**
+     * An Edge of the dense Graph
+     */
+    private record DenseEdge(String start, String end, int weight, String label) {
+        DenseEdge (String start, String end, int weight) {
+            this(start, end, weight, Graph.EDGE_DEFAULT_LABEL);
+        }
+    }
+
+    //Every vertex has an Edge to at least two others, so there are 10 paths from v1 to v4.
+    // The cheapest of them is v1 -> v5 -> v4, along the "short-hop" Edge.
+    private static final List<DenseEdge> DENSE_EDGES = List.of(
+        new DenseEdge("v1", "v2", 4),
+        new DenseEdge("v1", "v3", 3),
+        new DenseEdge("v1", "v5", 2),
+        new DenseEdge("v2", "v1", 5),
+        new DenseEdge("v2", "v3", 6),
+        new DenseEdge("v2", "v4", 8),
+        new DenseEdge("v2", "v5", 3),
+        new DenseEdge("v3", "v2", 4),
+        new DenseEdge("v3", "v4", 3),
+        new DenseEdge("v4", "v1", 2),
+        new DenseEdge("v4", "v2", 5),
+        new DenseEdge("v4", "v3", 6),
+        new DenseEdge("v5", "v3", 2),
+        new DenseEdge("v5", "v4", 1, "short-hop")
+    );
+
+    private TestGraphs () {}
+
+    /**
+     * Makes the dense Graph of 5 vertices and 14 Edges, one `addVertex` and `addEdge` at a time
+     */
+    static Graph denseGraph() {
+        Graph aGraph = new Graph();
+        for (String vertexName: DENSE_VERTEX_NAMES) {
+            aGraph.addVertex(vertexName);
+        }
+        for (DenseEdge anEdge: DENSE_EDGES) {
+            aGraph.addEdge(anEdge.start(), anEdge.end(), anEdge.weight(), anEdge.label());
+        }
+        return aGraph;
+    }
+    /**
+     * Adds the vertices and Edges of the dense Graph to a GraphBuilder, without building it
+     */
+    static GraphBuilder denseGraphBuilder() {
+        GraphBuilder builder = Graph.builder().addVertices(List.of(DENSE_VERTEX_NAMES));
+        for (DenseEdge anEdge: DENSE_EDGES) {
+            builder.addEdge(anEdge.start(), anEdge.end(), anEdge.weight(), anEdge.label());
+        }
+        return builder;
+    }
+
+    /**
+     * Makes a complete Graph, with an Edge from every Vertex to every other Vertex. Vertices are
+     * labeled "v0" up to "v{n-1}", and the Edge from "vi" to "vj" weighs i + j.
+     * @param numberOfVertices : The number of vertices (n)
+     */
+    static Graph completeGraph(int numberOfVertices) {
+        Graph aGraph = new Graph();
+        for (int i = 0; i < numberOfVertices; i++) {
+            aGraph.addVertex("v" + i);
+        }
+        for (int i = 0; i < numberOfVertices; i++) {
+            for (int j = 0; j < numberOfVertices; j++) {
+                if (i != j)
+                    aGraph.addEdge("v" + i, "v" + j, i + j);
+            }
+        }
+        return aGraph;
+    }
+
+    /**
+     * Checks that two different Graphs have the same vertices, and that each Vertex has the
+     * same Edges (ends, weights and labels) in the same order
+     * @param expected : The Graph that was copied, written out or generated first
+     * @param actual : The Graph to check against it
+     */
+    static void assertSameGraph(Graph expected, Graph actual) {
+        assertNotSame(expected, actual);
+        assertEquals(expected.getNumberOfVertices(), actual.getNumberOfVertices());
+        assertEquals(expected.getNumberOfEdges(), actual.getNumberOfEdges());
+        for (Vertex expectedVertex: expected.getVerticesInternal()) {
+            Vertex actualVertex = actual.getVertex(expectedVertex.getLabel());
+            assertNotNull(actualVertex, expectedVertex.getLabel());
+            List<Edge> expectedEdges = expectedVertex.getEdges();
+            List<Edge> actualEdges = actualVertex.getEdges();
+            assertEquals(expectedEdges.size(), actualEdges.size());
+            for (int e = 0; e < expectedEdges.size(); e++) {
+                assertEquals(expectedEdges.get(e).getVertexEnd().getLabel(), actualEdges.get(e).getVertexEnd().getLabel());
+                assertEquals(expectedEdges.get(e).getWeight(), actualEdges.get(e).getWeight());
+                assertEquals(expectedEdges.get(e).getLabel(), actualEdges.get(e).getLabel());
+            }
+            assertEquals(expectedVertex.getIncomingEdges().size(), actualVertex.getIncomingEdges().size());
+        }
+    }
+
+}
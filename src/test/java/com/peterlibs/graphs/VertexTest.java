@@ -3,6 +3,8 @@ package com.peterlibs.graphs;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 class VertexTest {
 
@@ -24,9 +26,101 @@ class VertexTest {
 
     @Test
     void removeEdge() {
+        Vertex hub = new Vertex("hub");
+        ArrayList<Vertex> spokes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vertex spoke = new Vertex("spoke-" + i);
+            spokes.add(spoke);
+            hub.addEdge(new Edge(hub, spoke, i));
+        }
+
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(1)));
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(4)));
+        assertEquals(3, hub.getEdges().size());
+        assertNull(hub.getEdgeToVertex(spokes.get(1)));
+        assertNull(hub.getEdgeToVertex(spokes.get(4)));
+        for (int i: new int[] { 0, 2, 3 }) {
+            Edge anEdge = hub.getEdgeToVertex(spokes.get(i));
+            assertEquals(i, anEdge.getWeight());
+            assertSame(anEdge, hub.getEdges().get(anEdge.getOutgoingIndex()));
+        }
+
+        //Removing an Edge that does not start at this Vertex should not change anything
+        Vertex other = new Vertex("other");
+        hub.removeEdge(new Edge(other, spokes.get(0)));
+        assertEquals(3, hub.getEdges().size());
+    }
+
+    @Test
+    void removeEdgeOrder() {
+        Vertex hub = new Vertex("hub");
+        ArrayList<Vertex> spokes = new ArrayList<>();
+        for (int i = 0; i < Vertex.EDGE_INDEX_THRESHOLD + 2; i++) {
+            Vertex spoke = new Vertex("spoke-" + i);
+            spokes.add(spoke);
+            Edge anEdge = new Edge(hub, spoke, i);
+            hub.addEdge(anEdge);
+            spoke.addIncomingEdge(anEdge);
+        }
+        //With EDGE_INDEX_THRESHOLD Edges or more, the last Edge takes the place of the removed one
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(1)));
+        assertEquals(17, hub.getEdges().get(1).getWeight());
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(3)));
+        assertEquals(16, hub.getEdges().get(3).getWeight());
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(0)));
+        assertEquals(15, hub.getEdges().get(0).getWeight());
+        //Below EDGE_INDEX_THRESHOLD Edges, the rest keep their order
+        assertEquals(Vertex.EDGE_INDEX_THRESHOLD - 1, hub.getEdges().size());
+        hub.removeEdge(hub.getEdgeToVertex(spokes.get(2)));
+        ArrayList<Integer> weights = new ArrayList<>();
+        for (Edge anEdge: hub.getEdges()) {
+            weights.add(anEdge.getWeight());
+            assertSame(anEdge, hub.getEdges().get(anEdge.getOutgoingIndex()));
+        }
+        assertEquals(List.of(15, 17, 16, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14), weights);
+
+        //A Vertex with few incoming Edges keeps them in order too
+        Vertex sink = new Vertex("sink");
+        ArrayList<Edge> incoming = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Edge anEdge = new Edge(spokes.get(i), sink, i);
+            incoming.add(anEdge);
+            sink.addIncomingEdge(anEdge);
+        }
+        sink.removeIncomingEdge(incoming.get(1));
+        assertEquals(List.of(incoming.get(0), incoming.get(2), incoming.get(3)), sink.getIncomingEdges());
+        for (Edge anEdge: sink.getIncomingEdges()) {
+            assertSame(anEdge, sink.getIncomingEdges().get(anEdge.getIncomingIndex()));
+        }
     }
 
     @Test
     void getEdgeToVertex() {
+        Vertex hub = new Vertex("hub");
+        ArrayList<Vertex> spokes = new ArrayList<>();
+        int numberOfSpokes = Vertex.EDGE_INDEX_THRESHOLD * 3;
+        for (int i = 0; i < numberOfSpokes; i++) {
+            Vertex spoke = new Vertex("spoke-" + i);
+            spokes.add(spoke);
+            hub.addEdge(new Edge(hub, spoke, i));
+            assertEquals(i + 1 >= Vertex.EDGE_INDEX_THRESHOLD, hub.hasEdgeIndex());
+        }
+        assertNull(hub.getEdgeToVertex(null));
+        assertNull(hub.getEdgeToVertex(new Vertex("not-a-spoke")));
+
+        for (int i = 0; i < numberOfSpokes; i += 2) {
+            hub.removeEdge(hub.getEdgeToVertex(spokes.get(i)));
+        }
+        assertEquals(numberOfSpokes / 2, hub.getEdges().size());
+        for (int i = 0; i < numberOfSpokes; i++) {
+            Edge anEdge = hub.getEdgeToVertex(spokes.get(i));
+            if (i % 2 == 0) {
+                assertNull(anEdge);
+            }
+            else {
+                assertEquals(i, anEdge.getWeight());
+                assertSame(spokes.get(i), anEdge.getVertexEnd());
+            }
+        }
     }
 }
\ No newline at end of file